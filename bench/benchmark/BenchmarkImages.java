@@ -0,0 +1,69 @@
+package benchmark;
+
+import java.util.Random;
+
+import model.ImageModelNew;
+import model.ImageModelNewImpl;
+
+/**
+ * Helper building the synthetic images used by the benchmarks.
+ */
+final class BenchmarkImages {
+
+  /**
+   * Private Constructor, the helper only has static methods.
+   */
+  private BenchmarkImages() {
+  }
+
+  /**
+   * Method to build a reproducible image mixing gradients and noise, so that neither
+   * compression nor the histogram sees a degenerate input.
+   *
+   * @param size  size written as width x height, for example 640x480.
+   * @param alias alias name of the image.
+   * @return generated image.
+   * @throws IllegalArgumentException if the size is not written as width x height.
+   */
+  static ImageModelNew create(String size, String alias) throws IllegalArgumentException {
+    int[] dimensions = dimensions(size);
+    return ImageModelNewImpl.adoptPixels(dimensions[0], dimensions[1],
+            pixels(dimensions[0], dimensions[1]), alias);
+  }
+
+  /**
+   * Method to read a size written as width x height.
+   *
+   * @param size size written as width x height, for example 640x480.
+   * @return width followed by height.
+   * @throws IllegalArgumentException if the size is not written as width x height.
+   */
+  static int[] dimensions(String size) throws IllegalArgumentException {
+    String[] parts = size.split("x");
+    if (parts.length != 2) {
+      throw new IllegalArgumentException("Size must be written as WIDTHxHEIGHT: " + size);
+    }
+    return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+  }
+
+  /**
+   * Method to build the packed pixels of the generated image.
+   *
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @return packed 0xRRGGBB pixels in row-major order.
+   */
+  static int[] pixels(int width, int height) {
+    Random random = new Random(width * 31L + height);
+    int[] pixels = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int red = (x * 255 / Math.max(1, width - 1) + random.nextInt(32)) & 0xFF;
+        int green = (y * 255 / Math.max(1, height - 1) + random.nextInt(32)) & 0xFF;
+        int blue = random.nextInt(256);
+        pixels[y * width + x] = (red << 16) | (green << 8) | blue;
+      }
+    }
+    return pixels;
+  }
+}
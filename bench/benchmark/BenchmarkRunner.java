@@ -0,0 +1,29 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point running every benchmark of the suite with the gc profiler attached, so the report
+ * also gives the allocation rate of each operation.
+ */
+public class BenchmarkRunner {
+
+  /**
+   * Method to run the benchmarks whose names match the first argument, or all of them.
+   *
+   * @param args optional regular expression selecting benchmarks.
+   * @throws RunnerException if JMH fails to run a benchmark.
+   */
+  public static void main(String[] args) throws RunnerException {
+    String include = args.length > 0 ? args[0] : "benchmark\\..*";
+    Options options = new OptionsBuilder()
+            .include(include)
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(options).run();
+  }
+}
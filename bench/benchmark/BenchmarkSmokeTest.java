@@ -0,0 +1,163 @@
+package benchmark;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Calls every benchmark method once, outside of JMH, on the first value of each parameter, so
+ * that a benchmark failing on its input is caught without running the whole suite. States are
+ * built, set up and torn down the way JMH does it, with the states a method takes as arguments
+ * shared between the methods of one benchmark class.
+ */
+public class BenchmarkSmokeTest {
+
+  /**
+   * Test to call each benchmark on images.
+   *
+   * @throws Exception if a benchmark fails.
+   */
+  @Test
+  public void testImageModelNewBenchmark() throws Exception {
+    assertTrue(callAll(ImageModelNewBenchmark.class) > 0);
+  }
+
+  /**
+   * Test to call each benchmark on loading and saving.
+   *
+   * @throws Exception if a benchmark fails.
+   */
+  @Test
+  public void testImageModelStoreBenchmark() throws Exception {
+    assertTrue(callAll(ImageModelStoreBenchmark.class) > 0);
+  }
+
+  /**
+   * Method to call every benchmark method of a class once.
+   *
+   * @param type benchmark class.
+   * @return number of benchmark methods called.
+   * @throws Exception if a benchmark or the set up of a state fails.
+   */
+  private int callAll(Class<?> type) throws Exception {
+    Map<Class<?>, Object> states = new HashMap<>();
+    List<Object> created = new ArrayList<>();
+    Object benchmark = state(type, states, created);
+    int count = 0;
+    try {
+      for (Method method : type.getMethods()) {
+        if (method.isAnnotationPresent(Benchmark.class)) {
+          Object[] arguments = arguments(method, states, created);
+          setUp(states, created);
+          Object result = method.invoke(benchmark, arguments);
+          if (method.getReturnType() != void.class) {
+            assertNotNull(method.getName(), result);
+          }
+          count++;
+        }
+      }
+    } finally {
+      for (Object state : created) {
+        call(state, TearDown.class, states, created);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Method to get the state of a type, building and setting it up on first use.
+   *
+   * @param type    state class.
+   * @param states  states already built, by class.
+   * @param created states in the order they were built.
+   * @return state of the type.
+   * @throws Exception if the state cannot be built or set up.
+   */
+  private Object state(Class<?> type, Map<Class<?>, Object> states, List<Object> created)
+          throws Exception {
+    Object state = states.get(type);
+    if (state == null) {
+      state = type.getDeclaredConstructor().newInstance();
+      for (Field field : type.getFields()) {
+        Param param = field.getAnnotation(Param.class);
+        if (param != null) {
+          String value = param.value()[0];
+          field.set(state, field.getType() == double.class ? Double.valueOf(value) : value);
+        }
+      }
+      states.put(type, state);
+      created.add(state);
+      call(state, Setup.class, states, created);
+    }
+    return state;
+  }
+
+  /**
+   * Method to run the set up of every state done before each invocation, as JMH does.
+   *
+   * @param states  states already built, by class.
+   * @param created states in the order they were built.
+   * @throws Exception if a set up fails.
+   */
+  private void setUp(Map<Class<?>, Object> states, List<Object> created) throws Exception {
+    for (Object state : new ArrayList<>(created)) {
+      for (Method method : state.getClass().getMethods()) {
+        Setup setup = method.getAnnotation(Setup.class);
+        if (setup != null && setup.value() == Level.Invocation) {
+          method.invoke(state, arguments(method, states, created));
+        }
+      }
+    }
+  }
+
+  /**
+   * Method to call the methods of a state carrying an annotation.
+   *
+   * @param state      state to call.
+   * @param annotation Setup or TearDown.
+   * @param states     states already built, by class.
+   * @param created    states in the order they were built.
+   * @throws Exception if a method fails.
+   */
+  private void call(Object state, Class<? extends Annotation> annotation,
+                    Map<Class<?>, Object> states, List<Object> created) throws Exception {
+    for (Method method : state.getClass().getMethods()) {
+      if (method.isAnnotationPresent(annotation)) {
+        method.invoke(state, arguments(method, states, created));
+      }
+    }
+  }
+
+  /**
+   * Method to get the states a method takes as arguments.
+   *
+   * @param method  benchmark or set up method.
+   * @param states  states already built, by class.
+   * @param created states in the order they were built.
+   * @return arguments of the method.
+   * @throws Exception if a state cannot be built.
+   */
+  private Object[] arguments(Method method, Map<Class<?>, Object> states, List<Object> created)
+          throws Exception {
+    Class<?>[] types = method.getParameterTypes();
+    Object[] arguments = new Object[types.length];
+    for (int i = 0; i < types.length; i++) {
+      arguments[i] = state(types[i], states, created);
+    }
+    return arguments;
+  }
+}
@@ -0,0 +1,292 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import model.ImageModelNew;
+import model.ImageModelNewImpl;
+
+/**
+ * JMH benchmarks of every ImageModelNew operation over images from thumbnail to 40 MP.
+ * Each operation is measured both as throughput and as sampled latency, so the report gives
+ * operations per second and latency percentiles, with allocation rates from the gc profiler
+ * that BenchmarkRunner attaches.
+ * Images keep their histogram once counted, so the benchmarks reading the histogram run on a
+ * fresh copy of the source for every call, and only the benchmarks of operations taking a split
+ * percentage are run for each percentage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class ImageModelNewBenchmark {
+
+  /**
+   * Image size as width x height: thumbnail, VGA, full HD, 12 MP and 40 MP.
+   */
+  @Param({"160x120", "640x480", "1920x1080", "4000x3000", "7744x5164"})
+  public String size;
+
+  private int width;
+  private int height;
+  private int[] pixels;
+  private ImageModelNew image;
+  private ImageModelNew green;
+  private ImageModelNew blue;
+
+  /**
+   * Percentage of the image processed by the operations that support a split preview.
+   */
+  @State(Scope.Thread)
+  public static class Split {
+    @Param({"100", "50"})
+    public double per;
+  }
+
+  /**
+   * Copy of the source image without any cached histogram, made again before every call.
+   */
+  @State(Scope.Thread)
+  public static class FreshImage {
+    private ImageModelNew image;
+
+    /**
+     * Method to copy the pixels of the source into a new image.
+     *
+     * @param source benchmark state holding the source pixels.
+     */
+    @Setup(Level.Invocation)
+    public void setUp(ImageModelNewBenchmark source) {
+      this.image = ImageModelNewImpl.adoptPixels(source.width, source.height,
+              source.pixels.clone(), "fresh");
+    }
+  }
+
+  /**
+   * Method to build the source image and the channel images used by rgb-combine.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    int[] dimensions = BenchmarkImages.dimensions(size);
+    this.width = dimensions[0];
+    this.height = dimensions[1];
+    this.pixels = BenchmarkImages.pixels(this.width, this.height);
+    this.image = ImageModelNewImpl.adoptPixels(this.width, this.height, this.pixels, "source");
+    this.green = this.image.generateGreen("green");
+    this.blue = this.image.generateBlue("blue");
+  }
+
+  /**
+   * Benchmarks compression keeping most of the coefficients.
+   *
+   * @return compressed image.
+   */
+  @Benchmark
+  public ImageModelNew compress10() {
+    return this.image.compress("out", 0.1);
+  }
+
+  /**
+   * Benchmarks compression dropping half of the coefficients.
+   *
+   * @return compressed image.
+   */
+  @Benchmark
+  public ImageModelNew compress50() {
+    return this.image.compress("out", 0.5);
+  }
+
+  /**
+   * Benchmarks compression dropping almost every coefficient.
+   *
+   * @return compressed image.
+   */
+  @Benchmark
+  public ImageModelNew compress90() {
+    return this.image.compress("out", 0.9);
+  }
+
+  /**
+   * Benchmarks levels adjustment.
+   *
+   * @param split split percentage.
+   * @return adjusted image.
+   */
+  @Benchmark
+  public ImageModelNew levelAdjust(Split split) {
+    return this.image.levelAdjust("out", 20, 128, 235, split.per);
+  }
+
+  /**
+   * Benchmarks color correction, which counts the histogram of the image.
+   *
+   * @param fresh image without a cached histogram.
+   * @param split split percentage.
+   * @return corrected image.
+   */
+  @Benchmark
+  public ImageModelNew colorCorrect(FreshImage fresh, Split split) {
+    return fresh.image.colorCorrect("out", split.per);
+  }
+
+  /**
+   * Benchmarks histogram generation.
+   *
+   * @param fresh image without a cached histogram.
+   * @return histogram image.
+   * @throws IOException if the histogram cannot be drawn.
+   */
+  @Benchmark
+  public ImageModelNew generateHistogram(FreshImage fresh) throws IOException {
+    return fresh.image.generateHistogram("out");
+  }
+
+  /**
+   * Benchmarks blur.
+   *
+   * @param split split percentage.
+   * @return blurred image.
+   */
+  @Benchmark
+  public ImageModelNew blur(Split split) {
+    return this.image.blur("out", split.per);
+  }
+
+  /**
+   * Benchmarks sharpen.
+   *
+   * @param split split percentage.
+   * @return sharpened image.
+   */
+  @Benchmark
+  public ImageModelNew sharpen(Split split) {
+    return this.image.sharpen("out", split.per);
+  }
+
+  /**
+   * Benchmarks greyscale.
+   *
+   * @param split split percentage.
+   * @return greyscale image.
+   */
+  @Benchmark
+  public ImageModelNew greyscale(Split split) {
+    return this.image.greyscale("out", split.per);
+  }
+
+  /**
+   * Benchmarks sepia.
+   *
+   * @param split split percentage.
+   * @return sepia image.
+   */
+  @Benchmark
+  public ImageModelNew sepia(Split split) {
+    return this.image.sepia("out", split.per);
+  }
+
+  /**
+   * Benchmarks brightening.
+   *
+   * @return brightened image.
+   */
+  @Benchmark
+  public ImageModelNew bright() {
+    return this.image.bright(40, "out");
+  }
+
+  /**
+   * Benchmarks the intensity component.
+   *
+   * @return intensity image.
+   */
+  @Benchmark
+  public ImageModelNew intensity() {
+    return this.image.intensity("out");
+  }
+
+  /**
+   * Benchmarks the value component.
+   *
+   * @return value image.
+   */
+  @Benchmark
+  public ImageModelNew maxValue() {
+    return this.image.maxValue("out");
+  }
+
+  /**
+   * Benchmarks the horizontal flip.
+   *
+   * @return flipped image.
+   */
+  @Benchmark
+  public ImageModelNew horizontalFlip() {
+    return this.image.horizontalFlipImage("out");
+  }
+
+  /**
+   * Benchmarks the vertical flip.
+   *
+   * @return flipped image.
+   */
+  @Benchmark
+  public ImageModelNew verticalFlip() {
+    return this.image.verticalFlipImage("out");
+  }
+
+  /**
+   * Benchmarks red component extraction.
+   *
+   * @return red component image.
+   */
+  @Benchmark
+  public ImageModelNew generateRed() {
+    return this.image.generateRed("out");
+  }
+
+  /**
+   * Benchmarks green component extraction.
+   *
+   * @return green component image.
+   */
+  @Benchmark
+  public ImageModelNew generateGreen() {
+    return this.image.generateGreen("out");
+  }
+
+  /**
+   * Benchmarks blue component extraction.
+   *
+   * @return blue component image.
+   */
+  @Benchmark
+  public ImageModelNew generateBlue() {
+    return this.image.generateBlue("out");
+  }
+
+  /**
+   * Benchmarks rgb-combine.
+   *
+   * @return combined image.
+   */
+  @Benchmark
+  public ImageModelNew merge3components() {
+    return this.image.merge3components(this.green, this.blue, "out");
+  }
+}
@@ -0,0 +1,104 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import model.ImageModelNew;
+import model.ImageModelStore;
+import model.ImageModelStoreImpl;
+
+/**
+ * JMH benchmarks of loading and saving PPM and PNG files through ImageModelStoreImpl.
+ * The files are written once per trial into a temporary directory and deleted afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class ImageModelStoreBenchmark {
+
+  /**
+   * Image size as width x height: thumbnail, VGA, full HD, 12 MP and 40 MP.
+   */
+  @Param({"160x120", "640x480", "1920x1080", "4000x3000", "7744x5164"})
+  public String size;
+
+  /**
+   * File format read and written by the benchmarks.
+   */
+  @Param({"ppm", "png"})
+  public String format;
+
+  private ImageModelStore store;
+  private File directory;
+  private String inputPath;
+  private String outputPath;
+
+  /**
+   * Method to store the generated image and write the file read by the load benchmark.
+   *
+   * @throws IOException if the temporary files cannot be written.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    ImageModelNew image = BenchmarkImages.create(size, "source");
+    this.store = new ImageModelStoreImpl("source", image);
+    this.directory = Files.createTempDirectory("image-bench").toFile();
+    this.inputPath = new File(this.directory, "input." + format).getPath();
+    this.outputPath = new File(this.directory, "output." + format).getPath();
+    this.store.saveHelper(new String[]{"save", this.inputPath, "source"});
+  }
+
+  /**
+   * Method to delete the temporary files.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    File[] files = this.directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    this.directory.delete();
+  }
+
+  /**
+   * Benchmarks loading the file into the store.
+   *
+   * @return loaded image.
+   */
+  @Benchmark
+  public ImageModelNew load() {
+    this.store.loadHelper(new String[]{"load", this.inputPath, "loaded"});
+    return this.store.getImageForAlias("loaded");
+  }
+
+  /**
+   * Benchmarks saving the stored image to a file.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  @Benchmark
+  public void save() throws IOException {
+    this.store.saveHelper(new String[]{"save", this.outputPath, "source"});
+  }
+}
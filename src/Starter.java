@@ -1,11 +1,14 @@
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Objects;
 import java.util.Scanner;
 
+import controller.BatchRunner;
 import controller.Features;
 import controller.ImageController;
 import controller.ImageControllerGUIImpl;
 import controller.ImageControllerImpl;
+import controller.ImageServer;
 import model.ImageModelStore;
 import model.ImageModelStoreImpl;
 import view.ImageGUIView;
@@ -34,16 +37,76 @@ public class Starter {
    */
   public static void main(String[] args) {
     Starter startProgram = new Starter(System.in);
-    if (args.length == 2 && args[0].equals("-file")) {
+    boolean lazy = args.length > 0 && args[args.length - 1].equals("-lazy");
+    int count = lazy ? args.length - 1 : args.length;
+    if (count == 2 && args[0].equals("-file")) {
       String fileName = args[1];
-      startProgram.goController(fileName);
-    } else if (args.length == 1 && args[0].equals("-text")) {
-      startProgram.goController("0");
+      startProgram.goController(fileName, lazy);
+    } else if (count == 4 && args[0].equals("-batch")) {
+      startProgram.goBatch(args[1], args[2], args[3], lazy);
+    } else if (count == 2 && args[0].equals("-server") && isPort(args[1])) {
+      startProgram.goServer(Integer.parseInt(args[1]), lazy);
+    } else if (count == 1 && args[0].equals("-text")) {
+      startProgram.goController("0", lazy);
     } else if (args.length == 0) {
       startProgram.goControllerGUI();
     } else {
       System.out.println("Incorrect way to initiate the program." +
-              "Valid Arguments: \n-file path-of-script-file \n-text \nor no arguments");
+              "Valid Arguments: \n-file path-of-script-file [-lazy] \n-text [-lazy] "
+              + "\n-batch path-of-script-template input-dir output-dir [-lazy] "
+              + "\n-server port [-lazy] "
+              + "\nor no arguments");
+    }
+  }
+
+  /**
+   * Method to check whether an argument is a port the server can listen on.
+   *
+   * @param value argument given after -server.
+   * @return true for whole numbers from 0, meaning any free port, to 65535.
+   */
+  private static boolean isPort(String value) {
+    try {
+      int port = Integer.parseInt(value);
+      return port >= 0 && port <= 65535;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Method to run a script template on every image of a directory.
+   *
+   * @param scriptPath path of the script template.
+   * @param inputDir   directory holding the images.
+   * @param outputDir  directory for the results.
+   * @param lazy       true to defer and fuse image operations.
+   */
+  public void goBatch(String scriptPath, String inputDir, String outputDir, boolean lazy) {
+    ImageViewImpl view = new ImageViewImpl();
+    BatchRunner runner = new BatchRunner(view,
+            Math.max(1, Runtime.getRuntime().availableProcessors()), lazy);
+    try {
+      int count = runner.run(scriptPath, inputDir, outputDir);
+      view.displayMessage("Batch processed " + count + " images.");
+    } catch (IOException e) {
+      view.displayMessage("Batch failed: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Method to keep the program running as a server executing commands sent to a local port.
+   *
+   * @param port port to listen on, from 0 for any free port to 65535.
+   * @param lazy true to defer and fuse image operations.
+   */
+  public void goServer(int port, boolean lazy) {
+    int workers = Math.max(1, Runtime.getRuntime().availableProcessors());
+    ImageServer server = new ImageServer(new ImageModelStoreImpl(lazy), workers, workers * 4);
+    try {
+      System.out.println("Listening on port " + server.start(port));
+    } catch (IOException e) {
+      System.out.println("Server failed: " + e.getMessage());
     }
   }
 
@@ -62,8 +125,19 @@ public class Starter {
    * @param filePath path of file if cmd line arguments.
    */
   public void goController(String filePath) {
+    goController(filePath, false);
+  }
+
+  /**
+   * Method to start the controller, optionally deferring image operations until an image is
+   * saved or otherwise needed.
+   *
+   * @param filePath path of file if cmd line arguments.
+   * @param lazy     true to defer and fuse image operations.
+   */
+  public void goController(String filePath, boolean lazy) {
     ImageViewImpl view = new ImageViewImpl();
-    ImageModelStore modelStore = new ImageModelStoreImpl();
+    ImageModelStore modelStore = new ImageModelStoreImpl(lazy);
     ImageController controller = new ImageControllerImpl(view, modelStore);
     if (!Objects.equals(filePath, "0")) {
       controller.execute("run " + filePath);
@@ -0,0 +1,152 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import model.ImageModelStore;
+import model.ImageModelStoreImpl;
+import view.ImageView;
+
+/**
+ * Runs one script template on every image of a directory inside a single program run.
+ * In the template, {input} stands for the path of the image, {name} for its file name without
+ * extension and {output} for the output directory, so a template such as
+ * {@code load {input} img}, {@code blur img img}, {@code save {output}/{name}.png img} works
+ * for any image. Each image gets its own store and controller and goes through load, process
+ * and save on one worker of a fixed pool, so the file reads and writes of some images overlap
+ * the processing of others. Images wait in a bounded queue and the thread listing the
+ * directory runs one itself when the queue is full, so a large directory never has more than a
+ * few images in flight. Messages of each image are displayed together, in file name order.
+ */
+public class BatchRunner {
+  private static final List<String> EXTENSIONS =
+          Arrays.asList("ppm", "png", "jpg", "jpeg", "bmp", "haar");
+
+  private final ImageView view;
+  private final int workers;
+  private final boolean lazy;
+
+  /**
+   * Constructor for a batch runner.
+   *
+   * @param view    view receiving the messages of every image.
+   * @param workers number of images processed at once.
+   * @param lazy    true to defer and fuse image operations.
+   * @throws IllegalArgumentException if there are no workers.
+   */
+  public BatchRunner(ImageView view, int workers, boolean lazy)
+          throws IllegalArgumentException {
+    if (workers < 1) {
+      throw new IllegalArgumentException("There must be at least one worker.");
+    }
+    this.view = view;
+    this.workers = workers;
+    this.lazy = lazy;
+  }
+
+  /**
+   * Method to run a script template on every image of a directory.
+   *
+   * @param scriptPath path of the script template.
+   * @param inputDir   directory holding the images.
+   * @param outputDir  directory for the results, created if missing.
+   * @return number of images processed.
+   * @throws IOException if the script or the directories cannot be read or created.
+   */
+  public int run(String scriptPath, String inputDir, String outputDir) throws IOException {
+    List<String> template = Files.readAllLines(new File(scriptPath).toPath(),
+            StandardCharsets.UTF_8);
+    File[] files = new File(inputDir).listFiles(this::isImage);
+    if (files == null) {
+      throw new IOException("Not a directory: " + inputDir);
+    }
+    Arrays.sort(files);
+    Files.createDirectories(new File(outputDir).toPath());
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(this.workers, this.workers, 0,
+            TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(this.workers),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    long budget = Runtime.getRuntime().maxMemory() / 2 / this.workers;
+    try {
+      List<Future<BufferedView>> results = new ArrayList<>();
+      for (File file : files) {
+        List<String> lines = expand(template, file, outputDir);
+        results.add(pool.submit(() -> process(lines, budget)));
+      }
+      for (int i = 0; i < files.length; i++) {
+        this.view.displayMessage("Batch image " + files[i].getName() + ":");
+        try {
+          results.get(i).get().replay(this.view);
+        } catch (ExecutionException e) {
+          this.view.displayMessage("Batch failed: " + e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new CompletionException(e);
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+    return files.length;
+  }
+
+  /**
+   * Method to run the lines of one image on a store of its own.
+   *
+   * @param lines  script lines of the image.
+   * @param budget memory budget of the store.
+   * @return messages displayed while running.
+   */
+  private BufferedView process(List<String> lines, long budget) {
+    BufferedView buffer = new BufferedView();
+    ImageModelStore store = new ImageModelStoreImpl(this.lazy, budget);
+    ImageController controller = new ImageControllerImpl(buffer, store);
+    for (String line : lines) {
+      controller.execute(line);
+    }
+    return buffer;
+  }
+
+  /**
+   * Method to fill the placeholders of the template for one image.
+   *
+   * @param template  lines of the script template.
+   * @param file      image file.
+   * @param outputDir directory for the results.
+   * @return script lines of the image.
+   */
+  static List<String> expand(List<String> template, File file, String outputDir) {
+    String fileName = file.getName();
+    int dot = fileName.lastIndexOf('.');
+    String name = dot > 0 ? fileName.substring(0, dot) : fileName;
+    List<String> lines = new ArrayList<>(template.size());
+    for (String line : template) {
+      lines.add(line.replace("{input}", file.getPath()).replace("{name}", name)
+              .replace("{output}", outputDir));
+    }
+    return lines;
+  }
+
+  /**
+   * Method to check whether a file is an image the program can load.
+   *
+   * @param file file of the input directory.
+   * @return true for files with an image extension.
+   */
+  private boolean isImage(File file) {
+    String fileName = file.getName();
+    int dot = fileName.lastIndexOf('.');
+    return file.isFile() && dot > 0
+            && EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase());
+  }
+}
@@ -0,0 +1,75 @@
+package controller;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import model.ImageModelNew;
+import view.ImageView;
+
+/**
+ * View collecting what is displayed on it, to be replayed later on a real view.
+ * It lets commands running on other threads report in a fixed order.
+ */
+final class BufferedView implements ImageView {
+  private final List<Consumer<ImageView>> actions = new ArrayList<>();
+  private String messageToView = "";
+
+  /**
+   * Method to record an image to display.
+   *
+   * @param image image to displayed.
+   */
+  @Override
+  public void displayImage(ImageModelNew image) {
+    this.actions.add(view -> view.displayImage(image));
+  }
+
+  /**
+   * Method to record a message to display.
+   *
+   * @param message message that is needed to be displayed.
+   */
+  @Override
+  public void displayMessage(String message) {
+    this.messageToView = message;
+    this.actions.add(view -> view.displayMessage(message));
+  }
+
+  /**
+   * Gives String of the last recorded message.
+   *
+   * @return String of Message to be displayed
+   */
+  @Override
+  public String getMessageToView() {
+    return this.messageToView;
+  }
+
+  /**
+   * Method to record text the command printed to the console, to print it again on replay
+   * between the messages displayed before and after it.
+   *
+   * @param console stream the text is printed to on replay.
+   * @param bytes   bytes printed.
+   * @param offset  index of the first byte printed.
+   * @param length  number of bytes printed.
+   */
+  void print(PrintStream console, byte[] bytes, int offset, int length) {
+    byte[] copy = Arrays.copyOfRange(bytes, offset, offset + length);
+    this.actions.add(view -> console.write(copy, 0, copy.length));
+  }
+
+  /**
+   * Method to display everything recorded on a view, in order.
+   *
+   * @param view view to display on.
+   */
+  void replay(ImageView view) {
+    for (Consumer<ImageView> action : this.actions) {
+      action.accept(view);
+    }
+  }
+}
@@ -163,4 +163,14 @@ public interface Features {
    * @return instance of Buffered Image.
    */
   BufferedImage getCurrenSplitImage();
+
+  /**
+   * Method to set the size of the area showing previews, so that split previews run on a
+   * copy of the current image reduced to that size. Execute and save always work on the image
+   * at full resolution.
+   *
+   * @param width  width of the preview area, or 0 to preview at full resolution.
+   * @param height height of the preview area, or 0 to preview at full resolution.
+   */
+  void setPreviewSize(int width, int height);
 }
@@ -3,11 +3,23 @@ package controller;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 
+import model.ImageModelNew;
 import model.ImageModelStore;
+import model.ImageScaler;
+import model.SplitPreview;
 import view.ImageGUIView;
 
 /**
  * New Controller for UI.
+ * Split previews run the operation once on the whole image and keep the result for the
+ * operation, its parameters and the version of the current image, so moving the split slider
+ * only recomposes the preview. Recomposing still copies and converts every pixel of the preview
+ * for the view. The version counts the changes of the current image made through this
+ * controller. Once the size of the preview area is known, previews run on a copy of the
+ * current image reduced to that size, kept until the image or the size changes, so the cost of
+ * each slider position follows the preview area rather than the image, while execute and save
+ * still use the full image. Calls are expected from one thread at a time, as the GUI
+ * does.
  */
 public class ImageControllerGUIImpl implements Features {
   private ControllerHelper helper;
@@ -15,6 +27,16 @@ public class ImageControllerGUIImpl implements Features {
   private final String currImageName = "curr";
   private final String currImageHist = "curr-hist";
   private final String splitImage = "split-img";
+  private final String splitFullImage = "split-full";
+  private final String proxyImage = "curr-proxy";
+  private long version;
+  private int previewWidth;
+  private int previewHeight;
+  private String proxyKey;
+  private ImageModelNew histogramSource;
+  private BufferedImage histogram;
+  private String previewKey;
+  private SplitPreview splitPreview;
 
   /**
    * Constructor that connects the view and the model to the controller and displays the GUI.
@@ -61,24 +83,29 @@ public class ImageControllerGUIImpl implements Features {
   public BufferedImage loadImage(String path) {
     String[] words = {"load", path, currImageName};
     helper.loadHelper(words);
-    return modelStore.getBufferedImage(currImageName);
+    return changedImage();
   }
 
   /**
-   * Method to generate Histogram for UI.
+   * Method to generate Histogram for UI. The chart is kept until the current image is
+   * replaced, so asking again for the same image returns the same chart.
    *
    * @return instance of Buffered Image.
    * @throws IOException if the image is not saved and path is not found.
    */
   @Override
   public BufferedImage generateHistogram() throws IOException {
-    if (modelStore.getImageForAlias(currImageName) != null) {
+    ImageModelNew image = modelStore.getImageForAlias(currImageName);
+    if (image == null) {
+      return null;
+    }
+    if (image != this.histogramSource) {
       String[] words = {"histogram", currImageName, currImageHist};
       helper.histogramHelper(words);
-      return modelStore.getBufferedImage(currImageHist);
-    } else {
-      return null;
+      this.histogram = modelStore.getBufferedImage(currImageHist);
+      this.histogramSource = image;
     }
+    return this.histogram;
   }
 
 
@@ -95,11 +122,14 @@ public class ImageControllerGUIImpl implements Features {
     if (execute) {
       String[] words = {"sepia", currImageName, currImageName};
       helper.sepiaHelper(words);
-      return modelStore.getBufferedImage(currImageName);
+      return changedImage();
     }
-    String[] words = {"sepia", currImageName, splitImage, "split", split + ""};
-    helper.sepiaHelper(words);
-    return modelStore.getBufferedImage(splitImage);
+    String[] words = {"sepia", previewSource(), splitFullImage};
+    if (isPreviewStale(words)) {
+      helper.sepiaHelper(words);
+      cachePreview(words, words[1]);
+    }
+    return previewImage(split);
   }
 
   /**
@@ -111,7 +141,7 @@ public class ImageControllerGUIImpl implements Features {
   public BufferedImage executeRedComponent() {
     String[] words = {"red-component", currImageName, currImageName};
     helper.redComponentHelper(words);
-    return modelStore.getBufferedImage(currImageName);
+    return changedImage();
   }
 
   /**
@@ -123,7 +153,7 @@ public class ImageControllerGUIImpl implements Features {
   public BufferedImage executeGreenComponent() {
     String[] words = {"green-component", currImageName, currImageName};
     helper.greenComponentHelper(words);
-    return modelStore.getBufferedImage(currImageName);
+    return changedImage();
   }
 
   /**
@@ -135,7 +165,7 @@ public class ImageControllerGUIImpl implements Features {
   public BufferedImage executeBlueComponent() {
     String[] words = {"blue-component", currImageName, currImageName};
     helper.blueComponentHelper(words);
-    return modelStore.getBufferedImage(currImageName);
+    return changedImage();
   }
 
   /**
@@ -147,7 +177,7 @@ public class ImageControllerGUIImpl implements Features {
   public BufferedImage executeHorizontalFlip() {
     String[] words = {"horizontal-flip", currImageName, currImageName};
     helper.horizontalFlipHelper(words);
-    return modelStore.getBufferedImage(currImageName);
+    return changedImage();
   }
 
   /**
@@ -159,7 +189,7 @@ public class ImageControllerGUIImpl implements Features {
   public BufferedImage executeVerticalFlip() {
     String[] words = {"vertical-flip", currImageName, currImageName};
     helper.verticalFlipHelper(words);
-    return modelStore.getBufferedImage(currImageName);
+    return changedImage();
   }
 
   /**
@@ -175,11 +205,14 @@ public class ImageControllerGUIImpl implements Features {
     if (execute) {
       String[] words = {"blur", currImageName, currImageName};
       helper.blurHelper(words);
-      return modelStore.getBufferedImage(currImageName);
+      return changedImage();
     }
-    String[] words = {"blur", currImageName, splitImage, "split", split + ""};
-    helper.blurHelper(words);
-    return modelStore.getBufferedImage(splitImage);
+    String[] words = {"blur", previewSource(), splitFullImage};
+    if (isPreviewStale(words)) {
+      helper.blurHelper(words);
+      cachePreview(words, words[1]);
+    }
+    return previewImage(split);
   }
 
   /**
@@ -195,11 +228,14 @@ public class ImageControllerGUIImpl implements Features {
     if (execute) {
       String[] words = {"sharpen", currImageName, currImageName};
       helper.sharpenHelper(words);
-      return modelStore.getBufferedImage(currImageName);
+      return changedImage();
     }
-    String[] words = {"sharpen", currImageName, splitImage, "split", split + ""};
-    helper.sharpenHelper(words);
-    return modelStore.getBufferedImage(splitImage);
+    String[] words = {"sharpen", previewSource(), splitFullImage};
+    if (isPreviewStale(words)) {
+      helper.sharpenHelper(words);
+      cachePreview(words, words[1]);
+    }
+    return previewImage(split);
   }
 
   /**
@@ -215,11 +251,14 @@ public class ImageControllerGUIImpl implements Features {
     if (execute) {
       String[] words = {"luma-component", currImageName, currImageName};
       helper.greyscaleHelper(words);
-      return modelStore.getBufferedImage(currImageName);
+      return changedImage();
     }
-    String[] words = {"luma-component", currImageName, splitImage, "split", split + ""};
-    helper.greyscaleHelper(words);
-    return modelStore.getBufferedImage(splitImage);
+    String[] words = {"luma-component", previewSource(), splitFullImage};
+    if (isPreviewStale(words)) {
+      helper.greyscaleHelper(words);
+      cachePreview(words, words[1]);
+    }
+    return previewImage(split);
   }
 
   /**
@@ -233,7 +272,7 @@ public class ImageControllerGUIImpl implements Features {
           throws IllegalArgumentException {
     String[] words = {"compress", compPercentage, currImageName, currImageName};
     helper.compressHelper(words);
-    return modelStore.getBufferedImage(currImageName);
+    return changedImage();
   }
 
   /**
@@ -246,7 +285,7 @@ public class ImageControllerGUIImpl implements Features {
   public BufferedImage executeBrightenOperation(String brightIntensity) {
     String[] words = {"brighten", brightIntensity, currImageName, currImageName};
     helper.brightenHelper(words);
-    return modelStore.getBufferedImage(currImageName);
+    return changedImage();
   }
 
   /**
@@ -259,7 +298,7 @@ public class ImageControllerGUIImpl implements Features {
   public BufferedImage executeDarkenOperation(String darkenIntensity) {
     String[] words = {"brighten", "-" + darkenIntensity, currImageName, currImageName};
     helper.brightenHelper(words);
-    return modelStore.getBufferedImage(currImageName);
+    return changedImage();
   }
 
   /**
@@ -276,11 +315,14 @@ public class ImageControllerGUIImpl implements Features {
     if (execute) {
       String[] words = {"color-correct", currImageName, currImageName};
       helper.colorCorrectHelper(words);
-      return modelStore.getBufferedImage(currImageName);
+      return changedImage();
     }
-    String[] words = {"color-correct", currImageName, splitImage, "split", split + ""};
-    helper.colorCorrectHelper(words);
-    return modelStore.getBufferedImage(splitImage);
+    String[] words = {"color-correct", previewSource(), splitFullImage};
+    if (isPreviewStale(words)) {
+      helper.colorCorrectHelper(words);
+      cachePreview(words, words[1]);
+    }
+    return previewImage(split);
   }
 
   /**
@@ -300,11 +342,14 @@ public class ImageControllerGUIImpl implements Features {
     if (execute) {
       String[] words = {"levels-adjust", b, m, w, currImageName, currImageName};
       helper.levelsAdjustHelper(words);
-      return modelStore.getBufferedImage(currImageName);
+      return changedImage();
     }
-    String[] words = {"levels-adjust", b, m, w, currImageName, splitImage, "split", split + ""};
-    helper.levelsAdjustHelper(words);
-    return modelStore.getBufferedImage(splitImage);
+    String[] words = {"levels-adjust", b, m, w, previewSource(), splitFullImage};
+    if (isPreviewStale(words)) {
+      helper.levelsAdjustHelper(words);
+      cachePreview(words, words[4]);
+    }
+    return previewImage(split);
   }
 
   /**
@@ -327,4 +372,94 @@ public class ImageControllerGUIImpl implements Features {
     return modelStore.getBufferedImage(splitImage);
   }
 
-}
\ No newline at end of file
+  /**
+   * Method to set the size of the area showing previews.
+   *
+   * @param width  width of the preview area, or 0 to preview at full resolution.
+   * @param height height of the preview area, or 0 to preview at full resolution.
+   */
+  @Override
+  public void setPreviewSize(int width, int height) {
+    this.previewWidth = Math.max(0, width);
+    this.previewHeight = Math.max(0, height);
+  }
+
+  /**
+   * Method to record a change of the current image, which makes cached previews stale.
+   *
+   * @return instance of Buffered Image of the current image.
+   */
+  private BufferedImage changedImage() {
+    this.version++;
+    return modelStore.getBufferedImage(currImageName);
+  }
+
+  /**
+   * Method to check whether the cached preview was made by other words or an older image.
+   *
+   * @param words operation words running on the whole image.
+   * @return true if the operation must run again.
+   */
+  private boolean isPreviewStale(String[] words) {
+    return !(String.join(" ", words) + " " + getPreviewState()).equals(this.previewKey);
+  }
+
+  /**
+   * Method to keep the whole processed image of an operation for its later previews.
+   *
+   * @param words  operation words that ran on the whole image.
+   * @param source alias of the image the operation ran on.
+   */
+  private void cachePreview(String[] words, String source) {
+    this.splitPreview = SplitPreview.of(modelStore.getImageForAlias(source),
+            modelStore.getImageForAlias(splitFullImage));
+    this.previewKey = String.join(" ", words) + " " + getPreviewState();
+  }
+
+  /**
+   * Method to describe what previews depend on besides the operation.
+   *
+   * @return version of the current image and size of the preview area.
+   */
+  private String getPreviewState() {
+    return this.version + " " + this.previewWidth + "x" + this.previewHeight;
+  }
+
+  /**
+   * Method to get the alias previews run on, reducing the current image to the preview area
+   * when it has a size and the reduced copy is out of date.
+   *
+   * @return alias of the reduced copy, or of the current image.
+   */
+  private String previewSource() {
+    if (this.previewWidth <= 0 || this.previewHeight <= 0) {
+      return currImageName;
+    }
+    if (!getPreviewState().equals(this.proxyKey)) {
+      ImageModelNew image = modelStore.getImageForAlias(currImageName);
+      if (image == null) {
+        return currImageName;
+      }
+      modelStore.loadImage(ImageScaler.fitWithin(image, this.previewWidth, this.previewHeight,
+              proxyImage), proxyImage);
+      this.proxyKey = getPreviewState();
+    }
+    return proxyImage;
+  }
+
+  /**
+   * Method to compose the split preview from the cached processed image and store it. Images
+   * not held as pixels are shown processed in full.
+   *
+   * @param split split percentage value.
+   * @return instance of Buffered Image of the preview.
+   */
+  private BufferedImage previewImage(int split) {
+    if (this.splitPreview == null) {
+      modelStore.loadImage(modelStore.getImageForAlias(splitFullImage), splitImage);
+    } else {
+      modelStore.loadImage(this.splitPreview.at(split, splitImage), splitImage);
+    }
+    return modelStore.getBufferedImage(splitImage);
+  }
+}
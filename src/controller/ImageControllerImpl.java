@@ -26,6 +26,7 @@ public class ImageControllerImpl implements ImageController {
   public ImageControllerImpl(ImageView onScreenView, ImageModelStore modelStore) {
     this.helper = new ControllerHelperImpl(modelStore);
     this.onScreenView = onScreenView;
+    this.modelStore = modelStore;
   }
 
   /**
@@ -39,12 +40,12 @@ public class ImageControllerImpl implements ImageController {
   }
 
   /**
-   * Private method to fetch of correct number of operation arguments.
+   * Method to fetch of correct number of operation arguments.
    *
    * @param line fetch correct number of arguments after validation.
    * @return Array list of operation arguments.
    */
-  private ArrayList<String> getCorrectArguments(String line) {
+  static ArrayList<String> getCorrectArguments(String line) {
     String[] words = line.split("\"");
     ArrayList<String> arrayList = new ArrayList<>();
     for (int i = 0; i < words.length; i++) {
@@ -84,7 +85,8 @@ public class ImageControllerImpl implements ImageController {
       String firstWord = words[0].toLowerCase();
       switch (firstWord) {
         case "load":
-          if (operationLength != 3) {
+          if (operationLength != 3 && !(operationLength == 4
+                  && words[1].toLowerCase().endsWith(".haar"))) {
             onScreenView.displayMessage("Invalid Operation -> " + String.join(" ", words));
           } else {
             this.helper.loadHelper(words);
@@ -124,7 +126,8 @@ public class ImageControllerImpl implements ImageController {
           }
           break;
         case "save":
-          if (operationLength != 3) {
+          if (operationLength != 3
+                  && !(operationLength == 4 && words[3].equalsIgnoreCase("p6"))) {
             onScreenView.displayMessage("Invalid Operation -> " + String.join(" ", words));
           } else {
             try {
@@ -326,9 +329,8 @@ public class ImageControllerImpl implements ImageController {
               onScreenView.displayMessage("File Not Found: Kindly check the Filepath.");
             }
             if (lines != null) {
-              for (String elementLine : lines) {
-                this.execute(elementLine);
-              }
+              new ScriptScheduler(this.modelStore, this,
+                      Runtime.getRuntime().availableProcessors()).run(lines);
             }
           }
           break;
@@ -0,0 +1,215 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import model.ImageModelNew;
+import model.ImageModelStore;
+import view.ImageView;
+
+/**
+ * Server keeping the program running and executing script commands sent over a local socket,
+ * so that many small jobs share one warmed up program instead of starting one each.
+ * Clients connect to the loopback address and send one command per line, in the same grammar
+ * as script files. Commands of all clients run on a fixed pool of workers against one shared
+ * store, so an image loaded by one command can be used by the next. Every line is answered by
+ * the messages it produced, each on a line starting with "MSG ", followed by a last line
+ * "DONE wait=&lt;ms&gt; run=&lt;ms&gt;" giving the time spent queued and running. When the
+ * bounded queue of waiting commands is full the line is not run and the answer is "BUSY", so
+ * clients slow down instead of piling work on the server. A client sends "stop" or closes the
+ * socket to end its session. Commands of one client run in the order they are sent, since
+ * every line is answered before the next one is read.
+ */
+public class ImageServer implements Closeable {
+  private final ImageModelStore modelStore;
+  private final ThreadPoolExecutor workers;
+  private final ExecutorService sessions;
+  private volatile ServerSocket serverSocket;
+
+  /**
+   * Constructor for a server working on a store.
+   *
+   * @param modelStore    store shared by all commands.
+   * @param workers       number of commands running at once.
+   * @param queueCapacity number of commands that may wait for a worker.
+   * @throws IllegalArgumentException if there are no workers or the capacity is negative.
+   */
+  public ImageServer(ImageModelStore modelStore, int workers, int queueCapacity)
+          throws IllegalArgumentException {
+    if (workers < 1 || queueCapacity < 0) {
+      throw new IllegalArgumentException("Invalid number of workers or queue capacity.");
+    }
+    this.modelStore = modelStore;
+    this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+            queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(
+                    queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+    this.sessions = Executors.newCachedThreadPool();
+  }
+
+  /**
+   * Method to start accepting clients on the loopback address.
+   *
+   * @param port port to listen on, or 0 for any free port.
+   * @return port listened on.
+   * @throws IOException if the port cannot be bound.
+   */
+  public int start(int port) throws IOException {
+    this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    Thread acceptor = new Thread(this::accept, "image-server");
+    acceptor.start();
+    return this.serverSocket.getLocalPort();
+  }
+
+  /**
+   * Method to stop accepting clients and stop the workers once their commands are done.
+   *
+   * @throws IOException if the socket cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    this.workers.shutdown();
+    this.sessions.shutdownNow();
+    if (this.serverSocket != null) {
+      this.serverSocket.close();
+    }
+  }
+
+  /**
+   * Method to accept clients until the server is closed.
+   */
+  private void accept() {
+    while (!this.serverSocket.isClosed()) {
+      try {
+        Socket socket = this.serverSocket.accept();
+        this.sessions.execute(() -> serve(socket));
+      } catch (SocketException e) {
+        return;
+      } catch (IOException e) {
+        System.out.println("Exception: " + e);
+      }
+    }
+  }
+
+  /**
+   * Method to answer the lines of one client until it stops.
+   *
+   * @param socket socket of the client.
+   */
+  private void serve(Socket socket) {
+    try (Socket client = socket;
+         BufferedReader in = new BufferedReader(new InputStreamReader(
+                 client.getInputStream(), StandardCharsets.UTF_8));
+         Writer out = new OutputStreamWriter(client.getOutputStream(),
+                 StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = in.readLine()) != null && !line.trim().equals("stop")) {
+        out.write(handle(line));
+        out.flush();
+      }
+    } catch (IOException e) {
+      System.out.println("Exception: " + e);
+    }
+  }
+
+  /**
+   * Method to run one command on a worker and build its answer.
+   *
+   * @param line command to run.
+   * @return answer to send, ending with a line break.
+   */
+  String handle(String line) {
+    long submitted = System.nanoTime();
+    Future<String> answer;
+    try {
+      answer = this.workers.submit(() -> {
+        long started = System.nanoTime();
+        ResponseView view = new ResponseView();
+        new ImageControllerImpl(view, this.modelStore).execute(line);
+        return view.answer.append("DONE wait=").append(millis(started - submitted))
+                .append(" run=").append(millis(System.nanoTime() - started)).append('\n')
+                .toString();
+      });
+    } catch (RejectedExecutionException e) {
+      return "BUSY\n";
+    }
+    try {
+      return answer.get();
+    } catch (ExecutionException e) {
+      return "MSG " + e.getCause() + "\nDONE wait=0 run=0\n";
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      answer.cancel(true);
+      return "BUSY\n";
+    }
+  }
+
+  /**
+   * Method to convert nanoseconds to whole milliseconds.
+   *
+   * @param nanos duration in nanoseconds.
+   * @return duration in milliseconds.
+   */
+  private static long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  /**
+   * View writing what is displayed on it into the answer of a command.
+   */
+  private static final class ResponseView implements ImageView {
+    private final StringBuilder answer = new StringBuilder();
+    private String messageToView = "";
+
+    /**
+     * Method to describe an image, since the server has no screen.
+     *
+     * @param image image to displayed.
+     */
+    @Override
+    public void displayImage(ImageModelNew image) {
+      displayMessage("Image " + image.getImageAliasName() + " " + image.getImageWidth() + "x"
+              + image.getImageHeight());
+    }
+
+    /**
+     * Method to add a message to the answer, one line per line of the message.
+     *
+     * @param message message that is needed to be displayed.
+     */
+    @Override
+    public void displayMessage(String message) {
+      this.messageToView = message;
+      for (String part : message.split("\n", -1)) {
+        this.answer.append("MSG ").append(part).append('\n');
+      }
+    }
+
+    /**
+     * Gives String of the last message.
+     *
+     * @return String of Message to be displayed
+     */
+    @Override
+    public String getMessageToView() {
+      return this.messageToView;
+    }
+  }
+}
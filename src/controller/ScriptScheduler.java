@@ -0,0 +1,433 @@
+package controller;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.ImageModelStore;
+import view.ImageView;
+
+/**
+ * Runs the lines of a script concurrently where that cannot change the outcome.
+ * Every line is analysed for the aliases and files it reads and writes. A line waits for the
+ * last earlier line writing anything it reads or writes, and for the earlier lines reading
+ * anything it writes, so conflicting lines keep their order (including the last writer winning
+ * on a reused alias) while lines that only share what they read run together on a pool.
+ * Each line runs on its own controller whose view buffers the messages. What the store prints
+ * to the console while a line runs, such as a file not being found, is buffered with them, and
+ * the buffers are replayed in script order. Nested run commands are barriers: every earlier
+ * line finishes first, and they run on the calling thread before any later line starts.
+ *
+ * <p>As in a sequential run, the first line throwing stops the script: no later line is
+ * started and the exception is thrown once the running lines are done. Unlike a sequential
+ * run, later lines that were already running when it threw still complete.
+ */
+final class ScriptScheduler {
+  private final ImageModelStore modelStore;
+  private final ImageController controller;
+  private final int parallelism;
+
+  /**
+   * Constructor for a scheduler running lines against a store.
+   *
+   * @param modelStore  store the lines operate on.
+   * @param controller  controller running barrier lines, whose view receives all messages.
+   * @param parallelism maximum number of lines running at once.
+   */
+  ScriptScheduler(ImageModelStore modelStore, ImageController controller, int parallelism) {
+    this.modelStore = modelStore;
+    this.controller = controller;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Method to run the lines of a script.
+   *
+   * @param lines lines of the script, in order.
+   */
+  void run(List<String> lines) {
+    if (this.parallelism <= 1) {
+      for (String line : lines) {
+        this.controller.execute(line);
+      }
+      return;
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(this.parallelism);
+    ConsoleRouter router = ConsoleRouter.acquire();
+    try {
+      Segment segment = new Segment(pool, router);
+      for (String line : lines) {
+        if (segment.hasFailed()) {
+          break;
+        }
+        String[] words = ImageControllerImpl.getCorrectArguments(line).toArray(new String[0]);
+        if (isBarrier(words)) {
+          segment.finish();
+          this.controller.execute(line);
+        } else {
+          segment.submit(line, words);
+        }
+      }
+      segment.finish();
+    } finally {
+      ConsoleRouter.release();
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Method to check whether a line must run alone.
+   *
+   * @param words words of the line.
+   * @return true for nested scripts.
+   */
+  private static boolean isBarrier(String[] words) {
+    return words.length > 0 && words[0].equalsIgnoreCase("run");
+  }
+
+  /**
+   * Method to find what a line reads and writes. Lines that the controller rejects for their
+   * number of words only print a message, so they touch nothing. Listing more than a command
+   * really uses is always safe, it only keeps lines in order.
+   *
+   * @param words  words of the line.
+   * @param reads  receives the keys of the aliases and files read.
+   * @param writes receives the keys of the aliases and files written.
+   */
+  static void findAccesses(String[] words, List<String> reads, List<String> writes) {
+    if (words.length == 0) {
+      return;
+    }
+    switch (words[0].toLowerCase()) {
+      case "load":
+        access(words, reads, writes, new int[]{}, new int[]{2}, new int[]{1}, new int[]{});
+        break;
+      case "save":
+        access(words, reads, writes, new int[]{2}, new int[]{}, new int[]{}, new int[]{1});
+        break;
+      case "brighten":
+      case "compress":
+        access(words, reads, writes, new int[]{2}, new int[]{3}, new int[]{}, new int[]{});
+        break;
+      case "rgb-split":
+        access(words, reads, writes, new int[]{1}, new int[]{2, 3, 4}, new int[]{},
+                new int[]{});
+        break;
+      case "rgb-combine":
+        access(words, reads, writes, new int[]{2, 3, 4}, new int[]{1}, new int[]{},
+                new int[]{});
+        break;
+      case "levels-adjust":
+        access(words, reads, writes, new int[]{4}, new int[]{5}, new int[]{}, new int[]{});
+        break;
+      case "vertical-flip":
+      case "horizontal-flip":
+      case "blur":
+      case "sharpen":
+      case "luma-component":
+      case "sepia":
+      case "red-component":
+      case "green-component":
+      case "blue-component":
+      case "intensity-component":
+      case "value-component":
+      case "histogram":
+      case "color-correct":
+        access(words, reads, writes, new int[]{1}, new int[]{2}, new int[]{}, new int[]{});
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Method to add the keys of the words at given positions, unless the line is too short for
+   * them, in which case the controller rejects it and nothing is added.
+   *
+   * @param words       words of the line.
+   * @param reads       receives the keys read.
+   * @param writes      receives the keys written.
+   * @param aliasReads  positions of the aliases read.
+   * @param aliasWrites positions of the aliases written.
+   * @param fileReads   positions of the files read.
+   * @param fileWrites  positions of the files written.
+   */
+  private static void access(String[] words, List<String> reads, List<String> writes,
+                             int[] aliasReads, int[] aliasWrites, int[] fileReads,
+                             int[] fileWrites) {
+    int last = 0;
+    for (int[] positions : new int[][]{aliasReads, aliasWrites, fileReads, fileWrites}) {
+      for (int position : positions) {
+        last = Math.max(last, position);
+      }
+    }
+    if (words.length <= last) {
+      return;
+    }
+    for (int position : aliasReads) {
+      reads.add("alias:" + words[position]);
+    }
+    for (int position : aliasWrites) {
+      writes.add("alias:" + words[position]);
+    }
+    for (int position : fileReads) {
+      reads.add("file:" + words[position]);
+    }
+    for (int position : fileWrites) {
+      writes.add("file:" + words[position]);
+    }
+  }
+
+  /**
+   * Lines submitted since the last barrier, with the bookkeeping of their dependencies.
+   */
+  private final class Segment {
+    private final ExecutorService pool;
+    private final ConsoleRouter router;
+    private final AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+    private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+    private final List<BufferedView> buffers = new ArrayList<>();
+    private final Map<String, CompletableFuture<Void>> lastWriters = new HashMap<>();
+    private final Map<String, List<CompletableFuture<Void>>> readers = new HashMap<>();
+
+    /**
+     * Constructor for an empty segment.
+     *
+     * @param pool   pool running the lines.
+     * @param router console output, routed to the buffer of the line printing it.
+     */
+    Segment(ExecutorService pool, ConsoleRouter router) {
+      this.pool = pool;
+      this.router = router;
+    }
+
+    /**
+     * Method to check whether a submitted line has thrown.
+     *
+     * @return true once a line has thrown.
+     */
+    boolean hasFailed() {
+      return this.firstFailure.get() != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Method to schedule a line once the lines it conflicts with are done.
+     *
+     * @param line  line to run.
+     * @param words words of the line.
+     */
+    void submit(String line, String[] words) {
+      List<String> reads = new ArrayList<>();
+      List<String> writes = new ArrayList<>();
+      findAccesses(words, reads, writes);
+      List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+      for (String key : reads) {
+        addIfPresent(dependencies, this.lastWriters.get(key));
+      }
+      for (String key : writes) {
+        addIfPresent(dependencies, this.lastWriters.get(key));
+        for (CompletableFuture<Void> reader : this.readers.getOrDefault(key,
+                new ArrayList<>())) {
+          addIfPresent(dependencies, reader);
+        }
+      }
+      int index = this.futures.size();
+      BufferedView buffer = new BufferedView();
+      ImageController lineController = new ImageControllerImpl(buffer, modelStore);
+      CompletableFuture<Void> future = CompletableFuture
+              .allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+              .thenRunAsync(() -> runLine(lineController, line, index, buffer), this.pool);
+      for (String key : reads) {
+        this.readers.computeIfAbsent(key, k -> new ArrayList<>()).add(future);
+      }
+      for (String key : writes) {
+        this.lastWriters.put(key, future);
+        this.readers.remove(key);
+      }
+      this.futures.add(future);
+      this.buffers.add(buffer);
+    }
+
+    /**
+     * Method to run a line on a pool thread, unless an earlier line has already thrown,
+     * buffering what it prints to the console.
+     *
+     * @param lineController controller of the line.
+     * @param line           line to run.
+     * @param index          position of the line in the segment.
+     * @param buffer         view buffering the output of the line.
+     */
+    private void runLine(ImageController lineController, String line, int index,
+                         BufferedView buffer) {
+      if (this.firstFailure.get() < index) {
+        return;
+      }
+      this.router.capture(buffer);
+      try {
+        lineController.execute(line);
+      } catch (RuntimeException | Error e) {
+        this.firstFailure.accumulateAndGet(index, Math::min);
+        throw e;
+      } finally {
+        this.router.capture(null);
+      }
+    }
+
+    /**
+     * Method to wait for every submitted line in order, replaying its messages to the view,
+     * and start an empty segment. The first failure of a line is thrown as the line threw it,
+     * after all lines are done.
+     */
+    void finish() {
+      Throwable failure = null;
+      ImageView view = controller.getView();
+      for (int i = 0; i < this.futures.size(); i++) {
+        try {
+          this.futures.get(i).join();
+        } catch (CompletionException e) {
+          if (failure == null) {
+            failure = e.getCause() == null ? e : e.getCause();
+          }
+        } catch (RuntimeException e) {
+          if (failure == null) {
+            failure = e;
+          }
+        }
+        this.buffers.get(i).replay(view);
+      }
+      this.futures.clear();
+      this.buffers.clear();
+      this.lastWriters.clear();
+      this.readers.clear();
+      this.firstFailure.set(Integer.MAX_VALUE);
+      if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      }
+      if (failure instanceof Error) {
+        throw (Error) failure;
+      }
+      if (failure != null) {
+        throw new CompletionException(failure);
+      }
+    }
+
+    /**
+     * Method to add a dependency that exists.
+     *
+     * @param dependencies list of dependencies.
+     * @param future       dependency, or null.
+     */
+    private void addIfPresent(List<CompletableFuture<Void>> dependencies,
+                              CompletableFuture<Void> future) {
+      if (future != null) {
+        dependencies.add(future);
+      }
+    }
+  }
+
+  /**
+   * Stream installed as the console while scripts run concurrently. Text printed by a thread
+   * running a line goes to the buffer of that line, and any other text to the console it
+   * replaced. It is shared by the scripts running at the same time and removed after the last.
+   */
+  private static final class ConsoleRouter extends OutputStream {
+    private static ConsoleRouter shared;
+    private static PrintStream installed;
+    private static int users;
+    private final PrintStream console;
+    private final ThreadLocal<BufferedView> buffers = new ThreadLocal<>();
+
+    /**
+     * Constructor for a router of the console.
+     *
+     * @param console console replaced by the router.
+     */
+    private ConsoleRouter(PrintStream console) {
+      this.console = console;
+    }
+
+    /**
+     * Method to install the router as the console, or share the one already installed.
+     *
+     * @return installed router.
+     */
+    static synchronized ConsoleRouter acquire() {
+      if (users++ == 0) {
+        shared = new ConsoleRouter(System.out);
+        installed = new PrintStream(shared, true);
+        System.setOut(installed);
+      }
+      return shared;
+    }
+
+    /**
+     * Method to give up the router, putting the console back after the last script, unless
+     * another console was installed meanwhile.
+     */
+    static synchronized void release() {
+      if (--users == 0) {
+        if (System.out == installed) {
+          System.setOut(shared.console);
+        }
+        shared = null;
+        installed = null;
+      }
+    }
+
+    /**
+     * Method to route the text printed by the calling thread.
+     *
+     * @param buffer buffer of the line the thread runs, or null for the console.
+     */
+    void capture(BufferedView buffer) {
+      if (buffer == null) {
+        this.buffers.remove();
+      } else {
+        this.buffers.set(buffer);
+      }
+    }
+
+    /**
+     * Method to print one byte.
+     *
+     * @param b byte to print.
+     */
+    @Override
+    public void write(int b) {
+      this.write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    /**
+     * Method to print bytes to the buffer of the calling thread, or to the console.
+     *
+     * @param bytes  bytes to print.
+     * @param offset index of the first byte.
+     * @param length number of bytes.
+     */
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+      BufferedView buffer = this.buffers.get();
+      if (buffer == null) {
+        this.console.write(bytes, offset, length);
+      } else {
+        buffer.print(this.console, bytes, offset, length);
+      }
+    }
+
+    /**
+     * Method to flush the console.
+     */
+    @Override
+    public void flush() {
+      this.console.flush();
+    }
+  }
+}
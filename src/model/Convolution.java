@@ -0,0 +1,300 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-point convolution engine used by blur and sharpen.
+ * The kernel is converted once into integer weights over a power of two, so every tap is an
+ * integer multiply-add and the final division is a shift. Kernels that factor into a column
+ * and a row vector are run as two 1-D passes, keeping only as many horizontally filtered rows
+ * as the kernel is tall. Taps falling outside the image are skipped, which gives the same
+ * result as convolving a zero-padded copy without ever building one.
+ */
+final class Convolution {
+  private static final int MAX_SHIFT = 16;
+
+  private final int size;
+  private final int pad;
+  private final int shift;
+  private final int[][] weights;
+  private final int[] xTaps;
+  private final int[] yTaps;
+
+  /**
+   * Constructor that prepares a square kernel of odd size.
+   * The kernel is indexed as [x offset][y offset], like the image matrices.
+   * Weights that are multiples of 1 / 2^16 are represented exactly, others are rounded.
+   *
+   * @param kernel kernel weights.
+   * @throws IllegalArgumentException if the kernel is not square or has an even size.
+   */
+  Convolution(double[][] kernel) throws IllegalArgumentException {
+    this.size = kernel.length;
+    if (size % 2 == 0) {
+      throw new IllegalArgumentException("Kernel size must be odd.");
+    }
+    for (double[] column : kernel) {
+      if (column.length != size) {
+        throw new IllegalArgumentException("Kernel must be square.");
+      }
+    }
+    this.pad = size / 2;
+    this.shift = findShift(kernel);
+    this.weights = new int[size][size];
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        this.weights[i][j] = (int) Math.round(Math.scalb(kernel[i][j], shift));
+      }
+    }
+    int[][] factors = factorize(this.weights);
+    this.xTaps = factors == null ? null : factors[0];
+    this.yTaps = factors == null ? null : factors[1];
+  }
+
+  /**
+   * Method to find the smallest power of two that turns every weight into an integer.
+   *
+   * @param kernel kernel weights.
+   * @return exponent of that power, or the maximum precision if there is none.
+   */
+  private static int findShift(double[][] kernel) {
+    for (int shift = 0; shift < MAX_SHIFT; shift++) {
+      boolean exact = true;
+      for (double[] column : kernel) {
+        for (double weight : column) {
+          double scaled = Math.scalb(weight, shift);
+          if (scaled != Math.rint(scaled)) {
+            exact = false;
+          }
+        }
+      }
+      if (exact) {
+        return shift;
+      }
+    }
+    return MAX_SHIFT;
+  }
+
+  /**
+   * Method to split an integer kernel into a column vector and a row vector.
+   *
+   * @param weights integer kernel indexed as [x offset][y offset].
+   * @return x taps and y taps whose outer product is the kernel, or null if there are none.
+   */
+  private static int[][] factorize(int[][] weights) {
+    int n = weights.length;
+    int pivotX = -1;
+    int pivotY = -1;
+    for (int i = 0; i < n && pivotX < 0; i++) {
+      for (int j = 0; j < n; j++) {
+        if (weights[i][j] != 0) {
+          pivotX = i;
+          pivotY = j;
+          break;
+        }
+      }
+    }
+    if (pivotX < 0) {
+      return null;
+    }
+    int[] xTaps = new int[n];
+    int[] yTaps = new int[n];
+    int xDivisor = 0;
+    int yDivisor = 0;
+    for (int k = 0; k < n; k++) {
+      xTaps[k] = weights[k][pivotY];
+      yTaps[k] = weights[pivotX][k];
+      xDivisor = gcd(xDivisor, xTaps[k]);
+      yDivisor = gcd(yDivisor, yTaps[k]);
+    }
+    int gain = weights[pivotX][pivotY]
+            / ((xTaps[pivotX] / xDivisor) * (yTaps[pivotY] / yDivisor));
+    for (int k = 0; k < n; k++) {
+      xTaps[k] = xTaps[k] / xDivisor * gain;
+      yTaps[k] /= yDivisor;
+    }
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        if ((long) xTaps[i] * yTaps[j] != weights[i][j]) {
+          return null;
+        }
+      }
+    }
+    return new int[][]{xTaps, yTaps};
+  }
+
+  /**
+   * Method to find the greatest common divisor of two integers.
+   *
+   * @param a first integer.
+   * @param b second integer.
+   * @return non-negative greatest common divisor.
+   */
+  private static int gcd(int a, int b) {
+    a = Math.abs(a);
+    b = Math.abs(b);
+    while (b != 0) {
+      int t = a % b;
+      a = b;
+      b = t;
+    }
+    return a;
+  }
+
+  /**
+   * Method to check whether the kernel is run as two 1-D passes.
+   *
+   * @return true if the kernel is separable.
+   */
+  boolean isSeparable() {
+    return this.xTaps != null;
+  }
+
+  /**
+   * Method to convolve a whole image.
+   *
+   * @param src    packed row-major pixels.
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @return new packed pixels of the convolved image.
+   */
+  int[] apply(int[] src, int width, int height) {
+    int[] dst = new int[width * height];
+    apply(src, dst, width, height, 0, height);
+    return dst;
+  }
+
+  /**
+   * Method to convolve a band of rows of an image.
+   * Rows outside the band are still read, but only rows yStart to yEnd - 1 are written.
+   *
+   * @param src    packed row-major pixels.
+   * @param dst    packed row-major pixels to write into.
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @param yStart first row to write.
+   * @param yEnd   row after the last row to write.
+   */
+  void apply(int[] src, int[] dst, int width, int height, int yStart, int yEnd) {
+    if (isSeparable()) {
+      applySeparable(src, dst, width, height, yStart, yEnd);
+    } else {
+      applyDirect(src, dst, width, height, yStart, yEnd);
+    }
+  }
+
+  /**
+   * Method to run the two 1-D passes over a band of rows.
+   * Horizontally filtered rows are kept in a ring holding as many rows as the kernel is tall.
+   *
+   * @param src    packed row-major pixels.
+   * @param dst    packed row-major pixels to write into.
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @param yStart first row to write.
+   * @param yEnd   row after the last row to write.
+   */
+  private void applySeparable(int[] src, int[] dst, int width, int height, int yStart,
+                              int yEnd) {
+    int[][] ring = new int[size][3 * width];
+    int[] sum = new int[3 * width];
+    int next = Math.max(0, yStart - pad);
+    for (int y = yStart; y < yEnd; y++) {
+      int last = Math.min(height - 1, y + pad);
+      for (; next <= last; next++) {
+        horizontalPass(src, next * width, width, ring[next % size]);
+      }
+      Arrays.fill(sum, 0);
+      int from = Math.max(0, pad - y);
+      int to = Math.min(size, height - y + pad);
+      for (int t = from; t < to; t++) {
+        int weight = yTaps[t];
+        int[] row = ring[(y + t - pad) % size];
+        for (int i = 0; i < sum.length; i++) {
+          sum[i] += weight * row[i];
+        }
+      }
+      int rowStart = y * width;
+      for (int x = 0; x < width; x++) {
+        dst[rowStart + x] = (scale(sum[x]) << 16) | (scale(sum[width + x]) << 8)
+                | scale(sum[2 * width + x]);
+      }
+    }
+  }
+
+  /**
+   * Method to filter one row with the x taps.
+   *
+   * @param src      packed row-major pixels.
+   * @param rowStart index of the first pixel of the row.
+   * @param width    width of the image.
+   * @param out      filtered red, green and blue sums, one after the other.
+   */
+  private void horizontalPass(int[] src, int rowStart, int width, int[] out) {
+    for (int x = 0; x < width; x++) {
+      int from = Math.max(0, pad - x);
+      int to = Math.min(size, width - x + pad);
+      int red = 0;
+      int green = 0;
+      int blue = 0;
+      for (int t = from; t < to; t++) {
+        int rgb = src[rowStart + x + t - pad];
+        int weight = xTaps[t];
+        red += weight * ((rgb >> 16) & 0xFF);
+        green += weight * ((rgb >> 8) & 0xFF);
+        blue += weight * (rgb & 0xFF);
+      }
+      out[x] = red;
+      out[width + x] = green;
+      out[2 * width + x] = blue;
+    }
+  }
+
+  /**
+   * Method to run the full 2-D kernel over a band of rows, for kernels that do not separate.
+   *
+   * @param src    packed row-major pixels.
+   * @param dst    packed row-major pixels to write into.
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @param yStart first row to write.
+   * @param yEnd   row after the last row to write.
+   */
+  private void applyDirect(int[] src, int[] dst, int width, int height, int yStart, int yEnd) {
+    for (int y = yStart; y < yEnd; y++) {
+      int fromJ = Math.max(0, pad - y);
+      int toJ = Math.min(size, height - y + pad);
+      for (int x = 0; x < width; x++) {
+        int fromI = Math.max(0, pad - x);
+        int toI = Math.min(size, width - x + pad);
+        int red = 0;
+        int green = 0;
+        int blue = 0;
+        for (int j = fromJ; j < toJ; j++) {
+          int rowStart = (y + j - pad) * width + x - pad;
+          for (int i = fromI; i < toI; i++) {
+            int rgb = src[rowStart + i];
+            int weight = weights[i][j];
+            red += weight * ((rgb >> 16) & 0xFF);
+            green += weight * ((rgb >> 8) & 0xFF);
+            blue += weight * (rgb & 0xFF);
+          }
+        }
+        dst[y * width + x] = (scale(red) << 16) | (scale(green) << 8) | scale(blue);
+      }
+    }
+  }
+
+  /**
+   * Method to turn a fixed-point sum back into a channel value between 0 and 255.
+   *
+   * @param sum weighted sum scaled by 2^shift.
+   * @return clamped channel value.
+   */
+  private int scale(int sum) {
+    if (sum < 0) {
+      return 0;
+    }
+    return Math.min(sum >> shift, 255);
+  }
+}
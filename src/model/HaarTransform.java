@@ -0,0 +1,286 @@
+package model;
+
+/**
+ * In-place 2D Haar wavelet transform of a channel whose sides are powers of two.
+ * The channel is stored flat, element [i][j] being at {@code i * cols + j}. Each level first
+ * transforms the rows and then the columns, and the inverse undoes them in the opposite order.
+ * The two sides are halved independently, so once the shorter one is down to a single value
+ * the remaining levels only transform along the longer one. A square channel therefore goes
+ * through exactly the classic square transform, while a wide one is not padded to a square.
+ * Every average and difference below 0.1 in magnitude is set to zero, as compression expects.
+ * Columns are processed in blocks of neighbouring columns so that every pass reads and writes
+ * whole runs of memory. One transform owns a single scratch buffer and is meant to be used by
+ * one thread at a time.
+ */
+final class HaarTransform {
+  private static final double SQRT_2 = Math.sqrt(2);
+  private static final double THRESHOLD = 0.1;
+  private static final int BLOCK = 16;
+
+  private final int rows;
+  private final int cols;
+  private final int block;
+  private final double[] scratch;
+
+  /**
+   * Constructor for square channels of a given size.
+   *
+   * @param size width and height of the channel, a power of two.
+   * @throws IllegalArgumentException if the size is not a power of two.
+   */
+  HaarTransform(int size) throws IllegalArgumentException {
+    this(size, size);
+  }
+
+  /**
+   * Constructor for channels of a given number of rows and columns.
+   *
+   * @param rows number of rows, a power of two.
+   * @param cols number of columns, a power of two.
+   * @throws IllegalArgumentException if a side is not a power of two.
+   */
+  HaarTransform(int rows, int cols) throws IllegalArgumentException {
+    if (rows < 1 || Integer.bitCount(rows) != 1 || cols < 1 || Integer.bitCount(cols) != 1) {
+      throw new IllegalArgumentException("Sides must be powers of two.");
+    }
+    this.rows = rows;
+    this.cols = cols;
+    this.block = Math.min(BLOCK, cols);
+    this.scratch = new double[Math.max(cols, rows * this.block)];
+  }
+
+  /**
+   * Method to transform a channel in place.
+   *
+   * @param data channel of rows * cols values.
+   */
+  void forward(double[] data) {
+    int r = rows;
+    int c = cols;
+    while (r > 1 || c > 1) {
+      if (c > 1) {
+        for (int i = 0; i < r; i++) {
+          forwardRow(data, i * cols, c);
+        }
+      }
+      if (r > 1) {
+        for (int j = 0; j < c; j += block) {
+          forwardColumns(data, j, Math.min(block, c - j), r);
+        }
+      }
+      r = Math.max(1, r / 2);
+      c = Math.max(1, c / 2);
+    }
+  }
+
+  /**
+   * Method to find the power of two one side of an image is padded to.
+   *
+   * @param length length of the side.
+   * @return padded length.
+   */
+  static int paddedLength(int length) {
+    return length <= 1 ? 1 : Integer.highestOneBit(length - 1) << 1;
+  }
+
+  /**
+   * Method to split pixels into three zero-padded channels laid out as [x][y].
+   *
+   * @param pixels pixels of the image.
+   * @param rows   padded width, the number of rows of each channel.
+   * @param cols   padded height, the number of columns of each channel.
+   * @return red, green and blue channels of rows * cols values.
+   */
+  static double[][] splitChannels(PixelBuffer pixels, int rows, int cols) {
+    int width = pixels.getWidth();
+    int height = pixels.getHeight();
+    double[][] channels = new double[3][rows * cols];
+    int[] src = pixels.getPixels();
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        int rgb = src[y * width + x];
+        channels[0][x * cols + y] = (rgb >> 16) & 0xFF;
+        channels[1][x * cols + y] = (rgb >> 8) & 0xFF;
+        channels[2][x * cols + y] = rgb & 0xFF;
+      }
+    }
+    return channels;
+  }
+
+  /**
+   * Method to round the top-left width by height part of three channels back into pixels.
+   *
+   * @param channels red, green and blue channels laid out as [x][y].
+   * @param width    width of the image.
+   * @param height   height of the image.
+   * @param cols     number of columns of each channel.
+   * @return packed row-major pixels.
+   */
+  static int[] packChannels(double[][] channels, int width, int height, int cols) {
+    int[] dst = new int[width * height];
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        int index = x * cols + y;
+        dst[y * width + x] = PixelBuffer.pack((int) Math.round(channels[0][index]),
+                (int) Math.round(channels[1][index]), (int) Math.round(channels[2][index]));
+      }
+    }
+    return dst;
+  }
+
+  /**
+   * Method to get the number of levels of the transform.
+   *
+   * @return number of times the longer side is halved.
+   */
+  int getLevels() {
+    return Math.max(Integer.numberOfTrailingZeros(rows), Integer.numberOfTrailingZeros(cols));
+  }
+
+  /**
+   * Method to undo the transform of a channel in place.
+   *
+   * @param data channel of rows * cols values.
+   */
+  void inverse(double[] data) {
+    inverse(data, 0);
+  }
+
+  /**
+   * Method to undo only the coarsest levels of the transform, down to a given level.
+   * Afterwards the top-left block of max(1, rows >> level) by max(1, cols >> level) values holds
+   * the sums of the blocks of pixels each value stands for, divided by sqrt(2) once per pass of
+   * the levels that were not undone.
+   *
+   * @param data  channel of rows * cols values.
+   * @param level number of finest levels to leave transformed, 0 to undo everything.
+   */
+  void inverse(double[] data, int level) {
+    for (int current = getLevels() - 1; current >= level; current--) {
+      int r = Math.max(1, rows >> current);
+      int c = Math.max(1, cols >> current);
+      if (r > 1) {
+        for (int j = 0; j < c; j += block) {
+          inverseColumns(data, j, Math.min(block, c - j), r);
+        }
+      }
+      if (c > 1) {
+        for (int i = 0; i < r; i++) {
+          inverseRow(data, i * cols, c);
+        }
+      }
+    }
+  }
+
+  /**
+   * Method to replace the first c values of a row with their averages followed by their
+   * differences.
+   *
+   * @param data  channel values.
+   * @param start index of the first value of the row.
+   * @param c     number of values transformed at this level.
+   */
+  private void forwardRow(double[] data, int start, int c) {
+    int half = c / 2;
+    for (int k = 0; k < half; k++) {
+      double a = data[start + 2 * k];
+      double b = data[start + 2 * k + 1];
+      scratch[k] = threshold((a + b) / SQRT_2);
+      scratch[half + k] = threshold((a - b) / SQRT_2);
+    }
+    System.arraycopy(scratch, 0, data, start, c);
+  }
+
+  /**
+   * Method to undo forwardRow on the first c values of a row.
+   *
+   * @param data  channel values.
+   * @param start index of the first value of the row.
+   * @param c     number of values transformed at this level.
+   */
+  private void inverseRow(double[] data, int start, int c) {
+    int half = c / 2;
+    for (int k = 0; k < half; k++) {
+      double a = data[start + k];
+      double b = data[start + half + k];
+      scratch[2 * k] = threshold((a + b) / SQRT_2);
+      scratch[2 * k + 1] = threshold((a - b) / SQRT_2);
+    }
+    System.arraycopy(scratch, 0, data, start, c);
+  }
+
+  /**
+   * Method to transform the first c values of a block of neighbouring columns.
+   * Results are gathered row by row in the scratch buffer and then copied back.
+   *
+   * @param data  channel values.
+   * @param first first column of the block.
+   * @param width number of columns in the block.
+   * @param c     number of values transformed at this level.
+   */
+  private void forwardColumns(double[] data, int first, int width, int c) {
+    int half = c / 2;
+    for (int k = 0; k < half; k++) {
+      int top = 2 * k * cols + first;
+      int bottom = top + cols;
+      int average = k * width;
+      int difference = (half + k) * width;
+      for (int t = 0; t < width; t++) {
+        double a = data[top + t];
+        double b = data[bottom + t];
+        scratch[average + t] = threshold((a + b) / SQRT_2);
+        scratch[difference + t] = threshold((a - b) / SQRT_2);
+      }
+    }
+    copyBack(data, first, width, c);
+  }
+
+  /**
+   * Method to undo forwardColumns on a block of neighbouring columns.
+   *
+   * @param data  channel values.
+   * @param first first column of the block.
+   * @param width number of columns in the block.
+   * @param c     number of values transformed at this level.
+   */
+  private void inverseColumns(double[] data, int first, int width, int c) {
+    int half = c / 2;
+    for (int k = 0; k < half; k++) {
+      int average = k * cols + first;
+      int difference = (half + k) * cols + first;
+      int even = 2 * k * width;
+      int odd = even + width;
+      for (int t = 0; t < width; t++) {
+        double a = data[average + t];
+        double b = data[difference + t];
+        scratch[even + t] = threshold((a + b) / SQRT_2);
+        scratch[odd + t] = threshold((a - b) / SQRT_2);
+      }
+    }
+    copyBack(data, first, width, c);
+  }
+
+  /**
+   * Method to copy the first c rows of a column block from the scratch buffer to the channel.
+   *
+   * @param data  channel values.
+   * @param first first column of the block.
+   * @param width number of columns in the block.
+   * @param c     number of rows to copy.
+   */
+  private void copyBack(double[] data, int first, int width, int c) {
+    for (int k = 0; k < c; k++) {
+      System.arraycopy(scratch, k * width, data, k * cols + first, width);
+    }
+  }
+
+  /**
+   * Method to make values zero if they are close to zero.
+   *
+   * @param value transformed value.
+   * @return zero, or the value itself.
+   */
+  private static double threshold(double value) {
+    return Math.abs(value) <= THRESHOLD ? 0 : value;
+  }
+}
@@ -4,10 +4,33 @@ package model;
  * Model class that represents a particular image instance.
  */
 public class ImageModelImpl implements ImageModel {
-  private String imageAliasName;
-  private int[][][] imageMatrix;
-  private int imageWidth;
-  private int imageHeight;
+  private static final Convolution BLUR = new Convolution(new double[][]{
+          {0.0625, 0.125, 0.0625},
+          {0.125, 0.25, 0.125},
+          {0.0625, 0.125, 0.0625}
+  });
+  private static final Convolution SHARPEN = new Convolution(new double[][]{
+          {-0.125, -0.125, -0.125, -0.125, -0.125},
+          {-0.125, 0.25, 0.25, 0.25, -0.125},
+          {-0.125, 0.25, 1, 0.25, -0.125},
+          {-0.125, 0.25, 0.25, 0.25, -0.125},
+          {-0.125, -0.125, -0.125, -0.125, -0.125}
+  });
+  static final double[][] GREYSCALE_LUMA = {
+          {0.2126, 0.7152, 0.0722},
+          {0.2126, 0.7152, 0.0722},
+          {0.2126, 0.7152, 0.0722}
+  };
+  static final double[][] SEPIA_LUMA = {
+          {0.393, 0.769, 0.189},
+          {0.349, 0.686, 0.168},
+          {0.272, 0.534, 0.131}
+  };
+
+  private final String imageAliasName;
+  private final PixelBuffer pixels;
+  private final int imageWidth;
+  private final int imageHeight;
 
   /**
    * Private Constructor which sets image matrix to given image matrix.
@@ -16,20 +39,31 @@ public class ImageModelImpl implements ImageModel {
    * @param imageAlias   Image name to be set.
    */
   public ImageModelImpl(int[][][] imageMatrix1, String imageAlias) {
-    this.imageWidth = imageMatrix1.length;
-    this.imageHeight = imageMatrix1[0].length;
-    this.imageMatrix = new int[this.imageWidth][this.imageHeight][3];
-
-    for (int x = 0; x < this.imageWidth; x++) {
-      for (int y = 0; y < this.imageHeight; y++) {
-        this.imageMatrix[x][y][0] = imageMatrix1[x][y][0];
-        this.imageMatrix[x][y][1] = imageMatrix1[x][y][1];
-        this.imageMatrix[x][y][2] = imageMatrix1[x][y][2];
-      }
-    }
+    this(PixelBuffer.fromMatrix(imageMatrix1), imageAlias);
+  }
+
+  /**
+   * Constructor which takes over an already packed pixel buffer.
+   *
+   * @param pixels     pixel buffer of the image, not copied.
+   * @param imageAlias Image name to be set.
+   */
+  ImageModelImpl(PixelBuffer pixels, String imageAlias) {
+    this.pixels = pixels;
+    this.imageWidth = pixels.getWidth();
+    this.imageHeight = pixels.getHeight();
     this.imageAliasName = imageAlias;
   }
 
+  /**
+   * Method to get the pixel buffer of this image.
+   *
+   * @return pixel buffer backing this image.
+   */
+  PixelBuffer getPixelBuffer() {
+    return this.pixels;
+  }
+
   /**
    * Method to get the name of the image.
    *
@@ -42,24 +76,14 @@ public class ImageModelImpl implements ImageModel {
 
   /**
    * Common method to perform operations for RGB components.
+   * The result is a planar view sharing the channel with this image, so nothing is copied
+   * when this image is already planar and only one channel is extracted otherwise.
    *
    * @param channel channel to perform operation on.
-   * @return matrix after performing RBG operations.
+   * @return buffer after performing RBG operations.
    */
-  private int[][][] individualComponent(int channel) {
-    int[][][] mat = new int[this.imageWidth][this.imageHeight][3];
-    for (int x = 0; x < this.imageWidth; x++) {
-      for (int y = 0; y < this.imageHeight; y++) {
-        for (int c = 0; c < 3; c++) {
-          if (c == channel) {
-            mat[x][y][c] = this.imageMatrix[x][y][c];
-          } else {
-            mat[x][y][c] = 0;
-          }
-        }
-      }
-    }
-    return mat;
+  private PixelBuffer individualComponent(int channel) {
+    return this.pixels.channelView(channel);
   }
 
   /**
@@ -95,25 +119,6 @@ public class ImageModelImpl implements ImageModel {
     return new ImageModelImpl(individualComponent(2), imageAlias);
   }
 
-  /**
-   * Private method to clamp the pixel values.
-   *
-   * @param matrix clamp the matrix pixel values between 0 and 255.
-   */
-  private void clamp(int[][][] matrix) {
-    for (int x = 0; x < this.imageWidth; x++) {
-      for (int y = 0; y < this.imageHeight; y++) {
-        matrix[x][y][0] = Math.min(matrix[x][y][0], 255);
-        matrix[x][y][1] = Math.min(matrix[x][y][1], 255);
-        matrix[x][y][2] = Math.min(matrix[x][y][2], 255);
-
-        matrix[x][y][0] = Math.max(matrix[x][y][0], 0);
-        matrix[x][y][1] = Math.max(matrix[x][y][1], 0);
-        matrix[x][y][2] = Math.max(matrix[x][y][2], 0);
-      }
-    }
-  }
-
   /**
    * Generates a new blurred Image of this image.
    *
@@ -122,12 +127,7 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public ImageModel blur(String imageAlias) {
-    double[][] blurMatrix = {
-            {0.0625, 0.125, 0.0625},
-            {0.125, 0.25, 0.125},
-            {0.0625, 0.125, 0.0625}
-    };
-    return blurSharpen(imageAlias, blurMatrix);
+    return blurSharpen(imageAlias, BLUR);
   }
 
   /**
@@ -138,69 +138,25 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public ImageModel sharpen(String imageAlias) {
-    double[][] sharpen_matrix = {
-            {-0.125, -0.125, -0.125, -0.125, -0.125},
-            {-0.125, 0.25, 0.25, 0.25, -0.125},
-            {-0.125, 0.25, 1, 0.25, -0.125},
-            {-0.125, 0.25, 0.25, 0.25, -0.125},
-            {-0.125, -0.125, -0.125, -0.125, -0.125}
-    };
-    return blurSharpen(imageAlias, sharpen_matrix);
+    return blurSharpen(imageAlias, SHARPEN);
   }
 
   /**
    * Private method used by blur and sharpen.
    *
    * @param imageAlias image name.
-   * @param blurMatrix kernel.
+   * @param kernel     convolution to apply.
    * @return instance of image model of new generated image.
    */
-  private ImageModel blurSharpen(String imageAlias, double[][] blurMatrix) {
+  private ImageModel blurSharpen(String imageAlias, Convolution kernel) {
     int width = this.imageWidth;
     int height = this.imageHeight;
-    int pad = (blurMatrix.length / 2);
-    int[][][] imagePad1 = new int[width + (pad * 2)][height + (pad * 2)][3];
-
-    for (int x = 0; x < width + (pad * 2); x++) {
-      for (int y = 0; y < height + (pad * 2); y++) {
-        if (x < pad || y < pad || x > (width + pad - 1) || y > (height + pad - 1)) {
-          imagePad1[x][y][0] = 0;
-          imagePad1[x][y][1] = 0;
-          imagePad1[x][y][2] = 0;
-        } else {
-          imagePad1[x][y][0] = imageMatrix[x - pad][y - pad][0];
-          imagePad1[x][y][1] = imageMatrix[x - pad][y - pad][1];
-          imagePad1[x][y][2] = imageMatrix[x - pad][y - pad][2];
-        }
-      }
-    }
-
-    double[][][] imageMatrixBlur = new double[width][height][3];
-    int[][][] imageMatrixBlur1 = new int[width][height][3];
-
-    for (int x = 0; x < width; x++) {
-      for (int y = 0; y < height; y++) {
-        imageMatrixBlur[x][y][0] = 0;
-        imageMatrixBlur[x][y][1] = 0;
-        imageMatrixBlur[x][y][2] = 0;
-        for (int i = 0; i < blurMatrix.length; i++) {
-          for (int j = 0; j < blurMatrix.length; j++) {
-            imageMatrixBlur[x][y][0] = imageMatrixBlur[x][y][0] +
-                    (blurMatrix[i][j] * imagePad1[x + i][y + j][0]);
-            imageMatrixBlur[x][y][1] = imageMatrixBlur[x][y][1] +
-                    (blurMatrix[i][j] * imagePad1[x + i][y + j][1]);
-            imageMatrixBlur[x][y][2] = imageMatrixBlur[x][y][2] +
-                    (blurMatrix[i][j] * imagePad1[x + i][y + j][2]);
-          }
-        }
-        imageMatrixBlur1[x][y][0] = (int) imageMatrixBlur[x][y][0];
-        imageMatrixBlur1[x][y][1] = (int) imageMatrixBlur[x][y][1];
-        imageMatrixBlur1[x][y][2] = (int) imageMatrixBlur[x][y][2];
-
-      }
-    }
-    this.clamp(imageMatrixBlur1);
-    return new ImageModelImpl(imageMatrixBlur1, imageAlias);
+    int[] src = this.pixels.getPixels();
+    int[] dst = new int[width * height];
+    TileScheduler.forEachRow(width, height,
+            (yStart, yEnd) -> kernel.apply(src, dst, width, height, yStart, yEnd));
+    return new ImageModelImpl(new PackedPixelBuffer(this.imageWidth, this.imageHeight, dst),
+            imageAlias);
   }
 
 
@@ -213,16 +169,8 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public ImageModel bright(int value, String imageAlias) {
-    int[][][] imageMatrix1 = new int[imageWidth][imageHeight][3];
-    for (int x = 0; x < imageWidth; x++) {
-      for (int y = 0; y < imageHeight; y++) {
-        imageMatrix1[x][y][0] = imageMatrix[x][y][0] + value;
-        imageMatrix1[x][y][1] = imageMatrix[x][y][1] + value;
-        imageMatrix1[x][y][2] = imageMatrix[x][y][2] + value;
-      }
-    }
-    this.clamp(imageMatrix1);
-    return new ImageModelImpl(imageMatrix1, imageAlias);
+    return new ImageModelImpl(PointOperation.offset(value, value, value).apply(this.pixels),
+            imageAlias);
   }
 
 
@@ -234,12 +182,7 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public ImageModel greyscale(String imageAlias) {
-    double[][] greyscaleLuma = {
-            {0.2126, 0.7152, 0.0722},
-            {0.2126, 0.7152, 0.0722},
-            {0.2126, 0.7152, 0.0722}
-    };
-    return colorTransformation(imageAlias, greyscaleLuma);
+    return colorTransformation(imageAlias, GREYSCALE_LUMA);
   }
 
   /**
@@ -250,12 +193,7 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public ImageModel sepia(String imageAlias) {
-    double[][] sepiaLuma = {
-            {0.393, 0.769, 0.189},
-            {0.349, 0.686, 0.168},
-            {0.272, 0.534, 0.131}
-    };
-    return colorTransformation(imageAlias, sepiaLuma);
+    return colorTransformation(imageAlias, SEPIA_LUMA);
   }
 
   /**
@@ -266,24 +204,56 @@ public class ImageModelImpl implements ImageModel {
    * @return Instance of image model
    */
   private ImageModel colorTransformation(String imageAlias, double[][] luma) {
-    int[][][] imageMatrixReturn = new int[this.imageWidth][this.imageHeight][3];
+    int[] src = this.pixels.getPixels();
+    int[] dst = new int[src.length];
     if (luma.length == 3) {
-      for (int x = 0; x < this.imageWidth; x++) {
-        for (int y = 0; y < this.imageHeight; y++) {
-          imageMatrixReturn[x][y][0] = (int) ((luma[0][0] * this.imageMatrix[x][y][0])
-                  + (luma[0][1] * this.imageMatrix[x][y][1])
-                  + (luma[0][2] * this.imageMatrix[x][y][2]));
-          imageMatrixReturn[x][y][1] = (int) ((luma[1][0] * this.imageMatrix[x][y][0])
-                  + (luma[1][1] * this.imageMatrix[x][y][1])
-                  + (luma[1][2] * this.imageMatrix[x][y][2]));
-          imageMatrixReturn[x][y][2] = (int) ((luma[2][0] * this.imageMatrix[x][y][0])
-                  + (luma[2][1] * this.imageMatrix[x][y][1])
-                  + (luma[2][2] * this.imageMatrix[x][y][2]));
+      TileScheduler.forEachPixel(src.length, (start, end) -> {
+        for (int i = start; i < end; i++) {
+          dst[i] = transformPixel(luma, src[i]);
         }
-      }
+      });
     }
-    this.clamp(imageMatrixReturn);
-    return new ImageModelImpl(imageMatrixReturn, imageAlias);
+    return new ImageModelImpl(new PackedPixelBuffer(this.imageWidth, this.imageHeight, dst),
+            imageAlias);
+  }
+
+  /**
+   * Method to apply a luma filter to one pixel.
+   *
+   * @param luma luma filter, one row per output channel.
+   * @param rgb  packed pixel.
+   * @return packed transformed pixel.
+   */
+  static int transformPixel(double[][] luma, int rgb) {
+    int red = (rgb >> 16) & 0xFF;
+    int green = (rgb >> 8) & 0xFF;
+    int blue = rgb & 0xFF;
+    return PixelBuffer.pack(
+            (int) ((luma[0][0] * red) + (luma[0][1] * green) + (luma[0][2] * blue)),
+            (int) ((luma[1][0] * red) + (luma[1][1] * green) + (luma[1][2] * blue)),
+            (int) ((luma[2][0] * red) + (luma[2][1] * green) + (luma[2][2] * blue)));
+  }
+
+  /**
+   * Method to replace every channel of a pixel with the average of its channels.
+   *
+   * @param rgb packed pixel.
+   * @return packed grey pixel.
+   */
+  static int intensityPixel(int rgb) {
+    int averageValue = (((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF)) / 3;
+    return (averageValue << 16) | (averageValue << 8) | averageValue;
+  }
+
+  /**
+   * Method to replace every channel of a pixel with the largest of its channels.
+   *
+   * @param rgb packed pixel.
+   * @return packed grey pixel.
+   */
+  static int maxValuePixel(int rgb) {
+    int max = Math.max((rgb >> 16) & 0xFF, Math.max((rgb >> 8) & 0xFF, rgb & 0xFF));
+    return (max << 16) | (max << 8) | max;
   }
 
   /**
@@ -296,7 +266,7 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public int getPixelValue(int i, int j, int channel) {
-    return this.imageMatrix[i][j][channel];
+    return this.pixels.getChannel(i, j, channel);
   }
 
   /**
@@ -310,20 +280,27 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public ImageModel merge3components(ImageModel green, ImageModel blue, String imageAlias) {
-    int[][][] imageMatrixReturn = new int[this.imageWidth][this.imageHeight][3];
-    if ((this.getImageWidth() == green.getImageWidth()
+    if (!((this.getImageWidth() == green.getImageWidth()
             && green.getImageWidth() == blue.getImageWidth())
             && (this.getImageHeight() == green.getImageHeight()
-            && green.getImageHeight() == blue.getImageHeight())) {
+            && green.getImageHeight() == blue.getImageHeight()))) {
+      return new ImageModelImpl(new PackedPixelBuffer(this.imageWidth, this.imageHeight),
+              imageAlias);
+    }
+    if (green instanceof ImageModelImpl && blue instanceof ImageModelImpl) {
+      return new ImageModelImpl(new PlanarPixelBuffer(this.imageWidth, this.imageHeight,
+              this.pixels.getPlane(0), ((ImageModelImpl) green).getPixelBuffer().getPlane(1),
+              ((ImageModelImpl) blue).getPixelBuffer().getPlane(2)), imageAlias);
+    }
+    int[] dst = new int[this.imageWidth * this.imageHeight];
+    for (int y = 0; y < this.imageHeight; y++) {
       for (int x = 0; x < this.imageWidth; x++) {
-        for (int y = 0; y < this.imageHeight; y++) {
-          imageMatrixReturn[x][y][0] = this.getPixelValue(x, y, 0);
-          imageMatrixReturn[x][y][1] = green.getPixelValue(x, y, 1);
-          imageMatrixReturn[x][y][2] = blue.getPixelValue(x, y, 2);
-        }
+        dst[y * this.imageWidth + x] = PixelBuffer.pack(this.getPixelValue(x, y, 0),
+                green.getPixelValue(x, y, 1), blue.getPixelValue(x, y, 2));
       }
     }
-    return new ImageModelImpl(imageMatrixReturn, imageAlias);
+    return new ImageModelImpl(new PackedPixelBuffer(this.imageWidth, this.imageHeight, dst),
+            imageAlias);
   }
 
   /**
@@ -354,18 +331,15 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public ImageModel intensity(String imageAlias) {
-    int[][][] imageMatrixReturn = new int[this.imageWidth][this.imageHeight][3];
-    for (int x = 0; x < this.imageWidth; x++) {
-      for (int y = 0; y < this.imageHeight; y++) {
-        int averageValue = ((this.imageMatrix[x][y][0]
-                + this.imageMatrix[x][y][1] + this.imageMatrix[x][y][2]) / 3);
-        imageMatrixReturn[x][y][0] = (int) (averageValue);
-        imageMatrixReturn[x][y][1] = (int) (averageValue);
-        imageMatrixReturn[x][y][2] = (int) (averageValue);
+    int[] src = this.pixels.getPixels();
+    int[] dst = new int[src.length];
+    TileScheduler.forEachPixel(src.length, (start, end) -> {
+      for (int i = start; i < end; i++) {
+        dst[i] = intensityPixel(src[i]);
       }
-    }
-    this.clamp(imageMatrixReturn);
-    return new ImageModelImpl(imageMatrixReturn, imageAlias);
+    });
+    return new ImageModelImpl(new PackedPixelBuffer(this.imageWidth, this.imageHeight, dst),
+            imageAlias);
   }
 
   /**
@@ -376,18 +350,15 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public ImageModel maxValue(String imageAlias) {
-    int[][][] imageMatrixReturn = new int[this.imageWidth][this.imageHeight][3];
-    for (int x = 0; x < this.imageWidth; x++) {
-      for (int y = 0; y < this.imageHeight; y++) {
-        int max = Math.max(this.imageMatrix[x][y][0], Math.max(this.imageMatrix[x][y][1]
-                , this.imageMatrix[x][y][2]));
-        imageMatrixReturn[x][y][0] = (int) (max);
-        imageMatrixReturn[x][y][1] = (int) (max);
-        imageMatrixReturn[x][y][2] = (int) (max);
+    int[] src = this.pixels.getPixels();
+    int[] dst = new int[src.length];
+    TileScheduler.forEachPixel(src.length, (start, end) -> {
+      for (int i = start; i < end; i++) {
+        dst[i] = maxValuePixel(src[i]);
       }
-    }
-    this.clamp(imageMatrixReturn);
-    return new ImageModelImpl(imageMatrixReturn, imageAlias);
+    });
+    return new ImageModelImpl(new PackedPixelBuffer(this.imageWidth, this.imageHeight, dst),
+            imageAlias);
   }
 
   /**
@@ -398,15 +369,14 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public ImageModel verticalFlipImage(String imageAlias) {
-    int[][][] imageMatrixReturn = new int[this.imageWidth][this.imageHeight][3];
-    for (int i = 0; i < this.imageWidth; i++) {
-      for (int j = 0; j < this.imageHeight; j++) {
-        imageMatrixReturn[i][j][0] = this.imageMatrix[i][this.imageHeight - 1 - j][0];
-        imageMatrixReturn[i][j][1] = this.imageMatrix[i][this.imageHeight - 1 - j][1];
-        imageMatrixReturn[i][j][2] = this.imageMatrix[i][this.imageHeight - 1 - j][2];
-      }
+    int[] src = this.pixels.getPixels();
+    int[] dst = new int[src.length];
+    for (int j = 0; j < this.imageHeight; j++) {
+      System.arraycopy(src, (this.imageHeight - 1 - j) * this.imageWidth, dst,
+              j * this.imageWidth, this.imageWidth);
     }
-    return new ImageModelImpl(imageMatrixReturn, imageAlias);
+    return new ImageModelImpl(new PackedPixelBuffer(this.imageWidth, this.imageHeight, dst),
+            imageAlias);
   }
 
   /**
@@ -417,15 +387,16 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public ImageModel horizontalFlipImage(String imageAlias) {
-    int[][][] imageMatrixReturn = new int[this.imageWidth][this.imageHeight][3];
+    int[] src = this.pixels.getPixels();
+    int[] dst = new int[src.length];
     for (int j = 0; j < this.imageHeight; j++) {
+      int row = j * this.imageWidth;
       for (int i = 0; i < this.imageWidth; i++) {
-        imageMatrixReturn[i][j][0] = this.imageMatrix[this.imageWidth - 1 - i][j][0];
-        imageMatrixReturn[i][j][1] = this.imageMatrix[this.imageWidth - 1 - i][j][1];
-        imageMatrixReturn[i][j][2] = this.imageMatrix[this.imageWidth - 1 - i][j][2];
+        dst[row + i] = src[row + this.imageWidth - 1 - i];
       }
     }
-    return new ImageModelImpl(imageMatrixReturn, imageAlias);
+    return new ImageModelImpl(new PackedPixelBuffer(this.imageWidth, this.imageHeight, dst),
+            imageAlias);
   }
 
 
@@ -3,21 +3,28 @@ package model;
 import java.awt.Graphics2D;
 import java.awt.Color;
 import java.awt.image.BufferedImage;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 
 
 /**
  * New Implementation of the Image Model with extra methids.
+ * Images never change, so the channel histogram of an image and its rendered chart are worked
+ * out at most once and kept. Point operations and flips give their result the histogram
+ * derived from the one of this image when it is already known, so it is never counted again.
  */
 public class ImageModelNewImpl implements ImageModelNew {
 
-  private final ImageModel delegate;
-  private int[][][] imageMatrix;
-  private String imageAliasName;
-  private int imageWidth;
-  private int imageHeight;
+  private ImageModel delegate;
+  private final PixelBuffer pixels;
+  private final double waveletRatio;
+  private volatile PixelBuffer waveletSource;
+  private volatile byte[] waveletData;
+  private final String imageAliasName;
+  private final int imageWidth;
+  private final int imageHeight;
+  private volatile int[][] frequencies;
+  private volatile PixelBuffer histogramPixels;
 
   /**
    * Constructor to set the private fields.
@@ -26,471 +33,251 @@ public class ImageModelNewImpl implements ImageModelNew {
    * @param imageAliasName Name to the image.
    */
   public ImageModelNewImpl(int[][][] matrix, String imageAliasName) {
-    this.imageWidth = matrix.length;
-    this.imageHeight = matrix[0].length;
-    this.imageMatrix = new int[this.imageWidth][this.imageHeight][3];
-    this.delegate = new ImageModelImpl(matrix, imageAliasName);
-
-    for (int x = 0; x < this.imageWidth; x++) {
-      for (int y = 0; y < this.imageHeight; y++) {
-        this.imageMatrix[x][y][0] = matrix[x][y][0];
-        this.imageMatrix[x][y][1] = matrix[x][y][1];
-        this.imageMatrix[x][y][2] = matrix[x][y][2];
-      }
-    }
-    this.imageAliasName = imageAliasName;
+    this(PixelBuffer.fromMatrix(matrix), imageAliasName);
   }
 
-
   /**
-   * Public method to compress the image.
+   * Constructor that takes ownership of an already computed pixel buffer without copying it.
+   * The legacy delegate is only created once one of its operations is actually needed.
    *
-   * @param imageAlias       image name of the new-generated image.
-   * @param compressionRatio compression percentage to compress the image upto that extent.
-   * @return A new Image Model representation of the compressed image.
+   * @param pixels         pixel buffer of the image, not copied.
+   * @param imageAliasName Name to the image.
    */
-  @Override
-  public ImageModelNew compress(String imageAlias, Double compressionRatio)
-          throws IllegalArgumentException {
-    if (compressionRatio < 0 || compressionRatio > 1) {
-      throw new IllegalArgumentException("Invalid Compression Percentage: " +
-              "Must be between 0 and 100.");
-    }
-    int[][][] imageMatrixReturn = new int[getImageWidth()][getImageHeight()][3];
-    double[][] redChannel = new double[getImageWidth()][getImageHeight()];
-    double[][] greenChannel = new double[getImageWidth()][getImageHeight()];
-    double[][] blueChannel = new double[getImageWidth()][getImageHeight()];
-    for (int x = 0; x < getImageWidth(); x++) {
-      for (int y = 0; y < getImageHeight(); y++) {
-        redChannel[x][y] = getPixelValue(x, y, 0);
-      }
-    }
-    for (int x = 0; x < getImageWidth(); x++) {
-      for (int y = 0; y < getImageHeight(); y++) {
-        greenChannel[x][y] = getPixelValue(x, y, 1);
-      }
-    }
-    for (int x = 0; x < getImageWidth(); x++) {
-      for (int y = 0; y < getImageHeight(); y++) {
-        blueChannel[x][y] = getPixelValue(x, y, 2);
-      }
-    }
-    double[][][] returned = performCompression(redChannel, greenChannel,
-            blueChannel, compressionRatio);
-    for (int x = 0; x < imageWidth; x++) {
-      for (int y = 0; y < imageHeight; y++) {
-        imageMatrixReturn[x][y][0] = (int) (Math.round(returned[x][y][0]));
-        imageMatrixReturn[x][y][1] = (int) (Math.round(returned[x][y][1]));
-        imageMatrixReturn[x][y][2] = (int) (Math.round(returned[x][y][2]));
-      }
-    }
-    this.clamp(imageMatrixReturn);
-    ImageModelNewImpl img = new ImageModelNewImpl(imageMatrixReturn, imageAlias);
-    return img;
+  ImageModelNewImpl(PixelBuffer pixels, String imageAliasName) {
+    this(pixels, imageAliasName, null, 0);
   }
 
   /**
-   * Public method to adjust the color levels of an image.
+   * Constructor for a compressed image that remembers the image and ratio it was compressed
+   * from, so that saving it in the wavelet format writes the coefficients that were kept
+   * instead of transforming the rounded pixels again. The coefficients are only encoded when
+   * they are first asked for, and the source is let go once they are.
    *
-   * @param imageAlias image name of the new-generated image.
-   * @param b          Black value of the image.
-   * @param m          Middle value of the image.
-   * @param w          White image of the image.
-   * @param per        percentage of image.
-   * @return A new Image Model representation of the compressed image.
-   */
-  @Override
-  public ImageModelNew levelAdjust(String imageAlias, int b, int m, int w, double per)
-          throws IllegalArgumentException {
-    if (b < 0 || w > 255 || m > w || b > m) {
-      throw new IllegalArgumentException("Invalid Values: Enter B,M,W Values in Range.");
-    }
-    double[] coefficients = calculateCorrectionCoeff(b, m, w);
-    int[][][] imageMatrixReturn = new int[getImageWidth()][getImageHeight()][3];
-    for (int x = 0; x < getImageWidth(); x++) {
-      for (int y = 0; y < getImageHeight(); y++) {
-        imageMatrixReturn[x][y][0] = applyLevelAdjustEquation(coefficients,
-                getPixelValue(x, y, 0));
-        imageMatrixReturn[x][y][1] = applyLevelAdjustEquation(coefficients,
-                getPixelValue(x, y, 1));
-        imageMatrixReturn[x][y][2] = applyLevelAdjustEquation(coefficients,
-                getPixelValue(x, y, 2));
-      }
-    }
-    clamp(imageMatrixReturn);
-    ImageModelNew img = new ImageModelNewImpl(imageMatrixReturn, imageAlias);
-    return this.split(per, img, imageAlias);
-
+   * @param pixels         pixel buffer of the image, not copied.
+   * @param imageAliasName Name to the image.
+   * @param waveletSource  pixels the image was compressed from, or null if not compressed.
+   * @param waveletRatio   compression ratio used on the source.
+   */
+  ImageModelNewImpl(PixelBuffer pixels, String imageAliasName, PixelBuffer waveletSource,
+                    double waveletRatio) {
+    this.pixels = pixels;
+    this.imageWidth = pixels.getWidth();
+    this.imageHeight = pixels.getHeight();
+    this.imageAliasName = imageAliasName;
+    this.waveletSource = waveletSource;
+    this.waveletRatio = waveletRatio;
   }
 
   /**
-   * Method to clamp the values between 0 and 255.
+   * Factory that builds an image directly on top of packed 0xRRGGBB pixels in row-major order.
+   * Ownership of the array passes to the image, so the caller must not modify it afterwards.
    *
-   * @param matrix Input matrix that is needed to be clamped.
+   * @param width          width of the image.
+   * @param height         height of the image.
+   * @param pixels         packed pixels, one per (x, y) at index y * width + x.
+   * @param imageAliasName Name to the image.
+   * @return image backed by the given array.
    */
-  protected void clamp(int[][][] matrix) {
-    for (int x = 0; x < getImageWidth(); x++) {
-      for (int y = 0; y < getImageHeight(); y++) {
-        matrix[x][y][0] = Math.min(matrix[x][y][0], 255);
-        matrix[x][y][1] = Math.min(matrix[x][y][1], 255);
-        matrix[x][y][2] = Math.min(matrix[x][y][2], 255);
+  public static ImageModelNewImpl adoptPixels(int width, int height, int[] pixels,
+                                              String imageAliasName) {
+    return new ImageModelNewImpl(new PackedPixelBuffer(width, height, pixels), imageAliasName);
+  }
 
-        matrix[x][y][0] = Math.max(matrix[x][y][0], 0);
-        matrix[x][y][1] = Math.max(matrix[x][y][1], 0);
-        matrix[x][y][2] = Math.max(matrix[x][y][2], 0);
-      }
-    }
+  /**
+   * Factory that reads back a compressed image from its encoded coefficients, keeping them so
+   * that saving it in the wavelet format writes them again.
+   *
+   * @param data           coefficients in the wavelet file format.
+   * @param imageAliasName Name to the image.
+   * @return image decoded at full resolution.
+   * @throws IOException if the data is not in the wavelet format.
+   */
+  static ImageModelNewImpl fromWaveletData(byte[] data, String imageAliasName)
+          throws IOException {
+    ImageModelNewImpl image = new ImageModelNewImpl(
+            WaveletCodec.decode(new ByteArrayInputStream(data), 0), imageAliasName);
+    image.waveletData = data;
+    return image;
   }
 
   /**
-   * Method to pad the matrix with zeros to make it square.
+   * Method to get the legacy image model that performs the operations shared with ImageModel.
+   * It is created on first use and shares the pixel buffer of this image.
    *
-   * @param matrix matrix that is needed to be padded.
-   * @param rows   rows of the input matrix.
-   * @param cols   columns of the inout matrix.
-   * @return Padded resultant matrix.
+   * @return legacy model of this image.
    */
-  private double[][] addMatrixPadding(double[][] matrix, int rows, int cols) {
-    int newSize = (int) Math.pow(2, Math.ceil(Math.log(Math.max(rows, cols)) / Math.log(2)));
-    double[][] paddedMatrix = new double[newSize][newSize];
-    for (int i = 0; i < rows; i++) {
-      System.arraycopy(matrix[i], 0, paddedMatrix[i], 0, cols);
+  private ImageModel legacy() {
+    ImageModel legacy = this.delegate;
+    if (legacy == null) {
+      legacy = new ImageModelImpl(this.pixels, this.imageAliasName);
+      this.delegate = legacy;
     }
-    return paddedMatrix;
+    return legacy;
   }
 
   /**
-   * Method to un-pad the already padded matrix.
+   * Method to get the pixel buffer of this image.
    *
-   * @param paddedMatrix matrix that is needed to be unpad.
-   * @param rows         final rows in the output matrix.
-   * @param cols         final columns in the output matrix.
-   * @return Un-padded resultant matrix.
+   * @return pixel buffer backing this image.
    */
-  private double[][] removeMatrixPadding(double[][] paddedMatrix, int rows, int cols) {
-    double[][] originalMatrix = new double[rows][cols];
-    for (int i = 0; i < rows; i++) {
-      System.arraycopy(paddedMatrix[i], 0, originalMatrix[i], 0, cols);
-    }
-    return originalMatrix;
+  PixelBuffer getPixelBuffer() {
+    return this.pixels;
   }
 
   /**
-   * Method the calculate the values of the transform array.
+   * Method to get the encoded wavelet coefficients of a compressed image, encoding them from
+   * the source on the first call.
    *
-   * @param subarray Array that is needed to be transformed.
-   * @param length   length that is needed to be transformed.
-   * @return transformed array.
+   * @return coefficients in the wavelet file format, or null if the image was not compressed.
    */
-  private double[] avgDiff(double[] subarray, int length) {
-    int resultLength = length / 2;
-    double[] avg = new double[resultLength];
-    double[] diff = new double[resultLength];
-
-    for (int i = 0, j = 0; i < length; i += 2, j++) {
-      double a = subarray[i];
-      double b = subarray[i + 1];
-
-      double av = (a + b) / Math.sqrt(2);
-      double di = (a - b) / Math.sqrt(2);
-
-      avg[j] = applyThresholdScaling(av);
-      diff[j] = applyThresholdScaling(di);
-    }
-
-    double[] result = new double[length];
-    for (int q = 0; q < resultLength; q++) {
-      result[q] = avg[q];
-    }
-    for (int q = resultLength; q < length; q++) {
-      result[q] = diff[q - resultLength];
+  byte[] getWaveletData() {
+    byte[] data = this.waveletData;
+    if (data == null && this.waveletSource != null) {
+      synchronized (this) {
+        data = this.waveletData;
+        PixelBuffer source = this.waveletSource;
+        if (data == null && source != null) {
+          int rows = HaarTransform.paddedLength(imageWidth);
+          int cols = HaarTransform.paddedLength(imageHeight);
+          data = WaveletCodec.encode(rows, cols,
+                  coefficients(source, rows, cols, this.waveletRatio), this.pixels);
+          this.waveletData = data;
+          this.waveletSource = null;
+        }
+      }
     }
-    return result;
+    return data;
   }
 
   /**
-   * Method th calculate the values of the inverse transform of array.
+   * Method to check whether the image was compressed and can be saved from its coefficients.
    *
-   * @param subArray Array that is needed to be inverse transformed.
-   * @param length   length that is needed to be inverse transformed.
-   * @return inverse transformed array.
+   * @return true if the image was compressed.
    */
-  private double[] avgDiffInv(double[] subArray, int length) {
-    int middle = length / 2;
-    double[] avg = new double[middle];
-    double[] diff = new double[middle];
-
-    for (int i = 0, j = middle; i < middle && j < length; i++, j++) {
-      double a = subArray[i];
-      double b = subArray[j];
-
-      double av = (a + b) / Math.sqrt(2);
-      double de = (a - b) / Math.sqrt(2);
-
-      avg[i] = applyThresholdScaling(av);
-      diff[i] = applyThresholdScaling(de);
-    }
-
-    double[] interleavedResult = new double[length];
-    for (int i = 0, k = 0; i < middle; i++, k += 2) {
-      interleavedResult[k] = avg[i];
-      interleavedResult[k + 1] = diff[i];
-    }
-    return interleavedResult;
+  boolean hasWaveletData() {
+    return this.waveletData != null || this.waveletSource != null;
   }
 
   /**
-   * Method to make values zero if they approach near zero values.
+   * Method to estimate the bytes kept to save the image in the wavelet format: the encoded
+   * coefficients once they are encoded, and the source pixels before.
    *
-   * @param num threshold to make value zero.
-   * @return new values of that particular value,
+   * @return estimated size, 0 if the image was not compressed.
    */
-  private double applyThresholdScaling(double num) {
-    double thresholdValue = 0.1;
-    if (Math.abs(num) <= thresholdValue) {
-      return 0;
-    } else {
-      return num;
+  long waveletSize() {
+    byte[] data = this.waveletData;
+    if (data != null) {
+      return data.length;
     }
+    PixelBuffer source = this.waveletSource;
+    return source == null ? 0 : (long) source.getWidth() * source.getHeight() * 4;
   }
 
+
   /**
-   * Method to perform 2d Haar transformation.
+   * Public method to compress the image.
    *
-   * @param image 2D matrix channel to perform haar transformation on.
-   * @param size  size of matrix to perform haar transformation on.
-   * @return Haar transformed channel matrix.
+   * @param imageAlias       image name of the new-generated image.
+   * @param compressionRatio compression percentage to compress the image upto that extent.
+   * @return A new Image Model representation of the compressed image.
    */
-  private double[][] haarTransformTwoDimension(double[][] image, int size) {
-    int c = size;
-    while (c > 1) {
-      for (int i = 0; i < c; i++) {
-        double[] subArrayRow = Arrays.copyOfRange(image[i], 0, c);
-        double[] result2 = avgDiff(subArrayRow, c);
-        System.arraycopy(result2, 0, image[i], 0, c);
-      }
-
-      for (int j = 0; j < c; j++) {
-        double[] column = new double[c];
-        for (int i = 0; i < c; i++) {
-          column[i] = image[i][j];
-        }
-        double[] subArrayColumn = avgDiff(column, c);
-        for (int i = 0; i < c; i++) {
-          image[i][j] = subArrayColumn[i];
-        }
-      }
-
-      c = c / 2;
+  @Override
+  public ImageModelNew compress(String imageAlias, Double compressionRatio)
+          throws IllegalArgumentException {
+    if (compressionRatio < 0 || compressionRatio > 1) {
+      throw new IllegalArgumentException("Invalid Compression Percentage: " +
+              "Must be between 0 and 100.");
     }
-
-    return image;
+    int rows = HaarTransform.paddedLength(imageWidth);
+    int cols = HaarTransform.paddedLength(imageHeight);
+    double[][] channels = coefficients(this.pixels, rows, cols, compressionRatio);
+    TileScheduler.forEachTask(3, (start, end) -> {
+      HaarTransform transform = new HaarTransform(rows, cols);
+      for (int c = start; c < end; c++) {
+        transform.inverse(channels[c]);
+      }
+    });
+    int[] dst = HaarTransform.packChannels(channels, imageWidth, imageHeight, cols);
+    return new ImageModelNewImpl(new PackedPixelBuffer(imageWidth, imageHeight, dst),
+            imageAlias, this.pixels, compressionRatio);
   }
 
   /**
-   * Method to perform 2d Inverse Haar transformation.
+   * Method to get the wavelet coefficients kept when compressing pixels.
    *
-   * @param image 2D matrix channel to perform inverse haar transformation on.
-   * @param s     size of matrix to perform inverse haar transformation on.
-   * @return Inverse Haar transformed channel matrix.
+   * @param pixels           pixels to transform.
+   * @param rows             padded width of the image.
+   * @param cols             padded height of the image.
+   * @param compressionRatio share of the coefficients dropped.
+   * @return thresholded red, green and blue coefficients laid out as [x][y].
    */
-  private double[][] invHaarTransformTwoDimension(double[][] image, int s) {
-    int c = 2;
-    while (c <= s) {
-      for (int j = 0; j < c; j++) {
-        double[] column = new double[c];
-        for (int i = 0; i < c; i++) {
-          column[i] = image[i][j];
-        }
-        double[] subArrayColumn = avgDiffInv(column, c);
-        for (int i = 0; i < c; i++) {
-          image[i][j] = subArrayColumn[i];
-        }
-      }
-      for (int i = 0; i < c; i++) {
-        double[] subArrayRow = Arrays.copyOfRange(image[i], 0, c);
-        double[] result2 = avgDiffInv(subArrayRow, c);
-        System.arraycopy(result2, 0, image[i], 0, c);
-      }
-      c = c * 2;
-    }
-    for (int x = 0; x < image.length; x++) {
-      for (int y = 0; y < image[0].length; y++) {
-        image[x][y] = Math.round(image[x][y]);
+  private static double[][] coefficients(PixelBuffer pixels, int rows, int cols,
+                                         double compressionRatio) {
+    double[][] channels = HaarTransform.splitChannels(pixels, rows, cols);
+    TileScheduler.forEachTask(3, (start, end) -> {
+      HaarTransform transform = new HaarTransform(rows, cols);
+      for (int c = start; c < end; c++) {
+        transform.forward(channels[c]);
       }
-    }
-    return image;
+    });
+    applyCombinedCompressionRatio(channels, compressionRatio);
+    return channels;
   }
 
   /**
-   * Method that converts given array to unique value array.
+   * Public method to adjust the color levels of an image.
    *
-   * @param array array to be converted to unique value array.
-   * @return Array with unique values.
+   * @param imageAlias image name of the new-generated image.
+   * @param b          Black value of the image.
+   * @param m          Middle value of the image.
+   * @param w          White image of the image.
+   * @param per        percentage of image.
+   * @return A new Image Model representation of the compressed image.
    */
-  private double[] getUniqueValues(double[] array) {
-    Set<Double> set = new HashSet<>();
-    for (double value : array) {
-      set.add(value);
-    }
-    double[] uniqueArray = new double[set.size()];
-    int index = 0;
-    for (double value : set) {
-      uniqueArray[index++] = value;
+  @Override
+  public ImageModelNew levelAdjust(String imageAlias, int b, int m, int w, double per)
+          throws IllegalArgumentException {
+    if (b < 0 || w > 255 || m > w || b > m) {
+      throw new IllegalArgumentException("Invalid Values: Enter B,M,W Values in Range.");
     }
-    return uniqueArray;
+    ImageModelNewImpl img = applyPointOperation(PointOperation.levels(b, m, w), imageAlias);
+    return this.split(per, img, imageAlias);
+
   }
 
   /**
    * Method to apply threshold on the transformed image.
    *
-   * @param red              red channel of the image.
-   * @param green            green channel of the image.
-   * @param blue             blue channel of the image.
+   * @param channels         transformed red, green and blue channels of the image.
    * @param compressionRatio Compression ratio value for the image to be compressed.
    */
-  private void applyCombinedCompressionRatio(double[][] red, double[][] green,
-                                             double[][] blue, double compressionRatio) {
-    int rows = red.length;
-    int cols = red[0].length;
-    for (int x = 0; x < rows; x++) {
-      for (int y = 0; y < cols; y++) {
-        if (Math.abs(Math.round(red[x][y]) - red[x][y]) < 0.1) {
-          red[x][y] = Math.round(red[x][y]);
-        }
-        if (Math.abs(Math.round(green[x][y]) - green[x][y]) < 0.1) {
-          green[x][y] = Math.round(green[x][y]);
-        }
-        if (Math.abs(Math.round(blue[x][y]) - blue[x][y]) < 0.1) {
-          blue[x][y] = Math.round(blue[x][y]);
+  private static void applyCombinedCompressionRatio(double[][] channels,
+                                                   double compressionRatio) {
+    for (double[] channel : channels) {
+      for (int i = 0; i < channel.length; i++) {
+        if (Math.abs(Math.round(channel[i]) - channel[i]) < 0.1) {
+          channel[i] = Math.round(channel[i]);
         }
       }
     }
-    double[] flattenedImage = new double[rows * cols * 3];
+    int length = channels[0].length;
+    double[] flattenedImage = new double[length * channels.length];
     int index = 0;
-    for (double[] row : red) {
-      for (double value : row) {
+    for (double[] channel : channels) {
+      for (double value : channel) {
         flattenedImage[index++] = Math.abs(value);
       }
     }
-    for (double[] row : green) {
-      for (double value : row) {
-        flattenedImage[index++] = Math.abs(value);
-      }
-    }
-    for (double[] row : blue) {
-      for (double value : row) {
-        flattenedImage[index++] = Math.abs(value);
-      }
-    }
-    double[] nonZeroValues = getUniqueValues(flattenedImage);
-    Arrays.sort(nonZeroValues);
-    int thresholdIndex = (int) (nonZeroValues.length * compressionRatio);
-    double thresholdValue;
-    if (compressionRatio == 1) {
-      thresholdValue = nonZeroValues[thresholdIndex - 1];
-    } else {
-      thresholdValue = nonZeroValues[thresholdIndex];
-    }
-    for (int i = 0; i < rows; i++) {
-      for (int j = 0; j < cols; j++) {
-        if (Math.abs(red[i][j]) <= thresholdValue) {
-          red[i][j] = 0;
-        }
-        if (Math.abs(green[i][j]) <= thresholdValue) {
-          green[i][j] = 0;
-        }
-        if (Math.abs(blue[i][j]) <= thresholdValue) {
-          blue[i][j] = 0;
+    double thresholdValue = ThresholdSelector.select(flattenedImage, compressionRatio);
+    for (double[] channel : channels) {
+      for (int i = 0; i < channel.length; i++) {
+        if (Math.abs(channel[i]) <= thresholdValue) {
+          channel[i] = 0;
         }
       }
     }
   }
 
-  /**
-   * Method to perform compression steps on channels and return a final image matrix.
-   *
-   * @param red              red channel of the image.
-   * @param green            green channel of the image.
-   * @param blue             blue channel of the image.
-   * @param compressionRatio Compression ratio value for the image to be compressed.
-   * @return returns new compressed image matrix.
-   */
-  private double[][][] performCompression(double[][] red, double[][] green, double[][] blue,
-                                          double compressionRatio) {
-    double[][] paddedMatrixRed = addMatrixPadding(red, red.length, red[0].length);
-    double[][] paddedMatrixGreen = addMatrixPadding(green, green.length, green[0].length);
-    double[][] paddedMatrixBlue = addMatrixPadding(blue, blue.length, blue[0].length);
-
-    double[][] transformedImageRed = haarTransformTwoDimension(paddedMatrixRed,
-            paddedMatrixRed.length);
-    double[][] transformedImageGreen = haarTransformTwoDimension(paddedMatrixGreen,
-            paddedMatrixGreen.length);
-    double[][] transformedImageBlue = haarTransformTwoDimension(paddedMatrixBlue,
-            paddedMatrixBlue.length);
-
-    applyCombinedCompressionRatio(transformedImageRed, transformedImageGreen,
-            transformedImageBlue, compressionRatio);
-
-    double[][] invertedImageRed = invHaarTransformTwoDimension(transformedImageRed,
-            transformedImageRed.length);
-    double[][] invertedImageGreen = invHaarTransformTwoDimension(transformedImageGreen,
-            transformedImageGreen.length);
-    double[][] invertedImageBlue = invHaarTransformTwoDimension(transformedImageBlue,
-            transformedImageBlue.length);
-
-    double[][] invertedWithoutPaddingRed = removeMatrixPadding(invertedImageRed,
-            red.length, red[0].length);
-    double[][] invertedWithoutPaddingGreen = removeMatrixPadding(invertedImageGreen,
-            green.length, green[0].length);
-    double[][] invertedWithoutPaddingBlue = removeMatrixPadding(invertedImageBlue,
-            blue.length, blue[0].length);
-
-    double[][][] result = new double[red.length][red[0].length][3];
-    for (int x = 0; x < red.length; x++) {
-      for (int y = 0; y < red[0].length; y++) {
-        result[x][y][0] = (int) (Math.round(invertedWithoutPaddingRed[x][y]));
-        result[x][y][1] = (int) (Math.round(invertedWithoutPaddingGreen[x][y]));
-        result[x][y][2] = (int) (Math.round(invertedWithoutPaddingBlue[x][y]));
-      }
-    }
-    return result;
-  }
-
-
-  /**
-   * Method to calculate the equation coefficients based on b,m,w values.
-   *
-   * @param b black value of the pixel color.
-   * @param m mid-value of the pixel color.
-   * @param w white value of the pixel color
-   * @return 3-length array with coefficients value.
-   */
-  private double[] calculateCorrectionCoeff(int b, int m, int w) {
-    double[] coefficientResults = new double[3];
-    double aValue = (m - w) * ((b * b) - (b * (m + w)) + (w * m));
-    double aAValue = (128 * w) - (255 * m) - (b * (128 - 255));
-    double bAValue = ((b * b) * (128 - 255)) + (255 * (m * m)) - (128 * (w * w));
-    double cAValue = ((b * b) * ((255 * m) - (128 * w))) - (b * ((255 * (m * m))
-            - (128 * (w * w))));
-    coefficientResults[0] = aAValue / aValue;
-    coefficientResults[1] = bAValue / aValue;
-    coefficientResults[2] = cAValue / aValue;
-    return coefficientResults;
-  }
-
-  /**
-   * Method to update the pixel values of the image as per the levels-adjust equation.
-   *
-   * @param coefficients calculated coefficients of the equations.
-   * @param pixelValue   value of pixel to be changed.
-   * @return updated pixel value as per the new equation.
-   */
-  private int applyLevelAdjustEquation(double[] coefficients, int pixelValue) {
-    return (int) ((coefficients[0] * (pixelValue * pixelValue)) +
-            (coefficients[1] * pixelValue) + (coefficients[2]));
-  }
-
   /**
    * Method to get the name of the image.
    *
@@ -502,23 +289,28 @@ public class ImageModelNewImpl implements ImageModelNew {
 
   /**
    * Method to convert he old Image to new representation.
+   * Results of the legacy model are adopted as they are, without copying their pixels.
    *
    * @param model Old representation of the image instance.
    * @return New representation of the same image.
    */
-  private ImageModelNew imageToImageNew(ImageModel model) {
-    int width = delegate.getImageWidth();
-    int height = delegate.getImageHeight();
-    int[][][] mat = new int[width][height][3];
-    for (int i = 0; i < width; i++) {
+  private ImageModelNewImpl imageToImageNew(ImageModel model) {
+    PixelBuffer buffer;
+    if (model instanceof ImageModelImpl) {
+      buffer = ((ImageModelImpl) model).getPixelBuffer();
+    } else {
+      int width = model.getImageWidth();
+      int height = model.getImageHeight();
+      int[] dst = new int[width * height];
       for (int j = 0; j < height; j++) {
-        mat[i][j][0] = model.getPixelValue(i, j, 0);
-        mat[i][j][1] = model.getPixelValue(i, j, 1);
-        mat[i][j][2] = model.getPixelValue(i, j, 2);
+        for (int i = 0; i < width; i++) {
+          dst[j * width + i] = PixelBuffer.pack(model.getPixelValue(i, j, 0),
+                  model.getPixelValue(i, j, 1), model.getPixelValue(i, j, 2));
+        }
       }
+      buffer = new PackedPixelBuffer(width, height, dst);
     }
-    ImageModelNew img = new ImageModelNewImpl(mat, delegate.getImageAliasName());
-    return img;
+    return new ImageModelNewImpl(buffer, model.getImageAliasName());
   }
 
   /**
@@ -530,8 +322,9 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
   @Override
   public ImageModelNew colorCorrect(String imageAlias, double per) {
-    int[][] lineHistogram = findFrequencyMatrix();
+    int[][] lineHistogram = new int[3][];
     for (int i = 0; i < lineHistogram.length; i++) {
+      lineHistogram[i] = findFrequencyMatrix()[i].clone();
       for (int j = 0; j <= 10; j++) {
         lineHistogram[i][j] = 0;
       }
@@ -549,19 +342,8 @@ public class ImageModelNewImpl implements ImageModelNew {
     int greenShift = avgPeak - greenPeak;
     int blueShift = avgPeak - bluePeak;
 
-    int[][][] colorMatrix = new int[imageWidth][imageHeight][3];
-
-    for (int i = 0; i < colorMatrix.length; i++) {
-      for (int j = 0; j < colorMatrix[0].length; j++) {
-
-        colorMatrix[i][j][0] = imageMatrix[i][j][0] + redShift;
-        colorMatrix[i][j][1] = imageMatrix[i][j][1] + greenShift;
-        colorMatrix[i][j][2] = imageMatrix[i][j][2] + blueShift;
-
-      }
-    }
-    this.clamp(colorMatrix);
-    ImageModelNew img = new ImageModelNewImpl(colorMatrix, imageAlias);
+    ImageModelNewImpl img = applyPointOperation(
+            PointOperation.offset(redShift, greenShift, blueShift), imageAlias);
     return this.split(per, img, imageAlias);
 
   }
@@ -586,23 +368,62 @@ public class ImageModelNewImpl implements ImageModelNew {
 
   /**
    * Method to count and get frequency of ech unique pixel in an image.
+   * The counts are kept with the image, so callers must not modify them.
    *
    * @return calculated frequency matrix of all the 3 channels of image.
    */
   private int[][] findFrequencyMatrix() {
-    int[][] lineHistogram = new int[3][256];
-
-    for (int x = 0; x < imageWidth; x++) {
-      for (int y = 0; y < imageHeight; y++) {
-        // Update histograms
-        lineHistogram[0][imageMatrix[x][y][0]]++;
-        lineHistogram[1][imageMatrix[x][y][1]]++;
-        lineHistogram[2][imageMatrix[x][y][2]]++;
-      }
+    int[][] lineHistogram = this.frequencies;
+    if (lineHistogram == null) {
+      int[][] counts = new int[3][256];
+      int[] src = this.pixels.getPixels();
+      TileScheduler.forEachPixel(src.length, (start, end) -> {
+        int[][] band = new int[3][256];
+        for (int i = start; i < end; i++) {
+          int rgb = src[i];
+          // Update histograms
+          band[0][(rgb >> 16) & 0xFF]++;
+          band[1][(rgb >> 8) & 0xFF]++;
+          band[2][rgb & 0xFF]++;
+        }
+        synchronized (counts) {
+          for (int c = 0; c < 3; c++) {
+            for (int v = 0; v < 256; v++) {
+              counts[c][v] += band[c][v];
+            }
+          }
+        }
+      });
+      lineHistogram = counts;
+      this.frequencies = lineHistogram;
     }
     return lineHistogram;
   }
 
+  /**
+   * Method to apply a point operation, handing the histogram of this image over to the result
+   * when it is known. Each channel value maps to one new value, so the count of a new value is
+   * the sum of the counts of the values mapping to it.
+   *
+   * @param operation  operation to apply.
+   * @param imageAlias name of the new image.
+   * @return new image.
+   */
+  private ImageModelNewImpl applyPointOperation(PointOperation operation, String imageAlias) {
+    ImageModelNewImpl img = new ImageModelNewImpl(operation.apply(this.pixels), imageAlias);
+    int[][] counts = this.frequencies;
+    if (counts != null) {
+      int[][] mapped = new int[3][256];
+      for (int c = 0; c < 3; c++) {
+        for (int v = 0; v < 256; v++) {
+          mapped[c][operation.map(c, v)] += counts[c][v];
+        }
+      }
+      img.frequencies = mapped;
+    }
+    return img;
+  }
+
   /**
    * Method to generate Histogram of Given Image.
    *
@@ -611,18 +432,21 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
   @Override
   public ImageModelNew generateHistogram(String imageAlias) {
-    int[][] lineHistogram = findFrequencyMatrix();
-    int[][][] imageMatrix1 = this.makeHistogram(lineHistogram);
-    return new ImageModelNewImpl(imageMatrix1, imageAlias);
+    PixelBuffer histogram = this.histogramPixels;
+    if (histogram == null) {
+      histogram = this.makeHistogram(findFrequencyMatrix());
+      this.histogramPixels = histogram;
+    }
+    return new ImageModelNewImpl(histogram, imageAlias);
   }
 
   /**
    * Method to create a histogram from the pixel frequencies.
    *
    * @param lineHistogram frequencies of the pixels to create histogram.
-   * @return calculated histogram matrix.
+   * @return calculated histogram pixels.
    */
-  private int[][][] makeHistogram(int[][] lineHistogram) {
+  private PixelBuffer makeHistogram(int[][] lineHistogram) {
     int imageWidth = 256;
     int imageHeight = 256;
     int gridlines = 20;
@@ -650,31 +474,20 @@ public class ImageModelNewImpl implements ImageModelNew {
     drawRGBHistogram(g, imageWidth, imageHeight, Color.GREEN, lineHistogram[1], scale);
     drawRGBHistogram(g, imageWidth, imageHeight, Color.BLUE, lineHistogram[2], scale);
 
-    int[][][] matrix = this.imageToMatrix(image);
+    PixelBuffer histogram = this.imageToBuffer(image);
     g.dispose();
 
-    return matrix;
+    return histogram;
   }
 
   /**
-   * Method to convert a buffered image representation to matrix representation.
+   * Method to convert a buffered image representation to pixel buffer representation.
    *
-   * @param image buffered image object that is needed to be converted into matrix form.
-   * @return converted image matrix.
+   * @param image buffered image object that is needed to be converted into buffer form.
+   * @return converted pixel buffer.
    */
-  private int[][][] imageToMatrix(BufferedImage image) {
-    int width = image.getWidth();
-    int height = image.getHeight();
-    int[][][] mat = new int[width][height][3];
-    for (int i = 0; i < width; i++) {
-      for (int j = 0; j < height; j++) {
-        int rgb = image.getRGB(i, j);
-        mat[i][j][0] = (rgb >> 16) & 0xFF;
-        mat[i][j][1] = (rgb >> 8) & 0xFF;
-        mat[i][j][2] = rgb & 0xFF;
-      }
-    }
-    return mat;
+  private PixelBuffer imageToBuffer(BufferedImage image) {
+    return RasterConverter.fromImage(image);
   }
 
   /**
@@ -743,7 +556,7 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
   @Override
   public ImageModelNew generateRed(String imageAlias) {
-    ImageModelNew img = imageToImageNew(delegate.generateRed(imageAlias));
+    ImageModelNew img = imageToImageNew(legacy().generateRed(imageAlias));
     return img;
   }
 
@@ -755,7 +568,7 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
 
   public ImageModelNew generateGreen(String imageAlias) {
-    ImageModelNew img = imageToImageNew(delegate.generateGreen(imageAlias));
+    ImageModelNew img = imageToImageNew(legacy().generateGreen(imageAlias));
     return img;
   }
 
@@ -767,7 +580,7 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
 
   public ImageModelNew generateBlue(String imageAlias) {
-    ImageModelNew img = imageToImageNew(delegate.generateBlue(imageAlias));
+    ImageModelNew img = imageToImageNew(legacy().generateBlue(imageAlias));
     return img;
   }
 
@@ -780,7 +593,7 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
   @Override
   public ImageModelNew blur(String imageAlias, double per) throws IllegalArgumentException {
-    ImageModelNew img = imageToImageNew(delegate.blur(imageAlias));
+    ImageModelNewImpl img = imageToImageNew(legacy().blur(imageAlias));
     return this.split(per, img, imageAlias);
   }
 
@@ -792,24 +605,26 @@ public class ImageModelNewImpl implements ImageModelNew {
    * @param imageAlias name of the image.
    * @return New instance of modified model.
    */
-  private ImageModelNew split(double per, ImageModelNew img, String imageAlias) {
+  private ImageModelNew split(double per, ImageModelNewImpl img, String imageAlias) {
     if (per < 0 || per > 100) {
       throw new IllegalArgumentException("Percentage should be between 0 and 100.");
     }
     int w = (int) (per * imageWidth) / 100;
-    int[][][] mat = new int[imageWidth][imageHeight][3];
-    for (int i = 0; i < imageWidth; i++) {
-      for (int j = 0; j < imageHeight; j++) {
-        for (int k = 0; k < 3; k++) {
-          if (i < w) {
-            mat[i][j][k] = img.getPixelValue(i, j, k);
-          } else {
-            mat[i][j][k] = this.imageMatrix[i][j][k];
-          }
-        }
-      }
+    if (w == imageWidth) {
+      return img;
     }
-    return new ImageModelNewImpl(mat, imageAlias);
+    if (w == 0) {
+      return new ImageModelNewImpl(this.pixels, imageAlias);
+    }
+    int[] src = this.pixels.getPixels();
+    int[] processed = img.getPixelBuffer().getPixels();
+    int[] dst = new int[src.length];
+    for (int j = 0; j < imageHeight; j++) {
+      int row = j * imageWidth;
+      System.arraycopy(processed, row, dst, row, w);
+      System.arraycopy(src, row + w, dst, row + w, imageWidth - w);
+    }
+    return new ImageModelNewImpl(new PackedPixelBuffer(imageWidth, imageHeight, dst), imageAlias);
   }
 
   /**
@@ -821,7 +636,7 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
   @Override
   public ImageModelNew sharpen(String imageAlias, double per) throws IllegalArgumentException {
-    ImageModelNew img = imageToImageNew(delegate.sharpen(imageAlias));
+    ImageModelNewImpl img = imageToImageNew(legacy().sharpen(imageAlias));
     return this.split(per, img, imageAlias);
   }
 
@@ -834,8 +649,7 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
   @Override
   public ImageModelNew bright(int value, String imageAlias) {
-    ImageModelNew img = imageToImageNew(delegate.bright(value, imageAlias));
-    return img;
+    return applyPointOperation(PointOperation.offset(value, value, value), imageAlias);
   }
 
   /**
@@ -847,7 +661,7 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
   @Override
   public ImageModelNew greyscale(String imageAlias, double per) throws IllegalArgumentException {
-    ImageModelNew img = imageToImageNew(delegate.greyscale(imageAlias));
+    ImageModelNewImpl img = imageToImageNew(legacy().greyscale(imageAlias));
     return this.split(per, img, imageAlias);
   }
 
@@ -860,7 +674,7 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
   @Override
   public ImageModelNew sepia(String imageAlias, double per) throws IllegalArgumentException {
-    ImageModelNew img = imageToImageNew(delegate.sepia(imageAlias));
+    ImageModelNewImpl img = imageToImageNew(legacy().sepia(imageAlias));
     return this.split(per, img, imageAlias);
   }
 
@@ -872,7 +686,7 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
   @Override
   public ImageModelNew intensity(String imageAlias) {
-    ImageModelNew img = imageToImageNew(delegate.intensity(imageAlias));
+    ImageModelNew img = imageToImageNew(legacy().intensity(imageAlias));
     return img;
   }
 
@@ -884,7 +698,7 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
   @Override
   public ImageModelNew maxValue(String imageAlias) {
-    ImageModelNew img = imageToImageNew(delegate.maxValue(imageAlias));
+    ImageModelNew img = imageToImageNew(legacy().maxValue(imageAlias));
     return img;
   }
 
@@ -896,7 +710,8 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
   @Override
   public ImageModelNew verticalFlipImage(String imageAlias) {
-    ImageModelNew img = imageToImageNew(delegate.verticalFlipImage(imageAlias));
+    ImageModelNewImpl img = imageToImageNew(legacy().verticalFlipImage(imageAlias));
+    img.frequencies = this.frequencies;
     return img;
   }
 
@@ -908,7 +723,8 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
   @Override
   public ImageModelNew horizontalFlipImage(String imageAlias) {
-    ImageModelNew img = imageToImageNew(delegate.horizontalFlipImage(imageAlias));
+    ImageModelNewImpl img = imageToImageNew(legacy().horizontalFlipImage(imageAlias));
+    img.frequencies = this.frequencies;
     return img;
   }
 
@@ -926,7 +742,7 @@ public class ImageModelNewImpl implements ImageModelNew {
                                         String imageAlias) {
     ImageModel g = this.imageNewToImage(green);
     ImageModel b = this.imageNewToImage(blue);
-    ImageModelNew img = imageToImageNew(delegate.merge3components(g, b, imageAlias));
+    ImageModelNew img = imageToImageNew(legacy().merge3components(g, b, imageAlias));
     return img;
   }
 
@@ -937,17 +753,21 @@ public class ImageModelNewImpl implements ImageModelNew {
    * @return New representation of the same image.
    */
   private ImageModel imageNewToImage(ImageModelNew model) {
+    if (model instanceof ImageModelNewImpl) {
+      return new ImageModelImpl(((ImageModelNewImpl) model).getPixelBuffer(),
+              this.imageAliasName);
+    }
     int width = model.getImageWidth();
     int height = model.getImageHeight();
-    int[][][] mat = new int[width][height][3];
-    for (int i = 0; i < width; i++) {
-      for (int j = 0; j < height; j++) {
-        mat[i][j][0] = model.getPixelValue(i, j, 0);
-        mat[i][j][1] = model.getPixelValue(i, j, 1);
-        mat[i][j][2] = model.getPixelValue(i, j, 2);
+    int[] dst = new int[width * height];
+    for (int j = 0; j < height; j++) {
+      for (int i = 0; i < width; i++) {
+        dst[j * width + i] = PixelBuffer.pack(model.getPixelValue(i, j, 0),
+                model.getPixelValue(i, j, 1), model.getPixelValue(i, j, 2));
       }
     }
-    ImageModel img = new ImageModelImpl(mat, delegate.getImageAliasName());
+    ImageModel img = new ImageModelImpl(new PackedPixelBuffer(width, height, dst),
+            this.imageAliasName);
     return img;
   }
 
@@ -962,7 +782,7 @@ public class ImageModelNewImpl implements ImageModelNew {
    */
 
   public int getPixelValue(int i, int j, int channel) {
-    return this.imageMatrix[i][j][channel];
+    return this.pixels.getChannel(i, j, channel);
   }
 
   /**
@@ -2,9 +2,14 @@ package model;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
 
 /**
  * Interface that is used by controller ad model for storing the instances of Images.
+ * Implementations may be shared between threads: storing an image happens-before any thread
+ * getting it, and since image models are never modified after they are built, every thread
+ * getting an image sees all of its pixels.
  */
 public interface ImageModelStore {
   /**
@@ -23,6 +28,34 @@ public interface ImageModelStore {
    */
   void loadImage(ImageModelNew image, String aliasName);
 
+  /**
+   * Method to store an image only if no image is stored under the alias yet, as one atomic
+   * step.
+   *
+   * @param image     Image Model instance that is to be stored.
+   * @param aliasName Image name of the image.
+   * @return image already stored under the alias, or null if the given image was stored.
+   */
+  ImageModelNew loadImageIfAbsent(ImageModelNew image, String aliasName);
+
+  /**
+   * Method to get the image of an alias, creating and storing it first if there is none.
+   * When several threads ask for the same missing alias, the image is created only once.
+   *
+   * @param aliasName Image name of the image.
+   * @param creator   function creating the image from the alias, may return null.
+   * @return image of the alias, or null if there was none and the function returned null.
+   */
+  ImageModelNew getOrCreateImage(String aliasName, Function<String, ImageModelNew> creator);
+
+  /**
+   * Method to get the aliases of all stored images, in alphabetical order.
+   * The list is a snapshot that later changes of the store do not affect.
+   *
+   * @return sorted list of aliases.
+   */
+  List<String> getAliases();
+
   /**
    * Method that helps the image to get loaded in the application.
    *
@@ -32,6 +65,7 @@ public interface ImageModelStore {
 
   /**
    * Method that helps controller to save the image.
+   * An optional fourth word "p6" saves a PPM image as a binary P6 file instead of plain P3.
    *
    * @param words operation words in an array.
    * @throws IOException If the save path is not present.
@@ -39,7 +73,8 @@ public interface ImageModelStore {
   void saveHelper(String[] words) throws IOException;
 
   /**
-   * Method to get the processed image from Map.
+   * Method to get the processed image from Map. The returned image may be shared with other
+   * callers asking for the same alias, so it must not be modified.
    *
    * @param aliasName Name of the image to get.
    * @return The buffered image instance of the getting image.
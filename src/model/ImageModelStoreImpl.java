@@ -2,39 +2,87 @@ package model;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Scanner;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Function;
 
 import javax.imageio.ImageIO;
 
 /**
  * Class that stores all the instance sof the processed images that are being currently worked on.
+ * The map of images is concurrent, so controllers on several threads may share one store, and
+ * keeps the pixels in memory under a budget by spilling least recently used images to disk.
  */
 public class ImageModelStoreImpl implements ImageModelStore {
-  private Map<String, ImageModelNew> loadedImageMap;
+  private static final String BINARY_PPM_FLAG = "p6";
+  private static final String BUDGET_PROPERTY = "image.store.budget";
+  private final SpillingImageMap loadedImageMap;
+  private final boolean lazy;
 
   /**
    * Constructor that create a map to track the loaded images.
    */
   public ImageModelStoreImpl() {
-    this.loadedImageMap = new HashMap<>();
+    this(false);
+  }
+
+  /**
+   * Constructor that create a map to track the loaded images, optionally deferring operations.
+   * In lazy mode loaded images record their point operations and colour transforms instead of
+   * running them, and an image is only computed when it is saved, displayed or needed by an
+   * operation that reads whole images, with all its recorded steps fused into one pass.
+   *
+   * @param lazy true to defer operations until their result is needed.
+   * @throws IllegalArgumentException if the image.store.budget property is not a valid budget.
+   */
+  public ImageModelStoreImpl(boolean lazy) throws IllegalArgumentException {
+    this(lazy, defaultBudget());
+  }
+
+  /**
+   * Constructor that create a map to track the loaded images within a memory budget.
+   * When the pixels of the stored images go over the budget, the least recently used images
+   * are spilled to disk and read back when their alias is used again.
+   *
+   * @param lazy   true to defer operations until their result is needed.
+   * @param budget maximum bytes of pixels kept in memory.
+   * @throws IllegalArgumentException if the budget is negative.
+   */
+  public ImageModelStoreImpl(boolean lazy, long budget) throws IllegalArgumentException {
+    this.loadedImageMap = new SpillingImageMap(budget);
+    this.lazy = lazy;
   }
 
   /**
    * Constructor that create a map to track the loaded images with initial map.
    */
   public ImageModelStoreImpl(String alias, ImageModelNew img) {
-    this.loadedImageMap = new HashMap<>();
+    this(false);
     this.loadedImageMap.put(alias, img);
   }
 
+  /**
+   * Method to get the memory budget set by the image.store.budget system property, in bytes,
+   * or half of the maximum heap when it is not set.
+   *
+   * @return memory budget in bytes.
+   * @throws IllegalArgumentException if the property is not a whole number of bytes.
+   */
+  private static long defaultBudget() throws IllegalArgumentException {
+    String value = System.getProperty(BUDGET_PROPERTY);
+    if (value == null) {
+      return Runtime.getRuntime().maxMemory() / 2;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid " + BUDGET_PROPERTY + ": " + value, e);
+    }
+  }
+
   /**
    * Return Image for given alias.
    *
@@ -43,7 +91,7 @@ public class ImageModelStoreImpl implements ImageModelStore {
    */
   @Override
   public ImageModelNew getImageForAlias(String aliasName) {
-    return loadedImageMap.get(aliasName);
+    return this.loadedImageMap.get(aliasName);
   }
 
   /**
@@ -57,6 +105,42 @@ public class ImageModelStoreImpl implements ImageModelStore {
     this.loadedImageMap.put(aliasName, image);
   }
 
+  /**
+   * Method to store an image only if no image is stored under the alias yet, as one atomic
+   * step.
+   *
+   * @param image     Image Model instance that is to be stored.
+   * @param aliasName Image name of the image.
+   * @return image already stored under the alias, or null if the given image was stored.
+   */
+  @Override
+  public ImageModelNew loadImageIfAbsent(ImageModelNew image, String aliasName) {
+    return this.loadedImageMap.putIfAbsent(aliasName, image);
+  }
+
+  /**
+   * Method to get the image of an alias, creating and storing it first if there is none.
+   *
+   * @param aliasName Image name of the image.
+   * @param creator   function creating the image from the alias, may return null.
+   * @return image of the alias, or null if there was none and the function returned null.
+   */
+  @Override
+  public ImageModelNew getOrCreateImage(String aliasName,
+                                        Function<String, ImageModelNew> creator) {
+    return this.loadedImageMap.computeIfAbsent(aliasName, creator);
+  }
+
+  /**
+   * Method to get the aliases of all stored images, in alphabetical order.
+   *
+   * @return sorted snapshot of the aliases.
+   */
+  @Override
+  public List<String> getAliases() {
+    return this.loadedImageMap.aliases();
+  }
+
   /**
    * Method that helps the image to get loaded in the application.
    *
@@ -66,90 +150,84 @@ public class ImageModelStoreImpl implements ImageModelStore {
   public void loadHelper(String[] words) {
     String imagePath = words[1];
     String nameOfImage = words[2];
-    if (checkImageType(imagePath) != null) {
-      ImageModelNew image = new ImageModelNewImpl(Objects.requireNonNull(checkImageType(imagePath)),
-              nameOfImage);
-      loadImage(image, nameOfImage);
+    int level = 0;
+    if (words.length > 3) {
+      try {
+        level = Integer.parseInt(words[3]);
+      } catch (NumberFormatException e) {
+        level = -1;
+      }
+      if (level < 0 || !isWaveletFile(imagePath)) {
+        System.out.println("Invalid resolution level: " + words[3]);
+        return;
+      }
+    }
+    PixelBuffer pixels = checkImageType(imagePath, level);
+    if (pixels != null) {
+      ImageModelNew image = new ImageModelNewImpl(pixels, nameOfImage);
+      loadImage(this.lazy ? LazyImageModel.of(image) : image, nameOfImage);
     } else {
       System.out.println("File Not Exists!");
     }
   }
 
   /**
-   * Constructor helper function to fetch the image from path and set it into matrix.
+   * Constructor helper function to fetch the image from path and read its pixels.
    *
    * @param inputPath Input path of the image.
+   * @param level     number of halvings of the resolution of a wavelet file, 0 otherwise.
+   * @return pixels of the image, or null if it could not be read.
    */
-  private int[][][] checkImageType(String inputPath) {
-    File imageFile;
-    BufferedImage inputImage;
-    int[][][] imageMatrix = new int[3][][];
-
+  private PixelBuffer checkImageType(String inputPath, int level) {
     try {
       String fileTypeString = inputPath.substring(inputPath.length() - 3);
-      if (fileTypeString.equals("ppm")) {
-        Scanner sc;
+      if (isWaveletFile(inputPath)) {
         try {
-          sc = new Scanner(new FileInputStream(inputPath));
+          return WaveletCodec.read(inputPath, level);
         } catch (FileNotFoundException e) {
           System.out.println("File " + inputPath + " not found!");
           return null;
         }
-        StringBuilder builder = new StringBuilder();
-        while (sc.hasNextLine()) {
-          String s = sc.nextLine();
-          if (s.charAt(0) != '#') {
-            builder.append(s + System.lineSeparator());
-          }
-        }
-        sc = new Scanner(builder.toString());
-        String token;
-        token = sc.next();
-        if (!token.equals("P3")) {
-          System.out.println("Invalid PPM file: plain RAW file should begin with P3");
-        }
-        int width = sc.nextInt();
-        int height = sc.nextInt();
-        int maxValue = sc.nextInt();
-        imageMatrix = new int[width][height][3];
-
-        for (int i = 0; i < height; i++) {
-          for (int j = 0; j < width; j++) {
-            int r = sc.nextInt();
-            int g = sc.nextInt();
-            int b = sc.nextInt();
-            imageMatrix[j][i][0] = r;
-            imageMatrix[j][i][1] = g;
-            imageMatrix[j][i][2] = b;
-          }
+      } else if (fileTypeString.equals("ppm")) {
+        try {
+          return PpmReader.read(inputPath);
+        } catch (FileNotFoundException e) {
+          System.out.println("File " + inputPath + " not found!");
+          return null;
         }
       } else {
-        imageFile = new File(inputPath);
+        File imageFile = new File(inputPath);
         if (!imageFile.exists()) {
           return null;
         }
-        inputImage = ImageIO.read(imageFile);
-        int width = inputImage.getWidth();
-        int height = inputImage.getHeight();
-        imageMatrix = new int[width][height][3];
-        for (int i = 0; i < width; i++) {
-          for (int j = 0; j < height; j++) {
-            int rgb = inputImage.getRGB(i, j);
-            imageMatrix[i][j][0] = (rgb >> 16) & 0xFF;
-            imageMatrix[i][j][1] = (rgb >> 8) & 0xFF;
-            imageMatrix[i][j][2] = rgb & 0xFF;
-          }
+        BufferedImage inputImage = ImageIO.read(imageFile);
+        if (inputImage == null) {
+          return null;
         }
+        return RasterConverter.fromImage(inputImage);
       }
     } catch (IOException e) {
       System.out.println("Exception: " + e);
+      return null;
     }
-    return imageMatrix;
   }
 
 
+  /**
+   * Method to check whether a path names a file in the wavelet format.
+   *
+   * @param path path of the file.
+   * @return true if the path has the wavelet extension.
+   */
+  private boolean isWaveletFile(String path) {
+    return path.toLowerCase().endsWith("." + WaveletCodec.EXTENSION);
+  }
+
   /**
    * Method that helps controller to save the image.
+   * PPM images are saved as plain P3 files unless a fourth word "p6" asks for a binary file.
+   * Images saved with the wavelet extension keep their coefficients, reusing those of a
+   * compressed image as they are.
    *
    * @param words operation words in an array.
    * @throws IOException If the save path is not present.
@@ -158,30 +236,66 @@ public class ImageModelStoreImpl implements ImageModelStore {
   public void saveHelper(String[] words) throws IOException {
     String destinationPath = words[1];
     String imageName = words[2];
-    ImageModelNew img = getImageForAlias(imageName);
+    boolean binary = words.length > 3 && words[3].equalsIgnoreCase(BINARY_PPM_FLAG);
+    if (isWaveletFile(destinationPath)) {
+      saveWavelet(getImageForAlias(imageName), destinationPath);
+      return;
+    }
+    saveImage(toPixelBuffer(getImageForAlias(imageName)), destinationPath, binary);
+  }
+
+  /**
+   * Method to save an image in the wavelet format.
+   *
+   * @param img      image model to save.
+   * @param fileName path of the file.
+   * @throws IOException if the file cannot be written.
+   */
+  private void saveWavelet(ImageModelNew img, String fileName) throws IOException {
+    img = LazyImageModel.materialize(img);
+    byte[] data = null;
+    if (img instanceof ImageModelNewImpl) {
+      data = ((ImageModelNewImpl) img).getWaveletData();
+    }
+    if (data == null) {
+      data = WaveletCodec.encode(toPixelBuffer(img));
+    }
+    Files.write(Paths.get(fileName), data);
+  }
+
+  /**
+   * Method to get the pixels of a model, sharing them when the model already holds a buffer.
+   *
+   * @param img image model.
+   * @return pixels of the image.
+   */
+  private PixelBuffer toPixelBuffer(ImageModelNew img) {
+    img = LazyImageModel.materialize(img);
+    if (img instanceof ImageModelNewImpl) {
+      return ((ImageModelNewImpl) img).getPixelBuffer();
+    }
     int width = img.getImageWidth();
     int height = img.getImageHeight();
-    int[][][] matrix = new int[width][height][3];
-    for (int i = 0; i < width; i++) {
-      for (int j = 0; j < height; j++) {
-        for (int c = 0; c < 3; c++) {
-          matrix[i][j][c] = img.getPixelValue(i, j, c);
-        }
+    int[] pixels = new int[width * height];
+    for (int j = 0; j < height; j++) {
+      for (int i = 0; i < width; i++) {
+        pixels[j * width + i] = PixelBuffer.pack(img.getPixelValue(i, j, 0),
+                img.getPixelValue(i, j, 1), img.getPixelValue(i, j, 2));
       }
     }
-    saveImage(matrix, destinationPath);
+    return new PackedPixelBuffer(width, height, pixels);
   }
 
   /**
    * Saves image at a given path.
    *
-   * @param imageMatrix matrix to generate image to save.
-   * @param fileName    image name that is to be saved.
+   * @param pixels   pixels of the image to save.
+   * @param fileName image name that is to be saved.
+   * @param binary   true to save a PPM image as a binary P6 file.
    * @throws IOException id the save path doesn't exist.
    */
-  private void saveImage(int[][][] imageMatrix, String fileName) throws IOException {
-    int width = imageMatrix.length;
-    int height = imageMatrix[0].length;
+  private void saveImage(PixelBuffer pixels, String fileName, boolean binary)
+          throws IOException {
     int lastDotIndex = fileName.lastIndexOf('.');
     String format = fileName.substring(lastDotIndex + 1).toLowerCase();
 
@@ -196,41 +310,10 @@ public class ImageModelStoreImpl implements ImageModelStore {
     if (pathExist) {
 
       if (format.equals("ppm")) {
-        FileWriter fileWriter = new FileWriter(fileName);
-        PrintWriter printWriter = new PrintWriter(fileWriter);
-
-        // Write the PPM header
-        printWriter.println("P3");
-        printWriter.println(width + " " + height);
-        printWriter.println("255"); // Maximum color value
-
-        // Write the image data
-        for (int y = 0; y < height; y++) {
-          for (int x = 0; x < width; x++) {
-            int red = imageMatrix[x][y][0];
-            int green = imageMatrix[x][y][1];
-            int blue = imageMatrix[x][y][2];
-            printWriter.println(red);
-            printWriter.println(green);
-            printWriter.println(blue);
-          }
-        }
-        printWriter.close();
-        fileWriter.close();
+        PpmWriter.write(pixels, fileName, binary);
       } else {
-        BufferedImage newImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-        for (int x = 0; x < width; x++) {
-          for (int y = 0; y < height; y++) {
-            int rgb = (imageMatrix[x][y][0] << 16) |
-                    (imageMatrix[x][y][1] << 8) |
-                    (imageMatrix[x][y][2]);
-            newImage.setRGB(x, y, rgb);
-          }
-        }
-
         File outputImageFile = new File(fileName);
-        ImageIO.write(newImage, format, outputImageFile);
+        ImageIO.write(RasterConverter.toImage(pixels), format, outputImageFile);
       }
     } else {
       throw new FileNotFoundException();
@@ -239,24 +322,14 @@ public class ImageModelStoreImpl implements ImageModelStore {
 
   /**
    * Method to get the buffered image instance of processed form the map.
+   * It is built once per stored image and kept, within the memory budget, until the alias is
+   * replaced, so asking again for an unchanged alias returns the same instance.
    *
    * @param aliasName Name of the image to get.
-   * @return instance of buffered image.
+   * @return instance of buffered image, which must not be modified.
    */
   public BufferedImage getBufferedImage(String aliasName) {
-    ImageModelNew image = loadedImageMap.get(aliasName);
-    int width = image.getImageWidth();
-    int height = image.getImageHeight();
-    BufferedImage newImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-    for (int x = 0; x < width; x++) {
-      for (int y = 0; y < height; y++) {
-        int rgb = (image.getPixelValue(x, y, 0) << 16) |
-                (image.getPixelValue(x, y, 1) << 8) |
-                (image.getPixelValue(x, y, 2));
-        newImage.setRGB(x, y, rgb);
-      }
-    }
-    return newImage;
+    return this.loadedImageMap.getDisplay(aliasName,
+            image -> RasterConverter.toImage(toPixelBuffer(image)));
   }
 }
@@ -0,0 +1,82 @@
+package model;
+
+/**
+ * Reduces images to fit a display area, for previews that do not need every pixel.
+ * The image is shrunk by a whole factor, the smallest that makes it fit, and every pixel of
+ * the result is the average of the block of pixels it replaces, so edges and noise do not
+ * alias. Blocks at the right and bottom border may be smaller than the others.
+ */
+public final class ImageScaler {
+
+  /**
+   * Constructor hidden, the class only has static methods.
+   */
+  private ImageScaler() {
+  }
+
+  /**
+   * Method to shrink an image until it fits within a size.
+   *
+   * @param image      image to shrink.
+   * @param maxWidth   largest width allowed.
+   * @param maxHeight  largest height allowed.
+   * @param imageAlias name of the shrunk image.
+   * @return shrunk image, or the image itself if it fits or is not held as pixels.
+   * @throws IllegalArgumentException if the size is not positive.
+   */
+  public static ImageModelNew fitWithin(ImageModelNew image, int maxWidth, int maxHeight,
+                                        String imageAlias) throws IllegalArgumentException {
+    if (maxWidth < 1 || maxHeight < 1) {
+      throw new IllegalArgumentException("Size should be positive.");
+    }
+    if (!(image instanceof ImageModelNewImpl || image instanceof LazyImageModel)) {
+      return image;
+    }
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int factor = Math.max(ceilDiv(width, maxWidth), ceilDiv(height, maxHeight));
+    if (factor <= 1) {
+      return image;
+    }
+    int[] src = ((ImageModelNewImpl) LazyImageModel.materialize(image)).getPixelBuffer()
+            .getPixels();
+    int outWidth = ceilDiv(width, factor);
+    int outHeight = ceilDiv(height, factor);
+    int[] dst = new int[outWidth * outHeight];
+    TileScheduler.forEachRow(outWidth, outHeight, (start, end) -> {
+      for (int y = start; y < end; y++) {
+        int top = y * factor;
+        int bottom = Math.min(height, top + factor);
+        for (int x = 0; x < outWidth; x++) {
+          int left = x * factor;
+          int right = Math.min(width, left + factor);
+          int r = 0;
+          int g = 0;
+          int b = 0;
+          for (int j = top; j < bottom; j++) {
+            for (int i = j * width + left; i < j * width + right; i++) {
+              int rgb = src[i];
+              r += (rgb >> 16) & 0xFF;
+              g += (rgb >> 8) & 0xFF;
+              b += rgb & 0xFF;
+            }
+          }
+          int count = (bottom - top) * (right - left);
+          dst[y * outWidth + x] = (r / count) << 16 | (g / count) << 8 | (b / count);
+        }
+      }
+    });
+    return new ImageModelNewImpl(new PackedPixelBuffer(outWidth, outHeight, dst), imageAlias);
+  }
+
+  /**
+   * Method to divide rounding up.
+   *
+   * @param value   value to divide.
+   * @param divisor positive divisor.
+   * @return smallest whole number not below the quotient.
+   */
+  private static int ceilDiv(int value, int divisor) {
+    return (value + divisor - 1) / divisor;
+  }
+}
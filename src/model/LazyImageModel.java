@@ -0,0 +1,467 @@
+package model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Image whose point operations and colour transforms are recorded instead of run.
+ * Each node holds a materialised source image and the stages to apply to it, so the images of
+ * a script form a graph keyed by alias in the store where only the nodes that are actually
+ * read, saved or used by an operation that needs whole images are ever computed. All stages of
+ * a node run in a single pass over the source, and consecutive lookup-table stages with the
+ * same split are composed into one table. Partial (split) operations keep the number of
+ * columns they apply to, so they fuse as well. Operations that look at more than one pixel,
+ * such as blur, flips, compression, colour correction or histograms, materialise this node and
+ * start a new chain from their result. Nodes are immutable and compute their image at most once.
+ */
+final class LazyImageModel implements ImageModelNew {
+  private final ImageModelNewImpl source;
+  private final List<Stage> stages;
+  private final String imageAliasName;
+  private volatile ImageModelNewImpl result;
+
+  /**
+   * One recorded per-pixel step applied to the columns left of a limit.
+   */
+  private static final class Stage {
+    private final PixelFunction function;
+    private final PointOperation table;
+    private final int limit;
+
+    /**
+     * Constructor for a stage.
+     *
+     * @param function per-pixel function of the stage.
+     * @param table    lookup table the function applies, or null if it is not a table.
+     * @param limit    number of columns, from the left, the stage applies to.
+     */
+    Stage(PixelFunction function, PointOperation table, int limit) {
+      this.function = function;
+      this.table = table;
+      this.limit = limit;
+    }
+  }
+
+  /**
+   * Function mapping one packed pixel to another.
+   */
+  private interface PixelFunction {
+    /**
+     * Method to compute the new pixel.
+     *
+     * @param rgb packed pixel.
+     * @return packed new pixel.
+     */
+    int apply(int rgb);
+  }
+
+  /**
+   * Constructor for a node.
+   *
+   * @param source         materialised image the stages apply to.
+   * @param stages         recorded stages, not copied.
+   * @param imageAliasName name of the image.
+   */
+  private LazyImageModel(ImageModelNewImpl source, List<Stage> stages, String imageAliasName) {
+    this.source = source;
+    this.stages = stages;
+    this.imageAliasName = imageAliasName;
+    this.result = stages.isEmpty() ? source : null;
+  }
+
+  /**
+   * Method to start a lazy chain from an image.
+   *
+   * @param image image to wrap.
+   * @return lazy image with no recorded stages, or the image itself if it cannot be wrapped.
+   */
+  static ImageModelNew of(ImageModelNew image) {
+    if (image instanceof ImageModelNewImpl) {
+      return new LazyImageModel((ImageModelNewImpl) image, Collections.emptyList(),
+              image.getImageAliasName());
+    }
+    return image;
+  }
+
+  /**
+   * Method to get the materialised image the stages apply to.
+   *
+   * @return source image.
+   */
+  ImageModelNewImpl getSource() {
+    return this.source;
+  }
+
+  /**
+   * Method to check whether this image is computed from its source by any stage.
+   *
+   * @return true if there are stages, false if the image is its source.
+   */
+  boolean hasStages() {
+    return !this.stages.isEmpty();
+  }
+
+  /**
+   * Method to compute an image if it is lazy.
+   *
+   * @param image any image.
+   * @return the computed image of a lazy image, or the image itself.
+   */
+  static ImageModelNew materialize(ImageModelNew image) {
+    if (image instanceof LazyImageModel) {
+      return ((LazyImageModel) image).materialize();
+    }
+    return image;
+  }
+
+  /**
+   * Method to compute the image of this node, running all its stages in one pass.
+   *
+   * @return computed image.
+   */
+  ImageModelNewImpl materialize() {
+    ImageModelNewImpl image = this.result;
+    if (image == null) {
+      synchronized (this) {
+        image = this.result;
+        if (image == null) {
+          image = run();
+          this.result = image;
+        }
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Method to run the stages over the source pixels.
+   *
+   * @return computed image.
+   */
+  private ImageModelNewImpl run() {
+    int width = this.source.getImageWidth();
+    int height = this.source.getImageHeight();
+    int[] src = this.source.getPixelBuffer().getPixels();
+    int[] dst = new int[src.length];
+    Stage[] steps = this.stages.toArray(new Stage[0]);
+    TileScheduler.forEachRow(width, height, (start, end) -> {
+      for (int y = start; y < end; y++) {
+        int row = y * width;
+        for (int x = 0; x < width; x++) {
+          int rgb = src[row + x];
+          for (Stage step : steps) {
+            if (x < step.limit) {
+              rgb = step.function.apply(rgb);
+            }
+          }
+          dst[row + x] = rgb;
+        }
+      }
+    });
+    return new ImageModelNewImpl(new PackedPixelBuffer(width, height, dst),
+            this.imageAliasName);
+  }
+
+  /**
+   * Method to record a lookup-table stage, composing it with the last stage when that one is a
+   * table with the same limit.
+   *
+   * @param table      lookup table to apply.
+   * @param limit      number of columns the stage applies to.
+   * @param imageAlias name of the new image.
+   * @return new node.
+   */
+  private LazyImageModel withTable(PointOperation table, int limit, String imageAlias) {
+    List<Stage> next = new ArrayList<>(this.stages);
+    Stage last = next.isEmpty() ? null : next.get(next.size() - 1);
+    if (last != null && last.table != null && last.limit == limit) {
+      PointOperation composed = last.table.then(table);
+      next.set(next.size() - 1, new Stage(composed::apply, composed, limit));
+    } else {
+      next.add(new Stage(table::apply, table, limit));
+    }
+    return new LazyImageModel(this.source, next, imageAlias);
+  }
+
+  /**
+   * Method to record a stage that is not a lookup table.
+   *
+   * @param function   per-pixel function to apply.
+   * @param limit      number of columns the stage applies to.
+   * @param imageAlias name of the new image.
+   * @return new node.
+   */
+  private LazyImageModel withFunction(PixelFunction function, int limit, String imageAlias) {
+    List<Stage> next = new ArrayList<>(this.stages);
+    next.add(new Stage(function, null, limit));
+    return new LazyImageModel(this.source, next, imageAlias);
+  }
+
+  /**
+   * Method to find the number of columns a partial operation applies to, checking the
+   * percentage as an eager operation would.
+   *
+   * @param per percentage of the image.
+   * @return number of columns from the left.
+   */
+  private int splitLimit(double per) {
+    if (per < 0 || per > 100) {
+      throw new IllegalArgumentException("Percentage should be between 0 and 100.");
+    }
+    return (int) (per * getImageWidth()) / 100;
+  }
+
+  /**
+   * Method to get the name of the image.
+   *
+   * @return Name of the image.
+   */
+  @Override
+  public String getImageAliasName() {
+    return this.imageAliasName;
+  }
+
+  /**
+   * Public method to compress the image.
+   *
+   * @param imageAlias       image name of the new-generated image.
+   * @param compressionRatio compression percentage to compress the image upto that extent.
+   * @return A new Image Model representation of the compressed image.
+   */
+  @Override
+  public ImageModelNew compress(String imageAlias, Double compressionRatio) {
+    return of(materialize().compress(imageAlias, compressionRatio));
+  }
+
+  /**
+   * Public method to adjust the color levels of an image, recorded as a lookup table.
+   *
+   * @param imageAlias image name of the new-generated image.
+   * @param b          Black value of the image.
+   * @param m          Middle value of the image.
+   * @param w          White image of the image.
+   * @param per        percentage of image.
+   * @return A new Image Model representation of the adjusted image.
+   */
+  @Override
+  public ImageModelNew levelAdjust(String imageAlias, int b, int m, int w, double per) {
+    if (b < 0 || w > 255 || m > w || b > m) {
+      throw new IllegalArgumentException("Invalid Values: Enter B,M,W Values in Range.");
+    }
+    return withTable(PointOperation.levels(b, m, w), splitLimit(per), imageAlias);
+  }
+
+  /**
+   * Implements color Correction on given Image, which needs the histogram of this image.
+   *
+   * @param imageAlias Alias name for new image.
+   * @param per        percentage of image.
+   * @return ImageModelNew of Color corrected image.
+   */
+  @Override
+  public ImageModelNew colorCorrect(String imageAlias, double per) {
+    return of(materialize().colorCorrect(imageAlias, per));
+  }
+
+  /**
+   * Method to generate Histogram of Given Image.
+   *
+   * @param imageAlias Alias name of Histogram.
+   * @return ImageModelNew with model representation of Histogram.
+   * @throws IOException when error performing IO operations on image file.
+   */
+  @Override
+  public ImageModelNew generateHistogram(String imageAlias) throws IOException {
+    return of(materialize().generateHistogram(imageAlias));
+  }
+
+  /**
+   * Generates the red component image of this image.
+   *
+   * @param imageAlias alias name for the new image.
+   * @return Image Model Instance of the new generated Image.
+   */
+  @Override
+  public ImageModelNew generateRed(String imageAlias) {
+    return of(materialize().generateRed(imageAlias));
+  }
+
+  /**
+   * Generates the green component image of this image.
+   *
+   * @param imageAlias alias name for the new image.
+   * @return Image Model Instance of the new generated Image.
+   */
+  @Override
+  public ImageModelNew generateGreen(String imageAlias) {
+    return of(materialize().generateGreen(imageAlias));
+  }
+
+  /**
+   * Generates the blue component image of this image.
+   *
+   * @param imageAlias alias name for the new image.
+   * @return Image Model Instance of the new generated Image.
+   */
+  @Override
+  public ImageModelNew generateBlue(String imageAlias) {
+    return of(materialize().generateBlue(imageAlias));
+  }
+
+  /**
+   * Generates a new blurred Image of this image.
+   *
+   * @param imageAlias alias name for the new image.
+   * @param per        percentage of image.
+   * @return Image Model Instance of the new generated Image.
+   */
+  @Override
+  public ImageModelNew blur(String imageAlias, double per) {
+    return of(materialize().blur(imageAlias, per));
+  }
+
+  /**
+   * Generates a new sharper Image of this image.
+   *
+   * @param imageAlias alias name for the new image.
+   * @param per        percentage of image.
+   * @return Image Model Instance of the new generated Image.
+   */
+  @Override
+  public ImageModelNew sharpen(String imageAlias, double per) {
+    return of(materialize().sharpen(imageAlias, per));
+  }
+
+  /**
+   * Generates a new brighter or darker Image of this image, recorded as a lookup table.
+   *
+   * @param value      bright by value.
+   * @param imageAlias alias name for the new image.
+   * @return Image Model Instance of the new generated Image.
+   */
+  @Override
+  public ImageModelNew bright(int value, String imageAlias) {
+    return withTable(PointOperation.offset(value, value, value), getImageWidth(), imageAlias);
+  }
+
+  /**
+   * Generates a new greyscaled Image of this image.
+   *
+   * @param imageAlias alias name for the new image.
+   * @param per        percentage of image.
+   * @return Image Model Instance of the new generated Image.
+   */
+  @Override
+  public ImageModelNew greyscale(String imageAlias, double per) {
+    return withFunction(rgb -> ImageModelImpl.transformPixel(ImageModelImpl.GREYSCALE_LUMA, rgb),
+            splitLimit(per), imageAlias);
+  }
+
+  /**
+   * Generates a new sepia toned Image of this image.
+   *
+   * @param imageAlias alias name for the new image.
+   * @param per        percentage of image.
+   * @return Image Model Instance of the new generated Image.
+   */
+  @Override
+  public ImageModelNew sepia(String imageAlias, double per) {
+    return withFunction(rgb -> ImageModelImpl.transformPixel(ImageModelImpl.SEPIA_LUMA, rgb),
+            splitLimit(per), imageAlias);
+  }
+
+  /**
+   * Generates a new intensified Image of this image.
+   *
+   * @param imageAlias alias name for the new image.
+   * @return Image Model Instance of the new generated Image.
+   */
+  @Override
+  public ImageModelNew intensity(String imageAlias) {
+    return withFunction(ImageModelImpl::intensityPixel, getImageWidth(), imageAlias);
+  }
+
+  /**
+   * Generates a new max Valued pixel Image of this image.
+   *
+   * @param imageAlias alias name for the new image.
+   * @return Image Model Instance of the new generated Image.
+   */
+  @Override
+  public ImageModelNew maxValue(String imageAlias) {
+    return withFunction(ImageModelImpl::maxValuePixel, getImageWidth(), imageAlias);
+  }
+
+  /**
+   * Generates a new vertically flipped Image of this image.
+   *
+   * @param imageAlias alias name for the new image.
+   * @return Image Model Instance of the new generated Image.
+   */
+  @Override
+  public ImageModelNew verticalFlipImage(String imageAlias) {
+    return of(materialize().verticalFlipImage(imageAlias));
+  }
+
+  /**
+   * Generates a new horizontally flipped Image of this image.
+   *
+   * @param imageAlias alias name for the new image.
+   * @return Image Model Instance of the new generated Image.
+   */
+  @Override
+  public ImageModelNew horizontalFlipImage(String imageAlias) {
+    return of(materialize().horizontalFlipImage(imageAlias));
+  }
+
+  /**
+   * Method to Combine red component of this image and green and blue components
+   * of other two images to create a new image.
+   *
+   * @param green      Green Channel Image.
+   * @param blue       Blue Channel Image.
+   * @param imageAlias alias name for the new image.
+   * @return Image Model Instance of the new generated Image.
+   */
+  @Override
+  public ImageModelNew merge3components(ImageModelNew green, ImageModelNew blue,
+                                        String imageAlias) {
+    return of(materialize().merge3components(materialize(green), materialize(blue),
+            imageAlias));
+  }
+
+  /**
+   * Method to get the width of an image, known without computing it.
+   *
+   * @return image width.
+   */
+  @Override
+  public int getImageWidth() {
+    return this.source.getImageWidth();
+  }
+
+  /**
+   * Method to get the height of an image, known without computing it.
+   *
+   * @return image height.
+   */
+  @Override
+  public int getImageHeight() {
+    return this.source.getImageHeight();
+  }
+
+  /**
+   * Method to get a particular pixel of an image.
+   *
+   * @param x x coordinate of the pixel.
+   * @param y y coordinate of the pixel.
+   * @param i red, green, or blue channel.
+   * @return particular pixel color value.
+   */
+  @Override
+  public int getPixelValue(int x, int y, int i) {
+    return materialize().getPixelValue(x, y, i);
+  }
+}
@@ -1,8 +1,12 @@
 package model;
 
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Mock class to test the ImageModelStore.
@@ -55,6 +59,46 @@ public class MockImageStore implements ImageModelStore {
     log += "loadImage called.";
   }
 
+  /**
+   * Method to store an image only if no image is stored under the alias yet.
+   *
+   * @param image     Image Model instance that is to be stored.
+   * @param aliasName Image name of the image.
+   * @return image already stored under the alias, or null if the given image was stored.
+   */
+  @Override
+  public ImageModelNew loadImageIfAbsent(ImageModelNew image, String aliasName) {
+    log += "loadImageIfAbsent called.";
+    return loadedImageMap.putIfAbsent(aliasName, image);
+  }
+
+  /**
+   * Method to get the image of an alias, creating and storing it first if there is none.
+   *
+   * @param aliasName Image name of the image.
+   * @param creator   function creating the image from the alias.
+   * @return image of the alias.
+   */
+  @Override
+  public ImageModelNew getOrCreateImage(String aliasName,
+                                        Function<String, ImageModelNew> creator) {
+    log += "getOrCreateImage called.";
+    return loadedImageMap.computeIfAbsent(aliasName, creator);
+  }
+
+  /**
+   * Method to get the aliases of all stored images.
+   *
+   * @return sorted list of aliases.
+   */
+  @Override
+  public List<String> getAliases() {
+    log += "getAliases called.";
+    List<String> aliases = new ArrayList<>(loadedImageMap.keySet());
+    Collections.sort(aliases);
+    return aliases;
+  }
+
   /**
    * Method that helps the image to get loaded in the application.
    *
@@ -0,0 +1,92 @@
+package model;
+
+/**
+ * Pixel buffer holding every pixel packed as 0xRRGGBB in a single int array.
+ * This is the layout every operation works on.
+ */
+final class PackedPixelBuffer extends PixelBuffer {
+  private final int[] pixels;
+
+  /**
+   * Constructor that creates an all black buffer of the given size.
+   *
+   * @param width  width of the image.
+   * @param height height of the image.
+   */
+  PackedPixelBuffer(int width, int height) {
+    this(width, height, new int[width * height]);
+  }
+
+  /**
+   * Constructor that wraps an already packed pixel array without copying it.
+   *
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @param pixels packed row-major pixels, owned by this buffer from now on.
+   */
+  PackedPixelBuffer(int width, int height, int[] pixels) {
+    super(width, height);
+    if (pixels.length != width * height) {
+      throw new IllegalArgumentException("Pixel array does not match image size.");
+    }
+    this.pixels = pixels;
+  }
+
+  /**
+   * Method to get a single channel value of an already validated pixel.
+   *
+   * @param index   row-major index of the pixel.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @return channel value between 0 and 255.
+   */
+  @Override
+  int channelAt(int index, int channel) {
+    return channel(this.pixels[index], channel);
+  }
+
+  /**
+   * Method to get the backing array of packed pixels. Callers must not modify it.
+   *
+   * @return packed row-major pixels.
+   */
+  @Override
+  int[] getPixels() {
+    return this.pixels;
+  }
+
+  /**
+   * Method to get the bytes of the backing array.
+   *
+   * @return 4 bytes per pixel.
+   */
+  @Override
+  long byteSize() {
+    return 4L * this.pixels.length;
+  }
+
+  /**
+   * Method to extract one channel into a new plane of unsigned bytes.
+   *
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @return newly extracted channel plane.
+   */
+  @Override
+  byte[] getPlane(int channel) {
+    int shift = 16 - (channel << 3);
+    byte[] plane = new byte[this.pixels.length];
+    for (int i = 0; i < plane.length; i++) {
+      plane[i] = (byte) (this.pixels[i] >> shift);
+    }
+    return plane;
+  }
+
+  /**
+   * Method to create an independent copy of this buffer.
+   *
+   * @return copied buffer.
+   */
+  @Override
+  PixelBuffer copy() {
+    return new PackedPixelBuffer(getWidth(), getHeight(), this.pixels.clone());
+  }
+}
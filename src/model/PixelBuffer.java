@@ -0,0 +1,169 @@
+package model;
+
+/**
+ * Pixel storage shared by the image models.
+ * A buffer never changes once it has been handed to a model, so several images can safely
+ * share one buffer (or, for planar buffers, individual channel planes).
+ * Pixels are addressed row by row, the pixel at (x, y) being number {@code y * width + x}.
+ */
+abstract class PixelBuffer {
+  private final int width;
+  private final int height;
+
+  /**
+   * Constructor that sets the size of the buffer.
+   *
+   * @param width  width of the image.
+   * @param height height of the image.
+   */
+  PixelBuffer(int width, int height) {
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Method to pack a 3d image matrix indexed as [x][y][channel] into a buffer.
+   * Channel values outside 0 to 255 are clamped.
+   *
+   * @param matrix image matrix to pack.
+   * @return new buffer holding the same pixels.
+   */
+  static PixelBuffer fromMatrix(int[][][] matrix) {
+    int width = matrix.length;
+    int height = matrix[0].length;
+    int[] pixels = new int[width * height];
+    for (int x = 0; x < width; x++) {
+      int[][] column = matrix[x];
+      for (int y = 0; y < height; y++) {
+        int[] pixel = column[y];
+        pixels[y * width + x] = pack(pixel[0], pixel[1], pixel[2]);
+      }
+    }
+    return new PackedPixelBuffer(width, height, pixels);
+  }
+
+  /**
+   * Method to pack three channel values into one pixel, clamping each of them.
+   *
+   * @param red   red value.
+   * @param green green value.
+   * @param blue  blue value.
+   * @return packed 0xRRGGBB pixel.
+   */
+  static int pack(int red, int green, int blue) {
+    return (clamp(red) << 16) | (clamp(green) << 8) | clamp(blue);
+  }
+
+  /**
+   * Method to clamp a channel value between 0 and 255.
+   *
+   * @param value value to clamp.
+   * @return clamped value.
+   */
+  static int clamp(int value) {
+    if (value < 0) {
+      return 0;
+    }
+    return Math.min(value, 255);
+  }
+
+  /**
+   * Method to get one channel out of a packed pixel.
+   *
+   * @param rgb     packed pixel.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @return value of that channel.
+   */
+  static int channel(int rgb, int channel) {
+    return (rgb >> (16 - (channel << 3))) & 0xFF;
+  }
+
+  /**
+   * Method to get the width of the buffer.
+   *
+   * @return width in pixels.
+   */
+  int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Method to get the height of the buffer.
+   *
+   * @return height in pixels.
+   */
+  int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Method to get a single channel value at a position.
+   *
+   * @param x       column of the pixel.
+   * @param y       row of the pixel.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @return channel value between 0 and 255.
+   */
+  int getChannel(int x, int y, int channel) {
+    if (x < 0 || x >= this.width || y < 0 || y >= this.height || channel < 0 || channel > 2) {
+      throw new ArrayIndexOutOfBoundsException("Pixel (" + x + ", " + y + ", " + channel
+              + ") out of bounds.");
+    }
+    return channelAt(y * this.width + x, channel);
+  }
+
+  /**
+   * Method to get a single channel value of an already validated pixel.
+   *
+   * @param index   row-major index of the pixel.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @return channel value between 0 and 255.
+   */
+  abstract int channelAt(int index, int channel);
+
+  /**
+   * Method to get the pixels packed as 0xRRGGBB in row-major order.
+   * Packed buffers return their backing array, other layouts build one and may keep it until
+   * memory runs short.
+   * Callers must never modify the returned array.
+   *
+   * @return packed row-major pixels.
+   */
+  abstract int[] getPixels();
+
+  /**
+   * Method to get one channel of the image as a plane of unsigned bytes.
+   * Planar buffers return their shared plane, other layouts extract a new one.
+   * Callers must never modify the returned array.
+   *
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @return channel plane, or null when the channel is zero everywhere.
+   */
+  abstract byte[] getPlane(int channel);
+
+  /**
+   * Method to get a view of this buffer keeping only one channel, the others being zero.
+   *
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @return planar buffer holding only the given channel.
+   */
+  PixelBuffer channelView(int channel) {
+    byte[][] planes = new byte[3][];
+    planes[channel] = getPlane(channel);
+    return new PlanarPixelBuffer(this.width, this.height, planes[0], planes[1], planes[2]);
+  }
+
+  /**
+   * Method to create an independent copy of this buffer.
+   *
+   * @return copied buffer.
+   */
+  abstract PixelBuffer copy();
+
+  /**
+   * Method to estimate the bytes this buffer can keep in memory.
+   *
+   * @return estimated size.
+   */
+  abstract long byteSize();
+}
@@ -0,0 +1,143 @@
+package model;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * Pixel buffer holding each channel in its own plane of unsigned bytes, 3 bytes per pixel.
+ * Planes are never modified, so channel extraction and channel merging can hand the same
+ * plane to several images instead of copying it. A missing (null) plane stands for a channel
+ * that is zero everywhere and costs no memory at all. Operations reading packed pixels get an
+ * interleaved copy of the planes, built on request and kept through a soft reference, so it
+ * is reused while memory allows and rebuilt after the collector reclaims it.
+ */
+final class PlanarPixelBuffer extends PixelBuffer {
+  private final byte[][] planes;
+  private volatile SoftReference<int[]> packed;
+
+  /**
+   * Constructor that wraps existing planes without copying them.
+   *
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @param red    red plane or null for an all zero channel.
+   * @param green  green plane or null for an all zero channel.
+   * @param blue   blue plane or null for an all zero channel.
+   */
+  PlanarPixelBuffer(int width, int height, byte[] red, byte[] green, byte[] blue) {
+    super(width, height);
+    this.planes = new byte[][]{red, green, blue};
+    for (byte[] plane : this.planes) {
+      if (plane != null && plane.length != width * height) {
+        throw new IllegalArgumentException("Channel plane does not match image size.");
+      }
+    }
+  }
+
+  /**
+   * Method to get a single channel value of an already validated pixel.
+   *
+   * @param index   row-major index of the pixel.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @return channel value between 0 and 255.
+   */
+  @Override
+  int channelAt(int index, int channel) {
+    byte[] plane = this.planes[channel];
+    return plane == null ? 0 : plane[index] & 0xFF;
+  }
+
+  /**
+   * Method to get the planes interleaved into packed pixels, reusing the last interleaved copy
+   * unless the collector reclaimed it. Callers must not modify the returned array.
+   *
+   * @return packed row-major pixels.
+   */
+  @Override
+  int[] getPixels() {
+    SoftReference<int[]> reference = this.packed;
+    int[] pixels = reference == null ? null : reference.get();
+    if (pixels == null) {
+      pixels = interleave();
+      this.packed = new SoftReference<>(pixels);
+    }
+    return pixels;
+  }
+
+  /**
+   * Method to interleave the planes into a new array of packed pixels.
+   *
+   * @return packed row-major pixels.
+   */
+  private int[] interleave() {
+    int[] pixels = new int[getWidth() * getHeight()];
+    for (int c = 0; c < 3; c++) {
+      byte[] plane = this.planes[c];
+      if (plane != null) {
+        int shift = 16 - (c << 3);
+        for (int i = 0; i < pixels.length; i++) {
+          pixels[i] |= (plane[i] & 0xFF) << shift;
+        }
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Method to get the shared plane of one channel. Callers must not modify it.
+   *
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @return channel plane, or null when the channel is zero everywhere.
+   */
+  @Override
+  byte[] getPlane(int channel) {
+    return this.planes[channel];
+  }
+
+  /**
+   * Method to get a view keeping only one channel, sharing its plane with this buffer.
+   *
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @return planar buffer holding only the given channel.
+   */
+  @Override
+  PixelBuffer channelView(int channel) {
+    for (int c = 0; c < 3; c++) {
+      if (c != channel && this.planes[c] != null) {
+        return super.channelView(channel);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Method to get the bytes of the planes and of the packed copy, counted whether it is kept
+   * at the moment or not, since any read of packed pixels may build it again.
+   *
+   * @return 1 byte per pixel for each plane held, plus 4 bytes per pixel.
+   */
+  @Override
+  long byteSize() {
+    long pixels = (long) getWidth() * getHeight();
+    long size = 4 * pixels;
+    for (byte[] plane : this.planes) {
+      if (plane != null) {
+        size += pixels;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Method to create an independent copy of this buffer.
+   *
+   * @return copied buffer.
+   */
+  @Override
+  PixelBuffer copy() {
+    byte[][] copies = new byte[3][];
+    for (int c = 0; c < 3; c++) {
+      copies[c] = this.planes[c] == null ? null : this.planes[c].clone();
+    }
+    return new PlanarPixelBuffer(getWidth(), getHeight(), copies[0], copies[1], copies[2]);
+  }
+}
@@ -0,0 +1,160 @@
+package model;
+
+/**
+ * Point operation compiled into one 256-entry lookup table per channel.
+ * Any operation whose new channel value only depends on the old value of the same channel,
+ * such as brightening, levels adjustment or the shifts of colour correction, is evaluated once
+ * per possible value when the table is built, clamped to 0..255 as the image would be.
+ * Consecutive operations compose into a single table, so a chain of them costs one pass over
+ * the pixels with three table reads per pixel. Tables hold their value already shifted into
+ * place, so a pixel is rebuilt by or-ing the three entries. Operations are immutable.
+ */
+final class PointOperation {
+  private static final int SIZE = 256;
+  private static final PointOperation IDENTITY = offset(0, 0, 0);
+
+  private final int[] red;
+  private final int[] green;
+  private final int[] blue;
+
+  /**
+   * Constructor for the tables of an operation, each holding clamped values already shifted
+   * into the position of its channel.
+   *
+   * @param red   table of the red channel.
+   * @param green table of the green channel.
+   * @param blue  table of the blue channel.
+   */
+  private PointOperation(int[] red, int[] green, int[] blue) {
+    this.red = red;
+    this.green = green;
+    this.blue = blue;
+  }
+
+  /**
+   * Method to get the operation leaving every pixel unchanged.
+   *
+   * @return identity operation.
+   */
+  static PointOperation identity() {
+    return IDENTITY;
+  }
+
+  /**
+   * Method to build an operation adding a value to each channel, as brighten and colour
+   * correction do.
+   *
+   * @param redShift   value added to the red channel.
+   * @param greenShift value added to the green channel.
+   * @param blueShift  value added to the blue channel.
+   * @return compiled operation.
+   */
+  static PointOperation offset(int redShift, int greenShift, int blueShift) {
+    int[] red = new int[SIZE];
+    int[] green = new int[SIZE];
+    int[] blue = new int[SIZE];
+    for (int v = 0; v < SIZE; v++) {
+      red[v] = PixelBuffer.clamp(v + redShift) << 16;
+      green[v] = PixelBuffer.clamp(v + greenShift) << 8;
+      blue[v] = PixelBuffer.clamp(v + blueShift);
+    }
+    return new PointOperation(red, green, blue);
+  }
+
+  /**
+   * Method to build the levels adjustment mapping black, mid and white points to 0, 128 and
+   * 255 with a quadratic curve, applied to all three channels.
+   *
+   * @param b black value.
+   * @param m mid value.
+   * @param w white value.
+   * @return compiled operation.
+   */
+  static PointOperation levels(int b, int m, int w) {
+    double aValue = (m - w) * ((b * b) - (b * (m + w)) + (w * m));
+    double aAValue = (128 * w) - (255 * m) - (b * (128 - 255));
+    double bAValue = ((b * b) * (128 - 255)) + (255 * (m * m)) - (128 * (w * w));
+    double cAValue = ((b * b) * ((255 * m) - (128 * w))) - (b * ((255 * (m * m))
+            - (128 * (w * w))));
+    double a = aAValue / aValue;
+    double bCoefficient = bAValue / aValue;
+    double c = cAValue / aValue;
+    int[] red = new int[SIZE];
+    int[] green = new int[SIZE];
+    int[] blue = new int[SIZE];
+    for (int v = 0; v < SIZE; v++) {
+      int value = PixelBuffer.clamp((int) ((a * (v * v)) + (bCoefficient * v) + c));
+      red[v] = value << 16;
+      green[v] = value << 8;
+      blue[v] = value;
+    }
+    return new PointOperation(red, green, blue);
+  }
+
+  /**
+   * Method to compose this operation with one applied after it.
+   *
+   * @param next operation applied to the result of this one.
+   * @return single operation doing both.
+   */
+  PointOperation then(PointOperation next) {
+    int[] red = new int[SIZE];
+    int[] green = new int[SIZE];
+    int[] blue = new int[SIZE];
+    for (int v = 0; v < SIZE; v++) {
+      red[v] = next.red[this.red[v] >> 16];
+      green[v] = next.green[this.green[v] >> 8];
+      blue[v] = next.blue[this.blue[v]];
+    }
+    return new PointOperation(red, green, blue);
+  }
+
+  /**
+   * Method to get the new value of one channel value.
+   *
+   * @param channel 0 for red, 1 for green or 2 for blue.
+   * @param value   channel value between 0 and 255.
+   * @return new channel value.
+   */
+  int map(int channel, int value) {
+    switch (channel) {
+      case 0:
+        return this.red[value] >> 16;
+      case 1:
+        return this.green[value] >> 8;
+      default:
+        return this.blue[value];
+    }
+  }
+
+  /**
+   * Method to apply the operation to one pixel.
+   *
+   * @param rgb packed pixel.
+   * @return packed new pixel.
+   */
+  int apply(int rgb) {
+    return this.red[(rgb >> 16) & 0xFF] | this.green[(rgb >> 8) & 0xFF] | this.blue[rgb & 0xFF];
+  }
+
+  /**
+   * Method to apply the operation to every pixel of a buffer.
+   *
+   * @param pixels pixels to transform, left unchanged.
+   * @return new buffer holding the transformed pixels.
+   */
+  PixelBuffer apply(PixelBuffer pixels) {
+    int[] src = pixels.getPixels();
+    int[] dst = new int[src.length];
+    int[] r = this.red;
+    int[] g = this.green;
+    int[] b = this.blue;
+    TileScheduler.forEachPixel(src.length, (start, end) -> {
+      for (int i = start; i < end; i++) {
+        int rgb = src[i];
+        dst[i] = r[(rgb >> 16) & 0xFF] | g[(rgb >> 8) & 0xFF] | b[rgb & 0xFF];
+      }
+    });
+    return new PackedPixelBuffer(pixels.getWidth(), pixels.getHeight(), dst);
+  }
+}
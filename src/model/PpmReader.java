@@ -0,0 +1,237 @@
+package model;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming reader for plain (P3) and binary (P6) PPM files.
+ * The file is read in fixed-size chunks and numbers are parsed straight from the bytes, so no
+ * line or token strings are created. Samples are scaled from the file's maximum value to the
+ * 0 to 255 range used by the models, and comments starting with # are skipped wherever the
+ * format allows whitespace.
+ */
+final class PpmReader {
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final InputStream in;
+  private final byte[] buffer;
+  private int position;
+  private int limit;
+
+  /**
+   * Constructor that reads from a stream. The stream is not closed by the reader.
+   *
+   * @param in stream positioned at the start of the PPM data.
+   */
+  PpmReader(InputStream in) {
+    this.in = in;
+    this.buffer = new byte[BUFFER_SIZE];
+    this.position = 0;
+    this.limit = 0;
+  }
+
+  /**
+   * Method to read a PPM file.
+   *
+   * @param path path of the file.
+   * @return packed pixels of the image.
+   * @throws FileNotFoundException if the file does not exist.
+   * @throws IOException           if the file cannot be read or is not a valid PPM file.
+   */
+  static PixelBuffer read(String path) throws IOException {
+    try (InputStream in = new FileInputStream(path)) {
+      return new PpmReader(in).read();
+    }
+  }
+
+  /**
+   * Method to read the header and the pixels of the image.
+   *
+   * @return packed pixels of the image.
+   * @throws IOException if the stream cannot be read or is not a valid PPM file.
+   */
+  PixelBuffer read() throws IOException {
+    int first = nextByte();
+    int second = nextByte();
+    if (first != 'P' || (second != '3' && second != '6')) {
+      throw new IOException("Invalid PPM file: file should begin with P3 or P6");
+    }
+    int width = nextInt();
+    int height = nextInt();
+    int maxValue = nextInt();
+    if (width <= 0 || height <= 0 || maxValue <= 0 || maxValue > 65535) {
+      throw new IOException("Invalid PPM header: " + width + " " + height + " " + maxValue);
+    }
+    if ((long) width * height > Integer.MAX_VALUE - 8) {
+      throw new IOException("PPM image too large: " + width + "x" + height);
+    }
+    int[] pixels = new int[width * height];
+    if (second == '3') {
+      readPlain(pixels, maxValue);
+    } else {
+      // exactly one whitespace byte separates the header from the binary samples
+      nextByte();
+      readBinary(pixels, maxValue);
+    }
+    return new PackedPixelBuffer(width, height, pixels);
+  }
+
+  /**
+   * Method to read P3 samples written as decimal numbers.
+   *
+   * @param pixels   array to fill with packed pixels.
+   * @param maxValue maximum sample value declared in the header.
+   * @throws IOException if the stream ends early or holds something other than numbers.
+   */
+  private void readPlain(int[] pixels, int maxValue) throws IOException {
+    for (int i = 0; i < pixels.length; i++) {
+      int red = scale(nextInt(), maxValue);
+      int green = scale(nextInt(), maxValue);
+      int blue = scale(nextInt(), maxValue);
+      pixels[i] = PixelBuffer.pack(red, green, blue);
+    }
+  }
+
+  /**
+   * Method to read P6 samples stored as one byte each, or two big-endian bytes each when the
+   * maximum value is above 255.
+   *
+   * @param pixels   array to fill with packed pixels.
+   * @param maxValue maximum sample value declared in the header.
+   * @throws IOException if the stream ends early.
+   */
+  private void readBinary(int[] pixels, int maxValue) throws IOException {
+    boolean wide = maxValue > 255;
+    for (int i = 0; i < pixels.length; i++) {
+      int red = scale(wide ? nextShort() : nextByte(), maxValue);
+      int green = scale(wide ? nextShort() : nextByte(), maxValue);
+      int blue = scale(wide ? nextShort() : nextByte(), maxValue);
+      pixels[i] = PixelBuffer.pack(red, green, blue);
+    }
+  }
+
+  /**
+   * Method to scale a sample to the 0 to 255 range, rounding to the nearest value.
+   *
+   * @param value    sample read from the file.
+   * @param maxValue maximum sample value declared in the header.
+   * @return scaled sample, still to be clamped.
+   */
+  private static int scale(int value, int maxValue) {
+    if (maxValue == 255) {
+      return value;
+    }
+    return (int) ((value * 255L + maxValue / 2) / maxValue);
+  }
+
+  /**
+   * Method to parse the next decimal number, skipping whitespace and comments before it.
+   * The byte ending the number is left unread.
+   *
+   * @return parsed number.
+   * @throws IOException if the stream ends first or the token is not a number.
+   */
+  private int nextInt() throws IOException {
+    int c = skipWhitespace();
+    boolean negative = c == '-';
+    if (negative) {
+      position++;
+      c = peek();
+    }
+    if (c < '0' || c > '9') {
+      throw new IOException("Invalid PPM file: expected a number");
+    }
+    long value = 0;
+    while (c >= '0' && c <= '9') {
+      value = value * 10 + (c - '0');
+      if (value > Integer.MAX_VALUE) {
+        throw new IOException("Invalid PPM file: number too large");
+      }
+      position++;
+      c = peek();
+    }
+    return (int) (negative ? -value : value);
+  }
+
+  /**
+   * Method to skip whitespace and comments.
+   *
+   * @return first byte after them, left unread.
+   * @throws IOException if the stream ends first.
+   */
+  private int skipWhitespace() throws IOException {
+    while (true) {
+      int c = peek();
+      if (c == '#') {
+        while (c != '\n' && c != '\r' && c != -1) {
+          position++;
+          c = peek();
+        }
+      } else if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == 0x0B) {
+        position++;
+      } else if (c == -1) {
+        throw new EOFException("Unexpected end of PPM file");
+      } else {
+        return c;
+      }
+    }
+  }
+
+  /**
+   * Method to look at the next byte without consuming it.
+   *
+   * @return next byte as 0 to 255, or -1 at the end of the stream.
+   * @throws IOException if the stream cannot be read.
+   */
+  private int peek() throws IOException {
+    if (position == limit && !fill()) {
+      return -1;
+    }
+    return buffer[position] & 0xFF;
+  }
+
+  /**
+   * Method to consume the next byte.
+   *
+   * @return next byte as 0 to 255.
+   * @throws IOException if the stream ends or cannot be read.
+   */
+  private int nextByte() throws IOException {
+    if (position == limit && !fill()) {
+      throw new EOFException("Unexpected end of PPM file");
+    }
+    return buffer[position++] & 0xFF;
+  }
+
+  /**
+   * Method to consume the next two bytes as a big-endian number.
+   *
+   * @return next 16-bit sample.
+   * @throws IOException if the stream ends or cannot be read.
+   */
+  private int nextShort() throws IOException {
+    return (nextByte() << 8) | nextByte();
+  }
+
+  /**
+   * Method to refill the buffer from the stream.
+   *
+   * @return false if the stream has ended.
+   * @throws IOException if the stream cannot be read.
+   */
+  private boolean fill() throws IOException {
+    int read;
+    do {
+      read = in.read(buffer, 0, buffer.length);
+    } while (read == 0);
+    if (read < 0) {
+      return false;
+    }
+    position = 0;
+    limit = read;
+    return true;
+  }
+}
@@ -0,0 +1,113 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writer for plain (P3) and binary (P6) PPM files.
+ * Samples are copied into a reusable byte buffer, from pre-formatted digits for P3 or as raw
+ * bytes for P6, and the buffer is written through a file channel whenever it fills up.
+ * Plain files keep the layout the program always wrote: one sample per line.
+ */
+final class PpmWriter {
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final byte[][] SAMPLE_LINES = new byte[256][];
+
+  static {
+    for (int value = 0; value < 256; value++) {
+      SAMPLE_LINES[value] = (value + System.lineSeparator()).getBytes(StandardCharsets.US_ASCII);
+    }
+  }
+
+  /**
+   * Private Constructor, the writer only has static methods.
+   */
+  private PpmWriter() {
+  }
+
+  /**
+   * Method to write pixels to a PPM file, replacing any existing file.
+   *
+   * @param pixels pixels of the image.
+   * @param path   path of the file.
+   * @param binary true for a binary P6 file, false for a plain P3 file.
+   * @throws IOException if the file cannot be written.
+   */
+  static void write(PixelBuffer pixels, String path, boolean binary) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      if (binary) {
+        writeBinary(pixels, channel, buffer);
+      } else {
+        writePlain(pixels, channel, buffer);
+      }
+      drain(channel, buffer);
+    }
+  }
+
+  /**
+   * Method to write the P3 header and one sample per line.
+   *
+   * @param pixels  pixels of the image.
+   * @param channel channel of the file.
+   * @param buffer  buffer collecting the bytes.
+   * @throws IOException if the file cannot be written.
+   */
+  private static void writePlain(PixelBuffer pixels, FileChannel channel, ByteBuffer buffer)
+          throws IOException {
+    String newLine = System.lineSeparator();
+    buffer.put(("P3" + newLine + pixels.getWidth() + " " + pixels.getHeight() + newLine
+            + "255" + newLine).getBytes(StandardCharsets.US_ASCII));
+    for (int rgb : pixels.getPixels()) {
+      // three samples of at most 3 digits each, plus their line separators
+      if (buffer.remaining() < 3 * (3 + newLine.length())) {
+        drain(channel, buffer);
+      }
+      buffer.put(SAMPLE_LINES[(rgb >> 16) & 0xFF]);
+      buffer.put(SAMPLE_LINES[(rgb >> 8) & 0xFF]);
+      buffer.put(SAMPLE_LINES[rgb & 0xFF]);
+    }
+  }
+
+  /**
+   * Method to write the P6 header and one byte per sample.
+   *
+   * @param pixels  pixels of the image.
+   * @param channel channel of the file.
+   * @param buffer  buffer collecting the bytes.
+   * @throws IOException if the file cannot be written.
+   */
+  private static void writeBinary(PixelBuffer pixels, FileChannel channel, ByteBuffer buffer)
+          throws IOException {
+    buffer.put(("P6\n" + pixels.getWidth() + " " + pixels.getHeight() + "\n255\n")
+            .getBytes(StandardCharsets.US_ASCII));
+    for (int rgb : pixels.getPixels()) {
+      if (buffer.remaining() < 3) {
+        drain(channel, buffer);
+      }
+      buffer.put((byte) (rgb >> 16));
+      buffer.put((byte) (rgb >> 8));
+      buffer.put((byte) rgb);
+    }
+  }
+
+  /**
+   * Method to write out everything collected in the buffer and clear it.
+   *
+   * @param channel channel of the file.
+   * @param buffer  buffer collecting the bytes.
+   * @throws IOException if the file cannot be written.
+   */
+  private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
@@ -0,0 +1,206 @@
+package model;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Bulk conversion between pixel buffers and BufferedImage.
+ * Images of the common types are read straight from the array behind their raster, using the
+ * raster's own layout, so no colour conversion or bounds check happens per pixel. Other types
+ * go through a single bulk getRGB call. Images are created as TYPE_INT_RGB and filled with one
+ * setDataElements call, which copies into the raster without exposing its array, so Java2D can
+ * keep accelerating the image when it is drawn.
+ */
+final class RasterConverter {
+
+  /**
+   * Private Constructor, the converter only has static methods.
+   */
+  private RasterConverter() {
+  }
+
+  /**
+   * Method to read the pixels of an image, dropping any alpha channel.
+   *
+   * @param image image to read.
+   * @return packed pixels of the image.
+   */
+  static PixelBuffer fromImage(BufferedImage image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] pixels = null;
+    switch (image.getType()) {
+      case BufferedImage.TYPE_INT_RGB:
+      case BufferedImage.TYPE_INT_ARGB:
+        pixels = readPackedInts(image.getRaster(), width, height);
+        break;
+      case BufferedImage.TYPE_3BYTE_BGR:
+      case BufferedImage.TYPE_4BYTE_ABGR:
+        pixels = readInterleavedBytes(image.getRaster(), width, height);
+        break;
+      case BufferedImage.TYPE_BYTE_INDEXED:
+        pixels = readIndexed(image, width, height);
+        break;
+      default:
+        break;
+    }
+    if (pixels == null) {
+      pixels = image.getRGB(0, 0, width, height, null, 0, width);
+      for (int i = 0; i < pixels.length; i++) {
+        pixels[i] &= 0xFFFFFF;
+      }
+    }
+    return new PackedPixelBuffer(width, height, pixels);
+  }
+
+  /**
+   * Method to create an image holding the pixels of a buffer.
+   *
+   * @param pixels pixels to copy.
+   * @return new TYPE_INT_RGB image.
+   */
+  static BufferedImage toImage(PixelBuffer pixels) {
+    int width = pixels.getWidth();
+    int height = pixels.getHeight();
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    image.getRaster().setDataElements(0, 0, width, height, pixels.getPixels());
+    return image;
+  }
+
+  /**
+   * Method to read an image whose pixels are packed one per int as (A)RGB.
+   *
+   * @param raster raster of the image.
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @return packed pixels, or null if the raster does not use the usual layout.
+   */
+  private static int[] readPackedInts(WritableRaster raster, int width, int height) {
+    SampleModel model = raster.getSampleModel();
+    DataBuffer buffer = raster.getDataBuffer();
+    if (!(model instanceof SinglePixelPackedSampleModel) || !(buffer instanceof DataBufferInt)
+            || buffer.getNumBanks() != 1) {
+      return null;
+    }
+    SinglePixelPackedSampleModel packed = (SinglePixelPackedSampleModel) model;
+    int[] offsets = packed.getBitOffsets();
+    if (offsets[0] != 16 || offsets[1] != 8 || offsets[2] != 0) {
+      return null;
+    }
+    int[] data = ((DataBufferInt) buffer).getData();
+    int stride = packed.getScanlineStride();
+    int start = buffer.getOffset() + origin(raster, 1, stride);
+    int[] pixels = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      int from = start + y * stride;
+      int to = y * width;
+      for (int x = 0; x < width; x++) {
+        pixels[to + x] = data[from + x] & 0xFFFFFF;
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Method to read an image storing one byte per sample with the samples of a pixel together.
+   *
+   * @param raster raster of the image.
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @return packed pixels, or null if the raster does not use the usual layout.
+   */
+  private static int[] readInterleavedBytes(WritableRaster raster, int width, int height) {
+    SampleModel model = raster.getSampleModel();
+    DataBuffer buffer = raster.getDataBuffer();
+    if (!(model instanceof ComponentSampleModel) || !(buffer instanceof DataBufferByte)
+            || buffer.getNumBanks() != 1) {
+      return null;
+    }
+    ComponentSampleModel component = (ComponentSampleModel) model;
+    int[] bands = component.getBandOffsets();
+    int[] banks = component.getBankIndices();
+    for (int bank : banks) {
+      if (bank != 0) {
+        return null;
+      }
+    }
+    byte[] data = ((DataBufferByte) buffer).getData();
+    int pixelStride = component.getPixelStride();
+    int stride = component.getScanlineStride();
+    int start = buffer.getOffset() + origin(raster, pixelStride, stride);
+    int[] pixels = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      int from = start + y * stride;
+      int to = y * width;
+      for (int x = 0; x < width; x++) {
+        int pixel = from + x * pixelStride;
+        pixels[to + x] = ((data[pixel + bands[0]] & 0xFF) << 16)
+                | ((data[pixel + bands[1]] & 0xFF) << 8) | (data[pixel + bands[2]] & 0xFF);
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Method to read an image storing one palette index per byte.
+   *
+   * @param image  image to read.
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @return packed pixels, or null if the raster does not use the usual layout.
+   */
+  private static int[] readIndexed(BufferedImage image, int width, int height) {
+    WritableRaster raster = image.getRaster();
+    SampleModel model = raster.getSampleModel();
+    DataBuffer buffer = raster.getDataBuffer();
+    if (!(image.getColorModel() instanceof IndexColorModel)
+            || !(model instanceof ComponentSampleModel) || !(buffer instanceof DataBufferByte)
+            || ((ComponentSampleModel) model).getPixelStride() != 1) {
+      return null;
+    }
+    IndexColorModel colors = (IndexColorModel) image.getColorModel();
+    int[] palette = new int[Math.max(256, colors.getMapSize())];
+    colors.getRGBs(palette);
+    for (int i = 0; i < palette.length; i++) {
+      palette[i] &= 0xFFFFFF;
+    }
+    ComponentSampleModel component = (ComponentSampleModel) model;
+    int bank = component.getBankIndices()[0];
+    byte[] data = ((DataBufferByte) buffer).getData(bank);
+    int stride = component.getScanlineStride();
+    int start = buffer.getOffsets()[bank] + component.getBandOffsets()[0]
+            + origin(raster, 1, stride);
+    int[] pixels = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      int from = start + y * stride;
+      int to = y * width;
+      for (int x = 0; x < width; x++) {
+        pixels[to + x] = palette[data[from + x] & 0xFF];
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Method to find where the first pixel of a raster lies in its data array, which is not at
+   * the start when the raster is a sub-image of a larger one.
+   *
+   * @param raster      raster of the image.
+   * @param pixelStride array elements between two pixels of a row.
+   * @param stride      array elements between two rows.
+   * @return index of the first pixel, before the data buffer offset.
+   */
+  private static int origin(Raster raster, int pixelStride, int stride) {
+    int x = raster.getMinX() - raster.getSampleModelTranslateX();
+    int y = raster.getMinY() - raster.getSampleModelTranslateY();
+    return y * stride + x * pixelStride;
+  }
+}
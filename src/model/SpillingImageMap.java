@@ -0,0 +1,484 @@
+package model;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Concurrent map from alias to image that keeps the pixels it holds in memory under a byte
+ * budget. Every alias maps to a slot that never changes apart from its last use, either
+ * resident with its image or spilled with the file holding it, and every change of the slot
+ * of an alias is a single atomic operation of a
+ * concurrent hash map, so threads working on different aliases never wait for each other.
+ * When the images in memory go over the budget the least recently used ones are written to a
+ * spill directory as binary PPM files, three bytes per pixel, and their slots are swapped for
+ * spilled slots only if nobody replaced them meanwhile. A compressed image is written as a
+ * wavelet file of the coefficients it keeps instead, which gives back its pixels exactly and
+ * lets it be saved in the wavelet format again once read back. Getting a spilled alias reads
+ * its file outside the map, one thread per spilled slot while the others asking for it wait
+ * for that read alone, and swaps the slot for the image read only if the alias still holds it.
+ * The image read is then the most recently used one. If the file cannot be read the alias
+ * stays spilled with its file, so a later get may try again.
+ * The image just stored is never spilled, so a single image larger than the budget still works.
+ * A compressed image also counts what it keeps to write its wavelet coefficients, and a lazy
+ * image counts its source as well as the result of its stages. Images that are not held as
+ * pixel buffers, such as mocks, count as zero bytes and are never spilled. Spill files are
+ * deleted once their alias is back in memory or replaced, and when the program exits.
+ * A resident slot may also keep the display image of its image, built on first request and
+ * counted against the budget. It goes away with its slot, when the alias is replaced or its
+ * image spilled, so a display image never outlives the version of the image it shows.
+ *
+ * <p>Storing an image happens-before getting it from any thread, as for any concurrent map.
+ * Images are immutable once built, so a thread getting an image sees all of its pixels.
+ */
+final class SpillingImageMap {
+  private static final int BYTES_PER_PIXEL = 4;
+
+  private final long budget;
+  private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+  private final AtomicLong residentBytes = new AtomicLong();
+  private final AtomicLong nextFile = new AtomicLong();
+  private final AtomicLong clock = new AtomicLong();
+  private final Object evictionLock = new Object();
+  private volatile File directory;
+
+  /**
+   * State of one alias: resident when image is set, spilled when file is set.
+   */
+  private static final class Slot {
+    private final ImageModelNew image;
+    private final long size;
+    private final File file;
+    private final String imageAliasName;
+    private final boolean lazy;
+    private volatile long lastUsed;
+    private BufferedImage display;
+    private boolean retired;
+    private Slot reloaded;
+
+    /**
+     * Constructor for a slot.
+     *
+     * @param image          image in memory, or null if spilled.
+     * @param file           spill file, or null if resident.
+     * @param imageAliasName name of the image.
+     * @param lazy           true if the image is a lazy image.
+     */
+    private Slot(ImageModelNew image, File file, String imageAliasName, boolean lazy) {
+      this.image = image;
+      this.size = image == null ? 0 : sizeOf(image);
+      this.file = file;
+      this.imageAliasName = imageAliasName;
+      this.lazy = lazy;
+    }
+
+    /**
+     * Method to create the slot of an image written to a file.
+     *
+     * @param file  spill file.
+     * @param image image that was written.
+     * @return spilled slot.
+     */
+    static Slot spilled(File file, ImageModelNew image) {
+      return new Slot(null, file, image.getImageAliasName(), image instanceof LazyImageModel);
+    }
+
+    /**
+     * Method to keep the display image of this slot unless the slot left the map.
+     *
+     * @param image display image built for the image of this slot.
+     * @return display image kept, or null if another one was kept first or the slot left.
+     */
+    synchronized BufferedImage keepDisplay(BufferedImage image) {
+      if (this.retired) {
+        return null;
+      }
+      if (this.display != null) {
+        return this.display;
+      }
+      this.display = image;
+      return image;
+    }
+
+    /**
+     * Method to get the display image of this slot.
+     *
+     * @return display image, or null if none was built.
+     */
+    synchronized BufferedImage getDisplay() {
+      return this.display;
+    }
+
+    /**
+     * Method to mark the slot as out of the map and drop its display image.
+     *
+     * @return bytes of the dropped display image.
+     */
+    synchronized long retire() {
+      this.retired = true;
+      long bytes = this.display == null ? 0 : displaySize(this.display);
+      this.display = null;
+      return bytes;
+    }
+  }
+
+  /**
+   * Constructor for a map with a budget.
+   *
+   * @param budget maximum bytes of pixels kept in memory.
+   * @throws IllegalArgumentException if the budget is negative.
+   */
+  SpillingImageMap(long budget) throws IllegalArgumentException {
+    this(budget, null);
+  }
+
+  /**
+   * Constructor for a map with a budget spilling into a given directory.
+   *
+   * @param budget    maximum bytes of pixels kept in memory.
+   * @param directory existing directory for the spill files, or null for a temporary one.
+   * @throws IllegalArgumentException if the budget is negative.
+   */
+  SpillingImageMap(long budget, File directory) throws IllegalArgumentException {
+    if (budget < 0) {
+      throw new IllegalArgumentException("Budget must not be negative.");
+    }
+    this.budget = budget;
+    this.directory = directory;
+  }
+
+  /**
+   * Method to estimate the bytes an image keeps in memory.
+   *
+   * @param image image to measure.
+   * @return estimated size, 0 for images that are not held as pixel buffers.
+   */
+  static long sizeOf(ImageModelNew image) {
+    if (image instanceof LazyImageModel) {
+      LazyImageModel lazy = (LazyImageModel) image;
+      long result = lazy.hasStages() ? pixelBytes(image) : 0;
+      return sizeOf(lazy.getSource()) + result;
+    }
+    if (image instanceof ImageModelNewImpl) {
+      ImageModelNewImpl impl = (ImageModelNewImpl) image;
+      return impl.getPixelBuffer().byteSize() + impl.waveletSize();
+    }
+    return 0;
+  }
+
+  /**
+   * Method to estimate the bytes of the pixel buffer of an image.
+   *
+   * @param image image to measure.
+   * @return estimated size.
+   */
+  private static long pixelBytes(ImageModelNew image) {
+    return (long) image.getImageWidth() * image.getImageHeight() * BYTES_PER_PIXEL;
+  }
+
+  /**
+   * Method to check whether an image can be written to a spill file without losing anything.
+   *
+   * @param image image to check.
+   * @return true for images held as pixel buffers, false for mocks.
+   */
+  static boolean canSpill(ImageModelNew image) {
+    if (image instanceof LazyImageModel) {
+      LazyImageModel lazy = (LazyImageModel) image;
+      return lazy.hasStages() || canSpill(lazy.getSource());
+    }
+    return image instanceof ImageModelNewImpl;
+  }
+
+  /**
+   * Method to estimate the bytes of a display image.
+   *
+   * @param display display image.
+   * @return estimated size.
+   */
+  static long displaySize(BufferedImage display) {
+    return (long) display.getWidth() * display.getHeight() * BYTES_PER_PIXEL;
+  }
+
+  /**
+   * Method to get the display image of an alias, built on first request and kept until the
+   * alias is replaced or spilled. Callers must not modify the returned image.
+   *
+   * @param alias    alias of the image.
+   * @param renderer function building the display image of an image, which may be null.
+   * @return display image.
+   */
+  BufferedImage getDisplay(String alias, Function<ImageModelNew, BufferedImage> renderer) {
+    ImageModelNew image = get(alias);
+    Slot slot = this.slots.get(alias);
+    if (image == null || slot == null || slot.image != image) {
+      return renderer.apply(image);
+    }
+    BufferedImage display = slot.getDisplay();
+    if (display != null) {
+      return display;
+    }
+    BufferedImage built = renderer.apply(image);
+    display = slot.keepDisplay(built);
+    if (display == null) {
+      return built;
+    }
+    if (display == built) {
+      this.residentBytes.addAndGet(displaySize(built));
+      evict(alias);
+    }
+    return display;
+  }
+
+  /**
+   * Method to get the image of an alias, reading it back if it was spilled.
+   *
+   * @param alias alias of the image.
+   * @return image, or null if the alias is unknown or its spill file cannot be read, in which
+   *         case the alias stays spilled.
+   */
+  ImageModelNew get(String alias) {
+    while (true) {
+      Slot slot = this.slots.get(alias);
+      if (slot == null) {
+        return null;
+      }
+      if (slot.image != null) {
+        slot.lastUsed = this.clock.incrementAndGet();
+        return slot.image;
+      }
+      Slot reloaded = reload(slot);
+      if (reloaded == null) {
+        if (this.slots.get(alias) == slot) {
+          return null;
+        }
+      } else if (this.slots.replace(alias, slot, reloaded)) {
+        slot.file.delete();
+        this.residentBytes.addAndGet(reloaded.size);
+        evict(alias);
+        return reloaded.image;
+      }
+      // the alias was read back by another thread or replaced meanwhile, so look again
+    }
+  }
+
+  /**
+   * Method to read the image of a spilled slot back into a resident slot. Threads reloading the
+   * same slot wait for each other and share the result, while other slots are read at the same
+   * time.
+   *
+   * @param spilled spilled slot.
+   * @return resident slot with the image read, or null if the file cannot be read.
+   */
+  private Slot reload(Slot spilled) {
+    synchronized (spilled) {
+      if (spilled.reloaded == null) {
+        ImageModelNew image;
+        try {
+          if (spilled.file.getName().endsWith("." + WaveletCodec.EXTENSION)) {
+            image = ImageModelNewImpl.fromWaveletData(Files.readAllBytes(spilled.file.toPath()),
+                    spilled.imageAliasName);
+          } else {
+            image = new ImageModelNewImpl(PpmReader.read(spilled.file.getPath()),
+                    spilled.imageAliasName);
+          }
+        } catch (IOException e) {
+          System.out.println("Exception: " + e);
+          return null;
+        }
+        spilled.reloaded = resident(spilled.lazy ? LazyImageModel.of(image) : image);
+      }
+      return spilled.reloaded;
+    }
+  }
+
+  /**
+   * Method to store the image of an alias, replacing any previous one.
+   *
+   * @param alias alias of the image.
+   * @param image image to store.
+   */
+  void put(String alias, ImageModelNew image) {
+    Slot slot = resident(image);
+    released(this.slots.put(alias, slot));
+    this.residentBytes.addAndGet(slot.size);
+    evict(alias);
+  }
+
+  /**
+   * Method to store the image of an alias only if the alias has no image yet.
+   *
+   * @param alias alias of the image.
+   * @param image image to store.
+   * @return image already stored for the alias, or null if the given image was stored.
+   */
+  ImageModelNew putIfAbsent(String alias, ImageModelNew image) {
+    Slot slot = resident(image);
+    Slot existing = this.slots.putIfAbsent(alias, slot);
+    if (existing != null) {
+      return get(alias);
+    }
+    this.residentBytes.addAndGet(slot.size);
+    evict(alias);
+    return null;
+  }
+
+  /**
+   * Method to get the image of an alias, creating it first if the alias has no image. The
+   * function runs at most once per alias even when threads ask for the same alias together.
+   *
+   * @param alias   alias of the image.
+   * @param creator function creating the image from the alias, may return null.
+   * @return image of the alias, or null if it had none and the function returned null.
+   */
+  ImageModelNew computeIfAbsent(String alias, Function<String, ImageModelNew> creator) {
+    Slot[] created = new Slot[1];
+    Slot slot = this.slots.computeIfAbsent(alias, key -> {
+      ImageModelNew image = creator.apply(key);
+      created[0] = image == null ? null : resident(image);
+      return created[0];
+    });
+    if (created[0] != null) {
+      this.residentBytes.addAndGet(created[0].size);
+      evict(alias);
+      return created[0].image;
+    }
+    return slot == null ? null : get(alias);
+  }
+
+  /**
+   * Method to get a snapshot of the aliases, resident or spilled, in alphabetical order.
+   * Later changes of the map do not affect the returned list.
+   *
+   * @return sorted list of aliases.
+   */
+  List<String> aliases() {
+    List<String> aliases = new ArrayList<>(this.slots.keySet());
+    Collections.sort(aliases);
+    return aliases;
+  }
+
+  /**
+   * Method to get the bytes of pixels currently in memory.
+   *
+   * @return estimated bytes in memory.
+   */
+  long getResidentBytes() {
+    return this.residentBytes.get();
+  }
+
+  /**
+   * Method to check whether an alias is currently spilled to disk.
+   *
+   * @param alias alias of the image.
+   * @return true if the image is only on disk.
+   */
+  boolean isSpilled(String alias) {
+    Slot slot = this.slots.get(alias);
+    return slot != null && slot.image == null;
+  }
+
+  /**
+   * Method to create the slot of an image in memory, used most recently of all.
+   *
+   * @param image image to hold.
+   * @return resident slot.
+   */
+  private Slot resident(ImageModelNew image) {
+    Slot slot = new Slot(image, null, null, false);
+    slot.lastUsed = this.clock.incrementAndGet();
+    return slot;
+  }
+
+  /**
+   * Method to account for a slot that was replaced.
+   *
+   * @param old replaced slot, or null.
+   */
+  private void released(Slot old) {
+    if (old == null) {
+      return;
+    }
+    if (old.image != null) {
+      this.residentBytes.addAndGet(-old.size - old.retire());
+    } else {
+      old.file.delete();
+    }
+  }
+
+  /**
+   * Method to spill least recently used images until the budget is met. One thread evicts at
+   * a time, and the others return at once, since the running eviction sees their images too.
+   *
+   * @param keep alias that must stay in memory.
+   */
+  private void evict(String keep) {
+    while (this.residentBytes.get() > this.budget) {
+      synchronized (this.evictionLock) {
+        if (this.residentBytes.get() <= this.budget) {
+          return;
+        }
+        Map.Entry<String, Slot> victim = null;
+        for (Map.Entry<String, Slot> entry : this.slots.entrySet()) {
+          Slot slot = entry.getValue();
+          if (slot.image != null && slot.size > 0 && !entry.getKey().equals(keep)
+                  && canSpill(slot.image)
+                  && (victim == null || slot.lastUsed < victim.getValue().lastUsed)) {
+            victim = entry;
+          }
+        }
+        if (victim == null) {
+          return;
+        }
+        Slot slot = victim.getValue();
+        File file;
+        try {
+          file = spill(slot.image);
+        } catch (IOException e) {
+          System.out.println("Exception: " + e);
+          return;
+        }
+        if (this.slots.replace(victim.getKey(), slot, Slot.spilled(file, slot.image))) {
+          released(slot);
+        } else {
+          file.delete();
+        }
+      }
+    }
+  }
+
+  /**
+   * Method to write an image to a new spill file, as a wavelet file of its coefficients if it
+   * was compressed and as a binary PPM file otherwise.
+   *
+   * @param image image to write.
+   * @return spill file.
+   * @throws IOException if the file cannot be written.
+   */
+  private File spill(ImageModelNew image) throws IOException {
+    if (this.directory == null) {
+      File created = Files.createTempDirectory("image-store").toFile();
+      created.deleteOnExit();
+      this.directory = created;
+    }
+    ImageModelNewImpl pixels = (ImageModelNewImpl) LazyImageModel.materialize(image);
+    byte[] data = pixels.getWaveletData();
+    String extension = data == null ? "ppm" : WaveletCodec.EXTENSION;
+    File file = new File(this.directory, this.nextFile.getAndIncrement() + "." + extension);
+    file.deleteOnExit();
+    if (data == null) {
+      PpmWriter.write(pixels.getPixelBuffer(), file.getPath(), true);
+    } else {
+      Files.write(file.toPath(), data);
+    }
+    return file;
+  }
+}
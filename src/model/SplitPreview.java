@@ -0,0 +1,88 @@
+package model;
+
+/**
+ * Split view of an operation that is recomposed from the original and the fully processed
+ * image instead of running the operation again for every split percentage. It keeps its own
+ * working copy of the pixels, left of the split taken from the processed image and right of it
+ * from the original, and moving the split only updates the columns between the old and the new
+ * split position in it. Every image it returns holds a snapshot of the working copy, so images
+ * already handed out, such as one kept in a store, never change afterwards. That snapshot copies
+ * every pixel, so each position still costs time in proportion to the area of the image, only
+ * without running the operation again; callers showing many positions of a large image should
+ * preview a copy reduced to the size shown. The result is the same as running the operation
+ * with the percentage as its split argument.
+ */
+public final class SplitPreview {
+  private final int width;
+  private final int height;
+  private final int[] original;
+  private final int[] processed;
+  private final int[] working;
+  private int columns;
+
+  /**
+   * Constructor for a preview showing the original image in full.
+   *
+   * @param original  packed pixels of the original image.
+   * @param processed packed pixels of the processed image, of the same size.
+   * @param width     width of the images.
+   * @param height    height of the images.
+   */
+  private SplitPreview(int[] original, int[] processed, int width, int height) {
+    this.width = width;
+    this.height = height;
+    this.original = original;
+    this.processed = processed;
+    this.working = original.clone();
+    this.columns = 0;
+  }
+
+  /**
+   * Method to create the split preview of a processed image.
+   *
+   * @param original  image before the operation.
+   * @param processed image after the operation on the whole image.
+   * @return split preview, or null if the images are not held as pixels or differ in size.
+   */
+  public static SplitPreview of(ImageModelNew original, ImageModelNew processed) {
+    if (!(original instanceof ImageModelNewImpl || original instanceof LazyImageModel)
+            || !(processed instanceof ImageModelNewImpl
+            || processed instanceof LazyImageModel)) {
+      return null;
+    }
+    PixelBuffer before = ((ImageModelNewImpl) LazyImageModel.materialize(original))
+            .getPixelBuffer();
+    PixelBuffer after = ((ImageModelNewImpl) LazyImageModel.materialize(processed))
+            .getPixelBuffer();
+    if (before.getWidth() != after.getWidth() || before.getHeight() != after.getHeight()) {
+      return null;
+    }
+    return new SplitPreview(before.getPixels(), after.getPixels(), before.getWidth(),
+            before.getHeight());
+  }
+
+  /**
+   * Method to get the image processed on the left part only.
+   *
+   * @param per        percentage of the width that shows the processed image.
+   * @param imageAlias name of the image.
+   * @return new image of the split view.
+   * @throws IllegalArgumentException if the percentage is not between 0 and 100.
+   */
+  public ImageModelNew at(double per, String imageAlias) throws IllegalArgumentException {
+    if (per < 0 || per > 100) {
+      throw new IllegalArgumentException("Percentage should be between 0 and 100.");
+    }
+    int w = (int) (per * this.width) / 100;
+    int from = Math.min(w, this.columns);
+    int count = Math.abs(w - this.columns);
+    int[] source = w > this.columns ? this.processed : this.original;
+    for (int j = 0; j < this.height && count > 0; j++) {
+      int index = j * this.width + from;
+      System.arraycopy(source, index, this.working, index, count);
+    }
+    this.columns = w;
+    return new ImageModelNewImpl(new PackedPixelBuffer(this.width, this.height,
+            this.working.clone()), imageAlias);
+  }
+}
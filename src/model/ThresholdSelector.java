@@ -0,0 +1,49 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Selection of the compression threshold among the distinct coefficient magnitudes.
+ * The threshold is the distinct value found at the given fraction of the sorted distinct
+ * values, or the largest one when the fraction is 1. Values are sorted as primitives and
+ * counted in place, so no boxed copy of the coefficients is ever made.
+ */
+final class ThresholdSelector {
+
+  /**
+   * Private Constructor, the selector only has static methods.
+   */
+  private ThresholdSelector() {
+  }
+
+  /**
+   * Method to select the threshold. The given array is sorted in place.
+   *
+   * @param values non-empty array of magnitudes, reordered by this method.
+   * @param ratio  fraction of the distinct values falling at or below the threshold.
+   * @return selected threshold.
+   */
+  static double select(double[] values, double ratio) {
+    Arrays.parallelSort(values);
+    int distinct = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (i == 0 || Double.compare(values[i], values[i - 1]) != 0) {
+        distinct++;
+      }
+    }
+    int target = (int) (distinct * ratio);
+    if (ratio == 1) {
+      target = target - 1;
+    }
+    int seen = -1;
+    for (int i = 0; i < values.length; i++) {
+      if (i == 0 || Double.compare(values[i], values[i - 1]) != 0) {
+        seen++;
+        if (seen == target) {
+          return values[i];
+        }
+      }
+    }
+    throw new ArrayIndexOutOfBoundsException("Threshold index " + target + " out of range.");
+  }
+}
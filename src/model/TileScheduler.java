@@ -0,0 +1,188 @@
+package model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Scheduler that splits per-pixel work into bands and runs them on a fork/join pool.
+ * Every band writes a disjoint part of the output and only reads the immutable source, so the
+ * result does not depend on how the work was split or on the number of threads.
+ * The parallelism level is read from the {@code image.parallelism} system property, defaulting
+ * to the number of available processors, and can be changed with {@link #setParallelism(int)}.
+ * A parallelism of 1 runs everything on the calling thread.
+ */
+final class TileScheduler {
+  static final String PARALLELISM_PROPERTY = "image.parallelism";
+  private static final int MIN_PIXELS_PER_BAND = 1 << 14;
+
+  private static volatile ForkJoinPool pool = createPool(defaultParallelism());
+
+  /**
+   * Work done on one band of a range.
+   */
+  interface Band {
+    /**
+     * Method to process the indices start to end - 1.
+     *
+     * @param start first index of the band.
+     * @param end   index after the last one of the band.
+     */
+    void run(int start, int end);
+  }
+
+  /**
+   * Private Constructor, the scheduler only has static methods.
+   */
+  private TileScheduler() {
+  }
+
+  /**
+   * Method to read the parallelism level from the system property.
+   *
+   * @return configured parallelism, or the number of available processors.
+   */
+  private static int defaultParallelism() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    String value = System.getProperty(PARALLELISM_PROPERTY);
+    if (value == null) {
+      return processors;
+    }
+    try {
+      return Math.max(1, Integer.parseInt(value.trim()));
+    } catch (NumberFormatException e) {
+      return processors;
+    }
+  }
+
+  /**
+   * Method to create the pool for a parallelism level.
+   *
+   * @param parallelism number of threads.
+   * @return new pool, or null when work runs on the calling thread.
+   */
+  private static ForkJoinPool createPool(int parallelism) {
+    return parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+  }
+
+  /**
+   * Method to get the current parallelism level.
+   *
+   * @return number of threads used for one operation.
+   */
+  static int getParallelism() {
+    ForkJoinPool current = pool;
+    return current == null ? 1 : current.getParallelism();
+  }
+
+  /**
+   * Method to change the parallelism level. Operations already running finish on the old pool.
+   *
+   * @param parallelism number of threads used for one operation.
+   * @throws IllegalArgumentException if the parallelism is less than 1.
+   */
+  static synchronized void setParallelism(int parallelism) throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1.");
+    }
+    ForkJoinPool old = pool;
+    pool = createPool(parallelism);
+    if (old != null) {
+      old.shutdown();
+    }
+  }
+
+  /**
+   * Method to run a band task over every pixel index of an image.
+   *
+   * @param count number of pixels.
+   * @param task  work to do on each band of pixels.
+   */
+  static void forEachPixel(int count, Band task) {
+    forEachRange(count, MIN_PIXELS_PER_BAND, task);
+  }
+
+  /**
+   * Method to run a band task over every row of an image.
+   *
+   * @param width  width of the image.
+   * @param height number of rows.
+   * @param task   work to do on each band of rows.
+   */
+  static void forEachRow(int width, int height, Band task) {
+    forEachRange(height, Math.max(1, MIN_PIXELS_PER_BAND / Math.max(1, width)), task);
+  }
+
+  /**
+   * Method to run a number of independent tasks, each index as a band of its own.
+   *
+   * @param count number of tasks.
+   * @param task  work to do on each band of task indices.
+   */
+  static void forEachTask(int count, Band task) {
+    forEachRange(count, 1, task);
+  }
+
+  /**
+   * Method to split a range into bands of at least a minimum size and run them.
+   *
+   * @param length   size of the range.
+   * @param minBand  smallest band worth running as its own task.
+   * @param task     work to do on each band.
+   */
+  private static void forEachRange(int length, int minBand, Band task) {
+    ForkJoinPool current = pool;
+    if (current == null || length <= minBand) {
+      task.run(0, length);
+      return;
+    }
+    int bands = current.getParallelism() * 4;
+    int grain = Math.max(minBand, (length + bands - 1) / bands);
+    try {
+      current.invoke(new BandAction(task, 0, length, grain));
+    } catch (RejectedExecutionException e) {
+      // the pool was replaced while this operation started, run it here instead
+      task.run(0, length);
+    }
+  }
+
+  /**
+   * Fork/join action splitting a range in halves until it is no larger than the grain.
+   */
+  private static final class BandAction extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final Band task;
+    private final int start;
+    private final int end;
+    private final int grain;
+
+    /**
+     * Constructor for one part of the range.
+     *
+     * @param task  work to do on each band.
+     * @param start first index of this part.
+     * @param end   index after the last one of this part.
+     * @param grain largest band run without splitting.
+     */
+    BandAction(Band task, int start, int end, int grain) {
+      this.task = task;
+      this.start = start;
+      this.end = end;
+      this.grain = grain;
+    }
+
+    /**
+     * Method to run this part, splitting it first if it is too large.
+     */
+    @Override
+    protected void compute() {
+      if (end - start <= grain) {
+        task.run(start, end);
+        return;
+      }
+      int middle = (start + end) >>> 1;
+      invokeAll(new BandAction(task, start, middle, grain),
+              new BandAction(task, middle, end, grain));
+    }
+  }
+}
@@ -0,0 +1,762 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Encoder and decoder of the wavelet image format, which stores the Haar coefficients of an
+ * image instead of its pixels.
+ *
+ * <p>The file starts with the bytes {@code HAAR}, a version byte, and the width, height and
+ * padded sides of the image as varints. Coefficients follow from the coarsest level to the
+ * finest one: the coefficients added by each level form a ring around those of the coarser
+ * levels. Every coefficient of a ring went through the same passes of the transform, each
+ * dividing by sqrt(2), so multiplying it by sqrt(2) once per pass gives the whole number of
+ * the sums and differences of pixels it was made from. The file holds that number, rounded
+ * where compression left a coefficient between two of them. Green is written first and red and
+ * blue as their difference from green, since the three channels mostly change together.
+ *
+ * <p>The numbers of a ring are written as a bit stream of adaptive Golomb-Rice codes. Each
+ * number picks one of a few statistics by the size of its left and upper neighbours, and
+ * is coded with the parameter fitting the recent numbers of that statistic, so busy areas
+ * spend bits where they are needed and smooth areas almost none. Where both neighbours are
+ * zero the length of the run of zeros that follows is written instead, so the rings of a
+ * heavily compressed image cost a few bits each.
+ *
+ * <p>After the finest ring come the few channel values where undoing the transform on the
+ * stored numbers does not round to the encoded pixels, so full resolution decodes exactly.
+ *
+ * <p>Because coarse levels come first, decoding at a lower resolution only reads the start of
+ * the file and undoes fewer levels of the transform.
+ */
+final class WaveletCodec {
+  static final String EXTENSION = "haar";
+  private static final byte[] MAGIC = {'H', 'A', 'A', 'R'};
+  private static final int VERSION = 2;
+  private static final double SQRT_2 = Math.sqrt(2);
+  private static final int[] CHANNEL_ORDER = {1, 0, 2};
+  private static final int CONTEXTS = 16;
+  private static final int RESET = 128;
+  private static final int UNARY_LIMIT = 24;
+  private static final int MAX_PARAMETER = 48;
+
+  /**
+   * Private Constructor, the codec only has static methods.
+   */
+  private WaveletCodec() {
+  }
+
+  /**
+   * Method to encode pixels without dropping any coefficient other than those the transform
+   * itself rounds to zero, so decoding at full resolution gives the pixels back.
+   *
+   * @param pixels pixels of the image.
+   * @return encoded image.
+   */
+  static byte[] encode(PixelBuffer pixels) {
+    int rows = HaarTransform.paddedLength(pixels.getWidth());
+    int cols = HaarTransform.paddedLength(pixels.getHeight());
+    double[][] channels = HaarTransform.splitChannels(pixels, rows, cols);
+    HaarTransform transform = new HaarTransform(rows, cols);
+    for (double[] channel : channels) {
+      transform.forward(channel);
+    }
+    return encode(rows, cols, channels, pixels);
+  }
+
+  /**
+   * Method to encode already transformed channels, so that decoding at full resolution gives
+   * exactly the given pixels. The channels are used as scratch space and changed.
+   *
+   * @param rows     padded width, the number of rows of each channel.
+   * @param cols     padded height, the number of columns of each channel.
+   * @param channels transformed red, green and blue channels laid out as [x][y].
+   * @param pixels   pixels the channels invert to, which decoding must give back.
+   * @return encoded image.
+   */
+  static byte[] encode(int rows, int cols, double[][] channels, PixelBuffer pixels) {
+    int width = pixels.getWidth();
+    int height = pixels.getHeight();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(MAGIC, 0, MAGIC.length);
+    out.write(VERSION);
+    writeVarLong(out, width);
+    writeVarLong(out, height);
+    writeVarLong(out, rows);
+    writeVarLong(out, cols);
+    BitWriter bits = new BitWriter(out);
+    int levels = new HaarTransform(rows, cols).getLevels();
+    for (int level = levels; level >= 0; level--) {
+      Ring ring = new Ring(rows, cols, level, levels);
+      double scale = ring.scale();
+      long[][] values = new long[3][ring.size()];
+      for (int c = 0; c < 3; c++) {
+        int n = 0;
+        for (int i = 0; i < ring.rows; i++) {
+          for (int j = ring.firstColumn(i); j < ring.cols; j++) {
+            long value = Math.round(channels[c][i * cols + j] * scale);
+            channels[c][i * cols + j] = value / scale;
+            values[c][n++] = value;
+          }
+        }
+      }
+      for (int c : CHANNEL_ORDER) {
+        long[] numbers = values[c];
+        if (c != 1) {
+          for (int n = 0; n < numbers.length; n++) {
+            numbers[n] -= values[1][n];
+          }
+        }
+        writeRing(bits, ring, numbers);
+      }
+    }
+    HaarTransform transform = new HaarTransform(rows, cols);
+    for (double[] channel : channels) {
+      transform.inverse(channel);
+    }
+    writeCorrections(bits, pixels.getPixels(),
+            HaarTransform.packChannels(channels, width, height, cols));
+    bits.flush();
+    return out.toByteArray();
+  }
+
+  /**
+   * Method to write the channel values where the decoded pixels differ from the pixels to give
+   * back. Rounding the coefficients to whole numbers moves the decoded values by far less than
+   * one, so only values lying halfway between two whole numbers can end up one off.
+   *
+   * @param out      bit stream to write.
+   * @param expected pixels to give back.
+   * @param decoded  pixels decoding gives before the corrections.
+   */
+  private static void writeCorrections(BitWriter out, int[] expected, int[] decoded) {
+    long[] gaps = {4, 1};
+    long[] sizes = {4, 1};
+    for (int shift = 16; shift >= 0; shift -= 8) {
+      int count = 0;
+      for (int n = 0; n < expected.length; n++) {
+        if (((expected[n] >> shift) & 0xFF) != ((decoded[n] >> shift) & 0xFF)) {
+          count++;
+        }
+      }
+      writeCode(out, sizes, count);
+      int last = -1;
+      for (int n = 0; n < expected.length; n++) {
+        long difference = ((expected[n] >> shift) & 0xFF) - ((decoded[n] >> shift) & 0xFF);
+        if (difference != 0) {
+          writeCode(out, gaps, n - last - 1);
+          writeCode(out, sizes, ((difference << 1) ^ (difference >> 63)) - 1);
+          last = n;
+        }
+      }
+    }
+  }
+
+  /**
+   * Method to apply the corrections written by writeCorrections.
+   *
+   * @param in     bit stream to read.
+   * @param pixels decoded pixels, corrected in place.
+   * @throws IOException if the stream cannot be read or a correction is invalid.
+   */
+  private static void readCorrections(BitReader in, int[] pixels) throws IOException {
+    long[] gaps = {4, 1};
+    long[] sizes = {4, 1};
+    for (int shift = 16; shift >= 0; shift -= 8) {
+      long count = readCode(in, sizes);
+      long n = -1;
+      for (long k = 0; k < count; k++) {
+        n += readCode(in, gaps) + 1;
+        if (n < 0 || n >= pixels.length) {
+          throw new IOException("Invalid wavelet file: correction outside the image.");
+        }
+        int index = (int) n;
+        long zigzag = readCode(in, sizes) + 1;
+        long value = ((pixels[index] >> shift) & 0xFF) + ((zigzag >>> 1) ^ -(zigzag & 1));
+        if (value < 0 || value > 255) {
+          throw new IOException("Invalid wavelet file: correction outside the channel range.");
+        }
+        pixels[index] = (pixels[index] & ~(0xFF << shift)) | ((int) value << shift);
+      }
+    }
+  }
+
+  /**
+   * Method to read an image from a file in the wavelet format.
+   *
+   * @param path  path of the file.
+   * @param level number of halvings of the resolution, 0 for the full image.
+   * @return decoded pixels.
+   * @throws IOException if the file cannot be read or is not in the wavelet format.
+   */
+  static PixelBuffer read(String path, int level) throws IOException {
+    try (InputStream in = new BufferedInputStream(new FileInputStream(path))) {
+      return decode(in, level);
+    }
+  }
+
+  /**
+   * Method to decode an image, possibly at a lower resolution.
+   * Each level halves both sides, down to one pixel along a side that has no levels left.
+   *
+   * @param in    stream positioned at the start of the encoded image.
+   * @param level number of halvings of the resolution, 0 for the full image.
+   * @return decoded pixels.
+   * @throws IOException if the stream cannot be read or is not in the wavelet format.
+   */
+  static PixelBuffer decode(InputStream in, int level) throws IOException {
+    if (level < 0) {
+      throw new IllegalArgumentException("Level must not be negative.");
+    }
+    DataInputStream data = new DataInputStream(in);
+    byte[] magic = new byte[MAGIC.length];
+    data.readFully(magic);
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (magic[i] != MAGIC[i]) {
+        throw new IOException("Invalid wavelet file: file should begin with HAAR");
+      }
+    }
+    if (data.readUnsignedByte() != VERSION) {
+      throw new IOException("Unsupported wavelet file version.");
+    }
+    int width = readSide(data);
+    int height = readSide(data);
+    int rows = readSide(data);
+    int cols = readSide(data);
+    if (HaarTransform.paddedLength(width) != rows || HaarTransform.paddedLength(height) != cols) {
+      throw new IOException("Invalid wavelet file: inconsistent sizes.");
+    }
+    // the three channels are held as doubles, each in one array
+    if ((long) rows * cols > Integer.MAX_VALUE - 8
+            || 3L * rows * cols > Runtime.getRuntime().maxMemory() / Double.BYTES) {
+      throw new IOException("Invalid wavelet file: image too large: " + width + "x" + height);
+    }
+    HaarTransform transform = new HaarTransform(rows, cols);
+    int levels = transform.getLevels();
+    int target = Math.min(level, levels);
+    double[][] channels = new double[3][rows * cols];
+    BitReader bits = new BitReader(data);
+    for (int current = levels; current >= target; current--) {
+      Ring ring = new Ring(rows, cols, current, levels);
+      double scale = ring.scale();
+      long[][] values = new long[3][ring.size()];
+      for (int c : CHANNEL_ORDER) {
+        readRing(bits, ring, values[c]);
+        if (c != 1) {
+          for (int n = 0; n < values[c].length; n++) {
+            values[c][n] += values[1][n];
+          }
+        }
+      }
+      for (int c = 0; c < 3; c++) {
+        int n = 0;
+        for (int i = 0; i < ring.rows; i++) {
+          for (int j = ring.firstColumn(i); j < ring.cols; j++) {
+            channels[c][i * cols + j] = values[c][n++] / scale;
+          }
+        }
+      }
+    }
+    for (double[] channel : channels) {
+      transform.inverse(channel, target);
+    }
+    if (target == 0) {
+      int[] pixels = HaarTransform.packChannels(channels, width, height, cols);
+      readCorrections(bits, pixels);
+      return new PackedPixelBuffer(width, height, pixels);
+    }
+    return averageBlocks(channels, width, height, rows, cols, target);
+  }
+
+  /**
+   * Method to turn partially inverted channels into a reduced image. Every value of the
+   * top-left block stands for a block of pixels, whose average it gives once the scaling of the
+   * remaining levels is undone and the sum is divided by the pixels actually inside the image.
+   *
+   * @param channels partially inverted red, green and blue channels.
+   * @param width    width of the full image.
+   * @param height   height of the full image.
+   * @param rows     number of rows of each channel.
+   * @param cols     number of columns of each channel.
+   * @param level    number of levels left transformed.
+   * @return reduced image.
+   */
+  private static PixelBuffer averageBlocks(double[][] channels, int width, int height,
+                                           int rows, int cols, int level) {
+    double scale = 1;
+    for (int current = 0; current < level; current++) {
+      if ((rows >> current) > 1) {
+        scale *= SQRT_2;
+      }
+      if ((cols >> current) > 1) {
+        scale *= SQRT_2;
+      }
+    }
+    int spanX = rows / Math.max(1, rows >> level);
+    int spanY = cols / Math.max(1, cols >> level);
+    int reducedWidth = (width + spanX - 1) / spanX;
+    int reducedHeight = (height + spanY - 1) / spanY;
+    int[] pixels = new int[reducedWidth * reducedHeight];
+    for (int x = 0; x < reducedWidth; x++) {
+      int coveredX = Math.min(width, (x + 1) * spanX) - x * spanX;
+      for (int y = 0; y < reducedHeight; y++) {
+        int coveredY = Math.min(height, (y + 1) * spanY) - y * spanY;
+        double factor = scale / (coveredX * coveredY);
+        int index = x * cols + y;
+        pixels[y * reducedWidth + x] = PixelBuffer.pack(
+                (int) Math.round(channels[0][index] * factor),
+                (int) Math.round(channels[1][index] * factor),
+                (int) Math.round(channels[2][index] * factor));
+      }
+    }
+    return new PackedPixelBuffer(reducedWidth, reducedHeight, pixels);
+  }
+
+  /**
+   * Method to write the whole numbers of one channel in one ring, in the order of its rows.
+   *
+   * @param out     bit stream to write.
+   * @param ring    positions of the ring.
+   * @param numbers numbers of the ring.
+   */
+  private static void writeRing(BitWriter out, Ring ring, long[] numbers) {
+    RingContext context = new RingContext(ring);
+    int n = 0;
+    boolean nonZero = false;
+    while (n < numbers.length) {
+      int statistic = context.statistic();
+      if (statistic == 0 && !nonZero) {
+        int run = 0;
+        while (n + run < numbers.length && numbers[n + run] == 0) {
+          run++;
+        }
+        writeCode(out, context.runs, run);
+        for (int k = 0; k < run; k++) {
+          context.next(0);
+        }
+        n += run;
+        nonZero = n < numbers.length;
+        continue;
+      }
+      long zigzag = (numbers[n] << 1) ^ (numbers[n] >> 63);
+      writeCode(out, context.statistics[statistic], nonZero ? zigzag - 1 : zigzag);
+      nonZero = false;
+      context.next(zigzag);
+      n++;
+    }
+  }
+
+  /**
+   * Method to read the whole numbers of one channel in one ring, written by writeRing.
+   *
+   * @param in      bit stream to read.
+   * @param ring    positions of the ring.
+   * @param numbers receives the numbers of the ring.
+   * @throws IOException if the stream cannot be read or holds more numbers than the ring.
+   */
+  private static void readRing(BitReader in, Ring ring, long[] numbers) throws IOException {
+    RingContext context = new RingContext(ring);
+    int n = 0;
+    boolean nonZero = false;
+    while (n < numbers.length) {
+      int statistic = context.statistic();
+      if (statistic == 0 && !nonZero) {
+        long run = readCode(in, context.runs);
+        if (run < 0 || run > numbers.length - n) {
+          throw new IOException("Invalid wavelet file: coefficient outside its level.");
+        }
+        for (long k = 0; k < run; k++) {
+          context.next(0);
+        }
+        n += (int) run;
+        nonZero = n < numbers.length;
+        continue;
+      }
+      long zigzag = readCode(in, context.statistics[statistic]) + (nonZero ? 1 : 0);
+      nonZero = false;
+      context.next(zigzag);
+      numbers[n++] = (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+  }
+
+  /**
+   * Method to write a number with the Golomb-Rice parameter of a statistic, and add it to
+   * the statistic. Numbers whose quotient is too long are written in full after an escape.
+   *
+   * @param out       bit stream to write.
+   * @param statistic sum and count of the recent numbers coded with it.
+   * @param value     non-negative number.
+   */
+  private static void writeCode(BitWriter out, long[] statistic, long value) {
+    int parameter = parameter(statistic);
+    long quotient = value >>> parameter;
+    if (quotient < UNARY_LIMIT) {
+      out.writeOnes((int) quotient);
+      out.write(0, 1);
+      out.write(value, parameter);
+    } else {
+      out.writeOnes(UNARY_LIMIT);
+      out.write(value, 64);
+    }
+    update(statistic, value);
+  }
+
+  /**
+   * Method to read a number written by writeCode with the same statistic.
+   *
+   * @param in        bit stream to read.
+   * @param statistic sum and count of the recent numbers coded with it.
+   * @return number read.
+   * @throws IOException if the stream ends.
+   */
+  private static long readCode(BitReader in, long[] statistic) throws IOException {
+    int parameter = parameter(statistic);
+    int quotient = 0;
+    while (quotient < UNARY_LIMIT && in.read(1) == 1) {
+      quotient++;
+    }
+    long value;
+    if (quotient < UNARY_LIMIT) {
+      value = ((long) quotient << parameter) | in.read(parameter);
+    } else {
+      value = in.read(64);
+    }
+    update(statistic, value);
+    return value;
+  }
+
+  /**
+   * Method to pick the Golomb-Rice parameter of a statistic, the number of low bits written as
+   * they are, so that the quotient of a number near the recent average is about one.
+   *
+   * @param statistic sum and count of recent numbers.
+   * @return parameter between 0 and MAX_PARAMETER.
+   */
+  private static int parameter(long[] statistic) {
+    int parameter = 0;
+    while (parameter < MAX_PARAMETER && (statistic[1] << parameter) < statistic[0]) {
+      parameter++;
+    }
+    return parameter;
+  }
+
+  /**
+   * Method to add a number to a statistic, halving it regularly so it follows recent numbers.
+   *
+   * @param statistic sum and count of recent numbers.
+   * @param value     number coded.
+   */
+  private static void update(long[] statistic, long value) {
+    statistic[0] += value;
+    statistic[1]++;
+    if (statistic[1] >= RESET) {
+      statistic[0] = (statistic[0] + 1) / 2;
+      statistic[1] = (statistic[1] + 1) / 2;
+    }
+  }
+
+  /**
+   * Method to read a side length from the header.
+   *
+   * @param in stream to read.
+   * @return side length.
+   * @throws IOException if the stream cannot be read or the length is invalid.
+   */
+  private static int readSide(DataInputStream in) throws IOException {
+    long value = readVarLong(in);
+    if (value < 1 || value > (1 << 30)) {
+      throw new IOException("Invalid wavelet file: bad image size.");
+    }
+    return (int) value;
+  }
+
+  /**
+   * Method to write a non-negative number using 7 bits per byte.
+   *
+   * @param out   stream to write.
+   * @param value number to write.
+   */
+  private static void writeVarLong(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  /**
+   * Method to read a number written by writeVarLong.
+   *
+   * @param in stream to read.
+   * @return number read.
+   * @throws IOException if the stream ends or the number is too long.
+   */
+  private static long readVarLong(DataInputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.read();
+      if (b < 0) {
+        throw new EOFException("Unexpected end of wavelet file");
+      }
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Invalid wavelet file: number too long.");
+  }
+
+  /**
+   * Positions added by one level: the top-left block of that level without the block of the
+   * next coarser level.
+   */
+  private static final class Ring {
+    private final int rows;
+    private final int cols;
+    private final int innerRows;
+    private final int innerCols;
+    private final int fullRows;
+    private final int fullCols;
+    private final int level;
+    private final int levels;
+
+    /**
+     * Constructor for the ring of a level.
+     *
+     * @param rows   number of rows of the channel.
+     * @param cols   number of columns of the channel.
+     * @param level  level of the ring, the coarsest one being the single top-left value.
+     * @param levels number of levels of the transform.
+     */
+    Ring(int rows, int cols, int level, int levels) {
+      this.rows = Math.max(1, rows >> level);
+      this.cols = Math.max(1, cols >> level);
+      this.innerRows = level == levels ? 0 : Math.max(1, rows >> (level + 1));
+      this.innerCols = level == levels ? 0 : Math.max(1, cols >> (level + 1));
+      this.fullRows = rows;
+      this.fullCols = cols;
+      this.level = level;
+      this.levels = levels;
+    }
+
+    /**
+     * Method to get the factor turning the coefficients of the ring into whole numbers: sqrt(2)
+     * once for every pass of the transform they went through. Every coefficient of a ring went
+     * through the passes of the finer levels and the pass of its own level.
+     *
+     * @return scale of the ring.
+     */
+    double scale() {
+      int passes = 0;
+      for (int step = 0; step <= this.level && step < this.levels; step++) {
+        if ((this.fullRows >> step) > 1) {
+          passes++;
+        }
+        if ((this.fullCols >> step) > 1) {
+          passes++;
+        }
+      }
+      double scale = 1L << (passes / 2);
+      return passes % 2 == 0 ? scale : scale * SQRT_2;
+    }
+
+    /**
+     * Method to get the number of coefficients of the ring.
+     *
+     * @return positions of the ring.
+     */
+    int size() {
+      return this.rows * this.cols - this.innerRows * this.innerCols;
+    }
+
+    /**
+     * Method to get the first column of a row that belongs to the ring.
+     *
+     * @param row row of the block.
+     * @return first column of the ring in that row.
+     */
+    int firstColumn(int row) {
+      return row < innerRows ? innerCols : 0;
+    }
+  }
+
+  /**
+   * Neighbours and statistics used while the numbers of one ring are coded in row order.
+   * The statistic of a number is picked by the number of bits of the sum of the zigzag codes
+   * of its left and upper neighbours, positions outside the ring counting as zero.
+   */
+  private static final class RingContext {
+    private final Ring ring;
+    private final long[][] statistics = new long[CONTEXTS][];
+    private final long[] runs = {4, 1};
+    private long[] previous;
+    private long[] current;
+    private int row;
+    private int column;
+
+    /**
+     * Constructor placed on the first position of a ring.
+     *
+     * @param ring ring being coded.
+     */
+    RingContext(Ring ring) {
+      this.ring = ring;
+      for (int k = 0; k < CONTEXTS; k++) {
+        this.statistics[k] = new long[]{4, 1};
+      }
+      this.previous = new long[ring.cols];
+      this.current = new long[ring.cols];
+      this.column = ring.firstColumn(0);
+      skipEmptyRows();
+    }
+
+    /**
+     * Method to get the statistic of the current position.
+     *
+     * @return index of the statistic, 0 when both neighbours are zero.
+     */
+    int statistic() {
+      long left = this.column > 0 ? this.current[this.column - 1] : 0;
+      long sum = left + this.previous[this.column];
+      return sum == 0 ? 0 : Math.min(CONTEXTS - 1, 64 - Long.numberOfLeadingZeros(sum));
+    }
+
+    /**
+     * Method to record the zigzag code of the current position and move to the next one.
+     *
+     * @param zigzag zigzag code of the number at the current position.
+     */
+    void next(long zigzag) {
+      this.current[this.column] = zigzag;
+      this.column++;
+      skipEmptyRows();
+    }
+
+    /**
+     * Method to move to the next row holding positions of the ring once a row is done. Rows
+     * crossing the block of coarser levels may hold none.
+     */
+    private void skipEmptyRows() {
+      while (this.column >= this.ring.cols && this.row + 1 < this.ring.rows) {
+        long[] swap = this.previous;
+        this.previous = this.current;
+        this.current = swap;
+        Arrays.fill(this.current, 0);
+        this.row++;
+        this.column = this.ring.firstColumn(this.row);
+      }
+    }
+  }
+
+  /**
+   * Bit stream written most significant bit first into a byte stream.
+   */
+  private static final class BitWriter {
+    private final ByteArrayOutputStream out;
+    private long buffer;
+    private int count;
+
+    /**
+     * Constructor for a writer appending to a byte stream.
+     *
+     * @param out byte stream to append to.
+     */
+    BitWriter(ByteArrayOutputStream out) {
+      this.out = out;
+    }
+
+    /**
+     * Method to write the low bits of a number.
+     *
+     * @param value number to write.
+     * @param bits  number of low bits written, up to 64.
+     */
+    void write(long value, int bits) {
+      if (bits > 32) {
+        write(value >>> 32, bits - 32);
+        write(value, 32);
+        return;
+      }
+      if (bits == 0) {
+        return;
+      }
+      this.buffer = (this.buffer << bits) | (value & ((1L << bits) - 1));
+      this.count += bits;
+      while (this.count >= 8) {
+        this.count -= 8;
+        this.out.write((int) (this.buffer >>> this.count));
+      }
+    }
+
+    /**
+     * Method to write a number of one bits.
+     *
+     * @param bits number of one bits.
+     */
+    void writeOnes(int bits) {
+      for (; bits > 0; bits -= Math.min(bits, 32)) {
+        write(-1L, Math.min(bits, 32));
+      }
+    }
+
+    /**
+     * Method to write the last bits, padded with zeros to a whole byte.
+     */
+    void flush() {
+      if (this.count > 0) {
+        write(0, 8 - this.count);
+      }
+    }
+  }
+
+  /**
+   * Bit stream read most significant bit first from a byte stream.
+   */
+  private static final class BitReader {
+    private final InputStream in;
+    private long buffer;
+    private int count;
+
+    /**
+     * Constructor for a reader of a byte stream.
+     *
+     * @param in byte stream to read.
+     */
+    BitReader(InputStream in) {
+      this.in = in;
+    }
+
+    /**
+     * Method to read a number.
+     *
+     * @param bits number of bits of the number, up to 64.
+     * @return number read.
+     * @throws IOException if the stream ends.
+     */
+    long read(int bits) throws IOException {
+      if (bits > 32) {
+        long high = read(bits - 32);
+        return (high << 32) | read(32);
+      }
+      if (bits == 0) {
+        return 0;
+      }
+      while (this.count < bits) {
+        int b = this.in.read();
+        if (b < 0) {
+          throw new EOFException("Unexpected end of wavelet file");
+        }
+        this.buffer = (this.buffer << 8) | b;
+        this.count += 8;
+      }
+      this.count -= bits;
+      return (this.buffer >>> this.count) & ((1L << bits) - 1);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package view;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs the features called by the GUI away from the Swing event thread, so that the window
+ * keeps repainting and reacting while an image is processed. Tasks run one at a time, in the
+ * order they are submitted, on a single background thread, so the store behind the features
+ * is never used by two tasks at once. Results and failures are handed back on the event
+ * thread. Every submitted task takes a new generation number: a preview, such as the split
+ * view of a slider position, is skipped if a newer task was submitted before it started, and
+ * its result is dropped if a newer task was submitted before it finished, so dragging the
+ * slider only computes the positions that are still wanted. Other tasks change the images and
+ * always run. The busy listener is told on the event thread when the first task is waiting
+ * and when the last one is done.
+ */
+final class FeatureExecutor {
+  private final ExecutorService executor;
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicInteger pending = new AtomicInteger();
+  private final Consumer<Boolean> busyListener;
+
+  /**
+   * Constructor for an executor with its own background thread.
+   *
+   * @param busyListener called with true when tasks start waiting and false when all are done.
+   */
+  FeatureExecutor(Consumer<Boolean> busyListener) {
+    this.busyListener = busyListener;
+    this.executor = Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "image-operations");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Method to run a task that changes the images, which is never skipped.
+   *
+   * @param task     task to run in the background.
+   * @param onResult receives the result on the event thread.
+   * @param onError  receives the failure on the event thread.
+   * @param <T>      type of the result.
+   */
+  <T> void run(Callable<T> task, Consumer<T> onResult, Consumer<Exception> onError) {
+    submit(task, onResult, onError, false);
+  }
+
+  /**
+   * Method to run a task only showing an image, skipped once a newer task is submitted.
+   *
+   * @param task     task to run in the background.
+   * @param onResult receives the result on the event thread, unless a newer task exists.
+   * @param onError  receives the failure on the event thread, unless a newer task exists.
+   * @param <T>      type of the result.
+   */
+  <T> void preview(Callable<T> task, Consumer<T> onResult, Consumer<Exception> onError) {
+    submit(task, onResult, onError, true);
+  }
+
+  /**
+   * Method to stop the background thread once the submitted tasks are done.
+   */
+  void shutdown() {
+    this.executor.shutdown();
+  }
+
+  /**
+   * Method to submit a task with a new generation number.
+   *
+   * @param task        task to run in the background.
+   * @param onResult    receives the result on the event thread.
+   * @param onError     receives the failure on the event thread.
+   * @param replaceable true if a newer task makes this one stale.
+   * @param <T>         type of the result.
+   */
+  private <T> void submit(Callable<T> task, Consumer<T> onResult, Consumer<Exception> onError,
+                          boolean replaceable) {
+    long stamp = this.generation.incrementAndGet();
+    if (this.pending.incrementAndGet() == 1) {
+      this.busyListener.accept(true);
+    }
+    this.executor.execute(() -> {
+      try {
+        if (replaceable && stamp != this.generation.get()) {
+          return;
+        }
+        T result = task.call();
+        publish(() -> {
+          if (!replaceable || stamp == this.generation.get()) {
+            onResult.accept(result);
+          }
+        });
+      } catch (Exception e) {
+        publish(() -> {
+          if (!replaceable || stamp == this.generation.get()) {
+            onError.accept(e);
+          }
+        });
+      } finally {
+        if (this.pending.decrementAndGet() == 0) {
+          publish(() -> {
+            if (this.pending.get() == 0) {
+              this.busyListener.accept(false);
+            }
+          });
+        }
+      }
+    });
+  }
+
+  /**
+   * Method to run an action on the event thread.
+   *
+   * @param action action to run.
+   */
+  private void publish(Runnable action) {
+    SwingUtilities.invokeLater(action);
+  }
+}
@@ -5,12 +5,14 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.ComponentOrientation;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.ItemEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.Callable;
 
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -31,6 +33,7 @@ import javax.swing.SpinnerNumberModel;
 import javax.swing.ImageIcon;
 import javax.swing.JOptionPane;
 import javax.swing.JFileChooser;
+import javax.swing.JProgressBar;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import controller.Features;
@@ -76,7 +79,10 @@ public class ImageGUIViewImpl extends JFrame implements ImageGUIView {
   private JButton executeButton;
   private JLabel histImageLabel;
   private JLabel modifiedImageLabel;
+  private JScrollPane modifiedImageScrollPane;
+  private JProgressBar progressBar;
   private Boolean isImageSaved = true;
+  private final FeatureExecutor featureExecutor;
 
   /**
    * Constructor that displays GUI window on screen.
@@ -84,6 +90,7 @@ public class ImageGUIViewImpl extends JFrame implements ImageGUIView {
   public ImageGUIViewImpl() {
     super();
     this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    this.featureExecutor = new FeatureExecutor(this::showBusy);
   }
 
 
@@ -118,7 +125,7 @@ public class ImageGUIViewImpl extends JFrame implements ImageGUIView {
     topPanel.add(imageTopPanel);
 
     modifiedImageLabel = new JLabel();
-    JScrollPane modifiedImageScrollPane = new JScrollPane(modifiedImageLabel);
+    modifiedImageScrollPane = new JScrollPane(modifiedImageLabel);
     modifiedImageScrollPane.setBackground(Color.LIGHT_GRAY);
     modifiedImageScrollPane.setBorder(BorderFactory.createTitledBorder("Processed Image"));
     modifiedImageScrollPane.setPreferredSize(new Dimension(800, 400));
@@ -271,9 +278,15 @@ public class ImageGUIViewImpl extends JFrame implements ImageGUIView {
     executeButton.setVisible(false);
     executeButton.setActionCommand("Execute Operation");
 
+    progressBar = new JProgressBar();
+    progressBar.setIndeterminate(true);
+    progressBar.setPreferredSize(new Dimension(200, 30));
+    progressBar.setVisible(false);
+
     bottomExecutionPanel.add(executeButton);
     bottomExecutionPanel.add(loadButton);
     bottomExecutionPanel.add(saveButton);
+    bottomExecutionPanel.add(progressBar);
 
     setVisible(true);
   }
@@ -331,20 +344,19 @@ public class ImageGUIViewImpl extends JFrame implements ImageGUIView {
    *
    * @param e        Event Triggered.
    * @param features Features to use on event.
-   * @throws IOException If Image not found.
    */
-  private void splitCheckChange(ItemEvent e, Features features) throws IOException {
+  private void splitCheckChange(ItemEvent e, Features features) {
     String who = ((JCheckBox) e.getItemSelectable()).getActionCommand();
     if (Objects.equals(who, "Split Selected")) {
       if (e.getStateChange() == ItemEvent.SELECTED) {
         splitPercentagePanel.setVisible(true);
         splitSlider.setValue(50);
         executePressed(features, splitSlider.getValue(), false);
-        modifiedImageLabel.setIcon(new ImageIcon(features.getCurrenSplitImage()));
       } else {
         splitPercentagePanel.setVisible(false);
         splitSlider.setValue(100);
-        modifiedImageLabel.setIcon(new ImageIcon(features.getCurrentImage()));
+        featureExecutor.preview(() -> new ImageIcon(features.getCurrentImage()),
+                modifiedImageLabel::setIcon, ex -> displayMessagePopUp(ex.getMessage()));
       }
     }
   }
@@ -354,9 +366,8 @@ public class ImageGUIViewImpl extends JFrame implements ImageGUIView {
    *
    * @param e    Event Triggered.
    * @param feat Features to use on event.
-   * @throws IOException If Image not found.
    */
-  private void slideStateChange(ChangeEvent e, Features feat) throws IOException {
+  private void slideStateChange(ChangeEvent e, Features feat) {
     if (e.getSource() instanceof JSlider) {
       JSlider sourceVal = (JSlider) e.getSource();
       if (!sourceVal.getValueIsAdjusting()) {
@@ -368,75 +379,119 @@ public class ImageGUIViewImpl extends JFrame implements ImageGUIView {
 
 
   /**
-   * Method to call different callbacks in execute button press.
+   * Method to call different callbacks in execute button press. The operation runs in the
+   * background and the images are shown once it is done, so the window never freezes. Split
+   * previews are replaced by any newer request.
+   *
+   * @param feat    Features to use on event.
+   * @param split   split value.
+   * @param execute boolean to view split.
+   */
+  private void executePressed(Features feat, int split, boolean execute) {
+    Callable<BufferedImage> operation = getOperation(feat, split, execute);
+    if (operation == null) {
+      return;
+    }
+    Callable<ImageIcon[]> task = () -> {
+      ImageIcon image = new ImageIcon(operation.call());
+      return new ImageIcon[]{image, new ImageIcon(feat.generateHistogram())};
+    };
+    if (execute) {
+      featureExecutor.run(task, this::showImages, e -> displayMessagePopUp(e.getMessage()));
+    } else {
+      featureExecutor.preview(task, this::showImages, e -> displayMessagePopUp(e.getMessage()));
+    }
+  }
+
+  /**
+   * Method to pick the callback of the selected operation, reading its inputs from the panels
+   * while on the event thread.
    *
    * @param feat    Features to use on event.
    * @param split   split value.
    * @param execute boolean to view split.
-   * @throws IOException If Image not found.
+   * @return callback giving the processed image, or null if no operation is selected.
    */
-  private void executePressed(Features feat, int split, boolean execute) throws IOException {
+  private Callable<BufferedImage> getOperation(Features feat, int split, boolean execute) {
     String currOperation = (String) operationsCombobox.getSelectedItem();
-    try {
-      switch (currOperation) {
-        case "Visualize Red Component":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeRedComponent()));
-          break;
-        case "Visualize Green Component":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeGreenComponent()));
-          break;
-        case "Visualize Blue Component":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeBlueComponent()));
-          break;
-        case "Flip Horizontal":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeHorizontalFlip()));
-          break;
-        case "Flip Vertical":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeVerticalFlip()));
-          break;
-        case "Blur":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeBlurOperation(split, execute)));
-          break;
-        case "Sharpen":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeSharpenOperation(split, execute)));
-          break;
-        case "Greyscale":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeGreyscaleOperation(split, execute)));
-          break;
-        case "Sepia":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeSepiaOperation(split, execute)));
-          break;
-        case "Compression":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeCompressionOperation(
-                  String.valueOf(compressionSpinner.getValue()))));
-          break;
-        case "Color Correction":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeColorCorrectOperation(
-                  split, execute)));
-          break;
-        case "Levels Adjust":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeLevelsAdjustOperation(
-                  String.valueOf(levelsBlackSpinner.getValue()), String.valueOf(
-                          levelsMidSpinner.getValue()), String.valueOf(
-                          levelsWhiteSpinner.getValue()), split, execute)));
-          break;
-        case "Brighten":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeBrightenOperation(
-                  String.valueOf(brightenSpinner.getValue()))));
-          break;
-        case "Darken":
-          modifiedImageLabel.setIcon(new ImageIcon(feat.executeDarkenOperation(
-                  String.valueOf(darkenSpinner.getValue()))));
-          break;
-        default:
-          break;
-      }
-      feat.generateHistogram();
-      histImageLabel.setIcon(new ImageIcon(feat.generateHistogram()));
-    } catch (Exception e) {
-      displayMessagePopUp(e.getMessage());
+    switch (currOperation) {
+      case "Visualize Red Component":
+        return feat::executeRedComponent;
+      case "Visualize Green Component":
+        return feat::executeGreenComponent;
+      case "Visualize Blue Component":
+        return feat::executeBlueComponent;
+      case "Flip Horizontal":
+        return feat::executeHorizontalFlip;
+      case "Flip Vertical":
+        return feat::executeVerticalFlip;
+      case "Blur":
+        return () -> feat.executeBlurOperation(split, execute);
+      case "Sharpen":
+        return () -> feat.executeSharpenOperation(split, execute);
+      case "Greyscale":
+        return () -> feat.executeGreyscaleOperation(split, execute);
+      case "Sepia":
+        return () -> feat.executeSepiaOperation(split, execute);
+      case "Compression":
+        String compression = String.valueOf(compressionSpinner.getValue());
+        return () -> feat.executeCompressionOperation(compression);
+      case "Color Correction":
+        return () -> feat.executeColorCorrectOperation(split, execute);
+      case "Levels Adjust":
+        String black = String.valueOf(levelsBlackSpinner.getValue());
+        String mid = String.valueOf(levelsMidSpinner.getValue());
+        String white = String.valueOf(levelsWhiteSpinner.getValue());
+        return () -> feat.executeLevelsAdjustOperation(black, mid, white, split, execute);
+      case "Brighten":
+        String brighten = String.valueOf(brightenSpinner.getValue());
+        return () -> feat.executeBrightenOperation(brighten);
+      case "Darken":
+        String darken = String.valueOf(darkenSpinner.getValue());
+        return () -> feat.executeDarkenOperation(darken);
+      default:
+        return null;
     }
+  }
 
+  /**
+   * Method to show a processed image and its histogram.
+   *
+   * @param images processed image followed by its histogram.
+   */
+  private void showImages(ImageIcon[] images) {
+    modifiedImageLabel.setIcon(images[0]);
+    histImageLabel.setIcon(images[1]);
+  }
+
+  /**
+   * Method to tell the features the size of the processed image area, so that previews are
+   * computed at that size. The preferred size is used until the area is laid out.
+   *
+   * @param features features to be used by GUI.
+   */
+  private void updatePreviewSize(Features features) {
+    Dimension size = modifiedImageScrollPane.getViewport().getExtentSize();
+    if (size.width <= 0 || size.height <= 0) {
+      size = modifiedImageScrollPane.getPreferredSize();
+    }
+    int width = size.width;
+    int height = size.height;
+    featureExecutor.run(() -> {
+      features.setPreviewSize(width, height);
+      return width;
+    }, ignored -> { }, e -> displayMessagePopUp(e.getMessage()));
+  }
+
+  /**
+   * Method to show or hide the progress bar while operations run.
+   *
+   * @param busy true while operations are waiting or running.
+   */
+  private void showBusy(boolean busy) {
+    if (progressBar != null) {
+      progressBar.setVisible(busy);
+    }
   }
 
   /**
@@ -464,9 +519,8 @@ public class ImageGUIViewImpl extends JFrame implements ImageGUIView {
    * Method to load the image in the on load click press.
    *
    * @param features features to be used by GUI.
-   * @throws IOException If file not found.
    */
-  private void onLoad(Features features) throws IOException {
+  private void onLoad(Features features) {
     final JFileChooser fchooser = new JFileChooser(".");
     FileNameExtensionFilter filter = new FileNameExtensionFilter(
             "Input Image", "jpg", "png", "ppm");
@@ -475,17 +529,26 @@ public class ImageGUIViewImpl extends JFrame implements ImageGUIView {
     if (retvalue == JFileChooser.APPROVE_OPTION) {
       File f = fchooser.getSelectedFile();
       String path = f.getAbsolutePath();
-      BufferedImage img = features.loadImage(path);
-      operationsCombobox.setEnabled(true);
-      modifiedImageLabel.setIcon(new ImageIcon(img));
-      histImageLabel.setIcon(new ImageIcon(features.generateHistogram()));
-      isImageSaved = true;
-      executeButton.setVisible(true);
-      saveButton.setVisible(true);
+      featureExecutor.run(() -> new ImageIcon[]{new ImageIcon(features.loadImage(path)),
+              new ImageIcon(features.generateHistogram())}, this::showLoaded,
+              e -> displayMessagePopUp("Oops, Image Load Issue." + e));
     }
 
   }
 
+  /**
+   * Method to show a loaded image and enable the operations on it.
+   *
+   * @param images loaded image followed by its histogram.
+   */
+  private void showLoaded(ImageIcon[] images) {
+    operationsCombobox.setEnabled(true);
+    showImages(images);
+    isImageSaved = true;
+    executeButton.setVisible(true);
+    saveButton.setVisible(true);
+  }
+
   /**
    * Method to add action listeners to GUI as per the features.
    *
@@ -495,17 +558,13 @@ public class ImageGUIViewImpl extends JFrame implements ImageGUIView {
   public void addFeatures(Features features) {
     operationsCombobox.addActionListener(evt -> checkImageOperation());
     loadButton.addActionListener(evt -> {
-      try {
-        if (!isImageSaved) {
-          if (loadBeforeSave("Current Image is not saved." +
-                  " Do you want to load new Image?") == JOptionPane.YES_OPTION) {
-            onLoad(features);
-          }
-        } else {
+      if (!isImageSaved) {
+        if (loadBeforeSave("Current Image is not saved." +
+                " Do you want to load new Image?") == JOptionPane.YES_OPTION) {
           onLoad(features);
         }
-      } catch (IOException e) {
-        displayMessagePopUp("Oops, Image Load Issue." + e);
+      } else {
+        onLoad(features);
       }
     });
     saveButton.addActionListener(evt -> {
@@ -521,9 +580,13 @@ public class ImageGUIViewImpl extends JFrame implements ImageGUIView {
           File f = fchooser.getSelectedFile();
           String path = String.format(String.format(f.getAbsolutePath() + "."
                   + fchooser.getFileFilter().getDescription()));
-          features.saveImage(path);
-          isImageSaved = true;
-          displayMessagePopUp("Image Saved Successfully.");
+          featureExecutor.run(() -> {
+            features.saveImage(path);
+            return path;
+          }, saved -> {
+            isImageSaved = true;
+            displayMessagePopUp("Image Saved Successfully.");
+          }, e -> displayMessagePopUp("Oops, Image Not Saved." + e));
         }
 
       } catch (Exception e) {
@@ -531,27 +594,23 @@ public class ImageGUIViewImpl extends JFrame implements ImageGUIView {
       }
     });
     executeButton.addActionListener(evt -> {
-      try {
-        isImageSaved = false;
-        executePressed(features, 0, true);
-      } catch (IOException e) {
-        displayMessagePopUp("Oops, Image Not Executed Successfully." + e);
-      }
+      isImageSaved = false;
+      executePressed(features, 0, true);
     });
-    splitSlider.addChangeListener(evt -> {
-      try {
-        slideStateChange(evt, features);
-      } catch (IOException e) {
-        throw new RuntimeException(e);
-      }
-    });
-    splitCheckBox.addItemListener(evt -> {
-      try {
-        splitCheckChange(evt, features);
-      } catch (IOException e) {
-        throw new RuntimeException(e);
+    splitSlider.addChangeListener(evt -> slideStateChange(evt, features));
+    splitCheckBox.addItemListener(evt -> splitCheckChange(evt, features));
+    modifiedImageScrollPane.getViewport().addComponentListener(new ComponentAdapter() {
+      /**
+       * Method to resize previews along with the processed image area.
+       *
+       * @param e Event Triggered.
+       */
+      @Override
+      public void componentResized(ComponentEvent e) {
+        updatePreviewSize(features);
       }
     });
+    updatePreviewSize(features);
     revalidate();
     repaint();
   }
@@ -1,10 +1,13 @@
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintStream;
 
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -31,4 +34,22 @@ public class StarterTest {
     start.goController("0");
   }
 
+  /**
+   * Test to ensure an invalid server port prints the usage text instead of failing.
+   */
+  @Test
+  public void testInvalidServerPort() {
+    PrintStream console = System.out;
+    for (String port : new String[]{"abc", "-1", "65536"}) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      System.setOut(new PrintStream(out, true));
+      try {
+        Starter.main(new String[]{"-server", port});
+      } finally {
+        System.setOut(console);
+      }
+      assertTrue(out.toString().startsWith("Incorrect way to initiate the program."));
+    }
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package controller;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import model.ImageModelNew;
+import model.ImageModelStoreImpl;
+import view.ImageView;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Test Class for the batch runner.
+ */
+public class BatchRunnerTest {
+
+  /**
+   * View recording every message it is given.
+   */
+  private static class RecordingView implements ImageView {
+    private final List<String> messages = new ArrayList<>();
+
+    /**
+     * Method that ignores images.
+     *
+     * @param image image to displayed.
+     */
+    @Override
+    public void displayImage(ImageModelNew image) {
+      // images are not recorded
+    }
+
+    /**
+     * Method to record a message.
+     *
+     * @param message message that is needed to be displayed.
+     */
+    @Override
+    public void displayMessage(String message) {
+      this.messages.add(message);
+    }
+
+    /**
+     * Gives the last message.
+     *
+     * @return last message, or an empty string.
+     */
+    @Override
+    public String getMessageToView() {
+      return this.messages.isEmpty() ? "" : this.messages.get(this.messages.size() - 1);
+    }
+  }
+
+  /**
+   * Tests the placeholders of a template.
+   */
+  @Test
+  public void testExpand() {
+    List<String> lines = BatchRunner.expand(Arrays.asList("load {input} img",
+            "save {output}/{name}-out.png img"), new File("in/photo.small.png"), "out");
+    assertEquals(Arrays.asList("load " + new File("in/photo.small.png").getPath() + " img",
+            "save out/photo.small-out.png img"), lines);
+  }
+
+  /**
+   * Tests that every image of a directory is processed as if its script ran alone, that other
+   * files are skipped and that messages come in file name order.
+   *
+   * @throws IOException if the files cannot be written.
+   */
+  @Test
+  public void testRunsEveryImage() throws IOException {
+    File root = Files.createTempDirectory("batch").toFile();
+    File input = new File(root, "in");
+    File output = new File(root, "out");
+    File script = new File(root, "template.txt");
+    input.mkdirs();
+    try {
+      File source = new File("res/images/image-small.png");
+      for (String name : new String[]{"c.png", "a.png", "b.png"}) {
+        Files.copy(source.toPath(), new File(input, name).toPath());
+      }
+      Files.write(new File(input, "notes.txt").toPath(), "not an image".getBytes());
+      Files.write(script.toPath(), Arrays.asList("load {input} img", "sepia img img",
+              "brighten 10 img img", "save {output}/{name}.ppm img"));
+
+      RecordingView expectedView = new RecordingView();
+      ImageController sequential = new ImageControllerImpl(expectedView,
+              new ImageModelStoreImpl());
+      sequential.execute("load " + source.getPath() + " img");
+      sequential.execute("sepia img img");
+      sequential.execute("brighten 10 img img");
+      sequential.execute("save " + root.getPath() + "/expected.ppm img");
+      byte[] expected = Files.readAllBytes(new File(root, "expected.ppm").toPath());
+
+      RecordingView view = new RecordingView();
+      int count = new BatchRunner(view, 2, false).run(script.getPath(), input.getPath(),
+              output.getPath());
+      assertEquals(3, count);
+      for (String name : new String[]{"a", "b", "c"}) {
+        assertArrayEquals(expected, Files.readAllBytes(new File(output, name + ".ppm").toPath()));
+      }
+      assertFalse(new File(output, "notes.ppm").exists());
+      List<String> messages = new ArrayList<>();
+      for (String name : new String[]{"a.png", "b.png", "c.png"}) {
+        messages.add("Batch image " + name + ":");
+        messages.addAll(expectedView.messages);
+      }
+      assertEquals(messages, view.messages);
+    } finally {
+      deleteAll(root);
+    }
+  }
+
+  /**
+   * Method to delete a directory and everything in it.
+   *
+   * @param file file or directory to delete.
+   */
+  private void deleteAll(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteAll(child);
+      }
+    }
+    file.delete();
+  }
+}
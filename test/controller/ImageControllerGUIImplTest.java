@@ -2,8 +2,11 @@ package controller;
 
 import org.junit.Test;
 
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 
+import model.ImageModelStore;
+import model.ImageModelStoreImpl;
 import model.MockImage;
 import model.MockImageStore;
 
@@ -39,6 +42,14 @@ public class ImageControllerGUIImplTest {
     assertEquals("histogram called.", mock.getLogger());
   }
 
+  @Test
+  public void testHistogramCached() throws IOException {
+    Features controller = new ImageControllerGUIImpl(modelStore);
+    controller.generateHistogram();
+    controller.generateHistogram();
+    assertEquals("histogram called.", mock.getLogger());
+  }
+
   @Test
   public void testSepia() {
     Features controller = new ImageControllerGUIImpl(modelStore);
@@ -130,6 +141,36 @@ public class ImageControllerGUIImplTest {
     assertEquals("color-correct called.", mock.getLogger());
   }
 
+  @Test
+  public void testSplitPreviewCached() throws IOException {
+    Features controller = new ImageControllerGUIImpl(modelStore);
+    controller.executeBlurOperation(20, false);
+    controller.executeBlurOperation(70, false);
+    assertEquals("blur called.", mock.getLogger());
+    controller.executeSharpenOperation(70, false);
+    controller.executeBlurOperation(30, false);
+    assertEquals("blur called.sharpen called.blur called.", mock.getLogger());
+    controller.executeRedComponent();
+    controller.executeBlurOperation(30, false);
+    assertEquals("blur called.sharpen called.blur called.red-component called.blur called.",
+            mock.getLogger());
+  }
+
+  @Test
+  public void testPreviewOnReducedImage() {
+    ImageModelStore store = new ImageModelStoreImpl();
+    Features controller = new ImageControllerGUIImpl(store);
+    controller.loadImage("res/images/image-small.png");
+    int width = store.getImageForAlias("curr").getImageWidth();
+    controller.setPreviewSize((width + 1) / 2, 10000);
+    BufferedImage preview = controller.executeSepiaOperation(50, false);
+    assertEquals((width + 1) / 2, preview.getWidth());
+    controller.setPreviewSize(0, 0);
+    assertEquals(width, controller.executeSepiaOperation(50, false).getWidth());
+    controller.setPreviewSize((width + 1) / 2, 10000);
+    assertEquals(width, controller.executeSepiaOperation(0, true).getWidth());
+  }
+
   @Test
   public void testLevelAdjust() {
     Features controller = new ImageControllerGUIImpl(modelStore);
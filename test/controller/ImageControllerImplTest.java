@@ -4,6 +4,9 @@ package controller;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import model.ImageModelNew;
 import model.ImageModelStore;
@@ -151,6 +154,26 @@ public class ImageControllerImplTest {
   }
 
 
+  /**
+   * Tests if a ppm image is saved as a binary file when asked to.
+   *
+   * @throws IOException if the saved file cannot be read.
+   */
+
+  @Test
+  public void testSaveBinaryPpm() throws IOException {
+
+    ImageController controller = new ImageControllerImpl(view, modelStore);
+    controller.execute("load res/galaxy.png galaxy");
+    controller.execute("save res/galaxy-save-p6.ppm galaxy p6");
+    File f = new File("res/galaxy-save-p6.ppm");
+    assertEquals(true, f.exists());
+    byte[] bytes = Files.readAllBytes(f.toPath());
+    assertEquals("P6", new String(bytes, 0, 2, StandardCharsets.US_ASCII));
+    f.delete();
+  }
+
+
   /**
    * Tests if image is RGB Split successfully.
    */
@@ -0,0 +1,123 @@
+package controller;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.ImageModelNew;
+import model.ImageModelStoreImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test Class for the image server.
+ */
+public class ImageServerTest {
+
+  /**
+   * Method to read the answer of one command.
+   *
+   * @param in reader of the socket.
+   * @return lines of the answer joined by line breaks.
+   * @throws IOException if the socket cannot be read.
+   */
+  private String readAnswer(BufferedReader in) throws IOException {
+    StringBuilder answer = new StringBuilder();
+    String line;
+    while ((line = in.readLine()) != null) {
+      answer.append(line).append('\n');
+      if (line.startsWith("DONE") || line.equals("BUSY")) {
+        break;
+      }
+    }
+    return answer.toString();
+  }
+
+  /**
+   * Tests that commands sent over the socket run against the shared store, in order, and are
+   * answered with their messages and timing.
+   *
+   * @throws IOException if the socket fails.
+   */
+  @Test
+  public void testSocketSession() throws IOException {
+    ImageModelStoreImpl store = new ImageModelStoreImpl();
+    try (ImageServer server = new ImageServer(store, 2, 4)) {
+      int port = server.start(0);
+      try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+           BufferedReader in = new BufferedReader(new InputStreamReader(
+                   socket.getInputStream(), StandardCharsets.UTF_8));
+           Writer out = new OutputStreamWriter(socket.getOutputStream(),
+                   StandardCharsets.UTF_8)) {
+        out.write("load res/images/image-small.png img\nbrighten 10 img bright\n"
+                + "bogus command\n");
+        out.flush();
+        assertTrue(readAnswer(in).matches("DONE wait=\\d+ run=\\d+\n"));
+        assertTrue(readAnswer(in).startsWith("DONE"));
+        assertTrue(readAnswer(in).startsWith("MSG Invalid Operation -> bogus command\nDONE"));
+        out.write("stop\n");
+        out.flush();
+        assertEquals(null, in.readLine());
+      }
+    }
+    assertEquals(Math.min(255, store.getImageForAlias("img").getPixelValue(0, 0, 0) + 10),
+            store.getImageForAlias("bright").getPixelValue(0, 0, 0));
+  }
+
+  /**
+   * Tests that a command is refused while every worker is busy and the queue is full.
+   *
+   * @throws Exception if a thread fails.
+   */
+  @Test
+  public void testBusy() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ImageModelStoreImpl store = new ImageModelStoreImpl() {
+      /**
+       * Method to get an image once the test releases the store.
+       *
+       * @param aliasName alias of the image.
+       * @return image of the alias.
+       */
+      @Override
+      public ImageModelNew getImageForAlias(String aliasName) {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.getImageForAlias(aliasName);
+      }
+    };
+    ExecutorService client = Executors.newSingleThreadExecutor();
+    try (ImageServer server = new ImageServer(store, 1, 0)) {
+      Future<String> blocked = client.submit(() -> server.handle("blur img out"));
+      started.await();
+      assertEquals("BUSY\n", server.handle("blur img other"));
+      release.countDown();
+      assertTrue(blocked.get().endsWith("\n"));
+      String answer = server.handle("blur img other");
+      for (int i = 0; i < 100 && answer.equals("BUSY\n"); i++) {
+        Thread.sleep(10);
+        answer = server.handle("blur img other");
+      }
+      assertTrue(answer.contains("DONE"));
+    } finally {
+      client.shutdown();
+    }
+  }
+}
@@ -0,0 +1,227 @@
+package controller;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.ImageModelNew;
+import model.ImageModelStore;
+import model.ImageModelStoreImpl;
+import view.ImageView;
+import view.ImageViewImpl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test Class for the concurrent script scheduler.
+ */
+public class ScriptSchedulerTest {
+
+  /**
+   * View recording every message it is given.
+   */
+  private static class RecordingView implements ImageView {
+    private final List<String> messages = new ArrayList<>();
+
+    /**
+     * Method that ignores images.
+     *
+     * @param image image to displayed.
+     */
+    @Override
+    public void displayImage(ImageModelNew image) {
+      // images are not recorded
+    }
+
+    /**
+     * Method to record a message.
+     *
+     * @param message message that is needed to be displayed.
+     */
+    @Override
+    public void displayMessage(String message) {
+      this.messages.add(message);
+    }
+
+    /**
+     * Gives the last message.
+     *
+     * @return last message, or an empty string.
+     */
+    @Override
+    public String getMessageToView() {
+      return this.messages.isEmpty() ? "" : this.messages.get(this.messages.size() - 1);
+    }
+  }
+
+  /**
+   * Store failing to load into the alias "broken" and counting the saves it is asked for.
+   */
+  private static class FailingStore extends ImageModelStoreImpl {
+    private final AtomicInteger saves = new AtomicInteger();
+
+    /**
+     * Method to fail loading into the alias "broken" and load anything else.
+     *
+     * @param words words of the load command.
+     */
+    @Override
+    public void loadHelper(String[] words) {
+      if (words[2].equals("broken")) {
+        throw new IllegalStateException("cannot load");
+      }
+      super.loadHelper(words);
+    }
+
+    /**
+     * Method to count a save and run it.
+     *
+     * @param words words of the save command.
+     * @throws IOException if the image cannot be saved.
+     */
+    @Override
+    public void saveHelper(String[] words) throws IOException {
+      this.saves.incrementAndGet();
+      super.saveHelper(words);
+    }
+  }
+
+  /**
+   * Tests the aliases and files found for commands.
+   */
+  @Test
+  public void testAccesses() {
+    List<String> reads = new ArrayList<>();
+    List<String> writes = new ArrayList<>();
+    ScriptScheduler.findAccesses(new String[]{"rgb-combine", "c", "r", "g", "b"}, reads, writes);
+    assertEquals(Arrays.asList("alias:r", "alias:g", "alias:b"), reads);
+    assertEquals(Arrays.asList("alias:c"), writes);
+    reads.clear();
+    writes.clear();
+    ScriptScheduler.findAccesses(new String[]{"save", "out.png", "c"}, reads, writes);
+    assertEquals(Arrays.asList("alias:c"), reads);
+    assertEquals(Arrays.asList("file:out.png"), writes);
+    reads.clear();
+    writes.clear();
+    ScriptScheduler.findAccesses(new String[]{"brighten", "10", "a"}, reads, writes);
+    assertEquals(0, reads.size() + writes.size());
+  }
+
+  /**
+   * Tests that a fanned out script gives the same images and messages in the same order as
+   * running it line by line, including aliases written more than once.
+   *
+   * @throws IOException if the files cannot be written.
+   */
+  @Test
+  public void testMatchesSequentialRun() throws IOException {
+    File dir = Files.createTempDirectory("script").toFile();
+    List<String> lines = Arrays.asList(
+            "load res/images/image-small.png org",
+            "red-component org r",
+            "blur org b",
+            "sepia org s",
+            "brighten 20 b b",
+            "bogus command",
+            "horizontal-flip s b",
+            "rgb-combine c r b s",
+            "save " + dir.getPath() + "/c.ppm c",
+            "save " + dir.getPath() + "/b.ppm b",
+            "vertical-flip missing m");
+    try {
+      RecordingView sequentialView = new RecordingView();
+      ImageModelStore sequentialStore = new ImageModelStoreImpl();
+      ImageController sequential = new ImageControllerImpl(sequentialView, sequentialStore);
+      new ScriptScheduler(sequentialStore, sequential, 1).run(lines);
+      byte[] expectedC = Files.readAllBytes(new File(dir, "c.ppm").toPath());
+      byte[] expectedB = Files.readAllBytes(new File(dir, "b.ppm").toPath());
+
+      RecordingView concurrentView = new RecordingView();
+      ImageModelStore concurrentStore = new ImageModelStoreImpl();
+      ImageController concurrent = new ImageControllerImpl(concurrentView, concurrentStore);
+      new ScriptScheduler(concurrentStore, concurrent, 4).run(lines);
+      assertEquals(sequentialView.messages, concurrentView.messages);
+      assertArrayEquals(expectedC, Files.readAllBytes(new File(dir, "c.ppm").toPath()));
+      assertArrayEquals(expectedB, Files.readAllBytes(new File(dir, "b.ppm").toPath()));
+    } finally {
+      for (File file : dir.listFiles()) {
+        file.delete();
+      }
+      dir.delete();
+    }
+  }
+
+  /**
+   * Tests that the store printing to the console while lines run concurrently does not change
+   * the order of the output, and that the console is put back afterwards.
+   */
+  @Test
+  public void testConsoleOrder() {
+    List<String> lines = Arrays.asList(
+            "load res/missing-one.ppm a",
+            "load res/images/image-small.png org",
+            "bogus command",
+            "blur org b",
+            "load res/missing-two.png c",
+            "vertical-flip missing m",
+            "load res/missing-three.haar d",
+            "load res/images/image-small.png e 1");
+    PrintStream console = System.out;
+    try {
+      ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+      System.setOut(new PrintStream(sequential, true));
+      ImageModelStore sequentialStore = new ImageModelStoreImpl();
+      new ScriptScheduler(sequentialStore,
+              new ImageControllerImpl(new ImageViewImpl(), sequentialStore), 1).run(lines);
+
+      ByteArrayOutputStream concurrent = new ByteArrayOutputStream();
+      PrintStream concurrentOut = new PrintStream(concurrent, true);
+      System.setOut(concurrentOut);
+      ImageModelStore concurrentStore = new ImageModelStoreImpl();
+      new ScriptScheduler(concurrentStore,
+              new ImageControllerImpl(new ImageViewImpl(), concurrentStore), 4).run(lines);
+      assertSame(concurrentOut, System.out);
+      assertTrue(sequential.toString().contains("res/missing-one.ppm"));
+      assertEquals(sequential.toString(), concurrent.toString());
+    } finally {
+      System.setOut(console);
+    }
+  }
+
+  /**
+   * Tests that lines waiting for a failed line are not run and that the failure is thrown as
+   * the line threw it.
+   */
+  @Test
+  public void testFailedDependency() {
+    FailingStore store = new FailingStore();
+    RecordingView view = new RecordingView();
+    ImageController controller = new ImageControllerImpl(view, store);
+    List<String> lines = Arrays.asList(
+            "load res/images/image-small.png org",
+            "load res/images/image-small.png broken",
+            "save res/never-written.ppm broken",
+            "blur org b");
+    try {
+      new ScriptScheduler(store, controller, 4).run(lines);
+      fail("The failure of the load should be thrown.");
+    } catch (IllegalStateException e) {
+      assertEquals("cannot load", e.getMessage());
+    }
+    assertEquals(0, store.saves.get());
+    assertFalse(new File("res/never-written.ppm").exists());
+  }
+}
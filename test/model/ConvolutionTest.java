@@ -0,0 +1,128 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test Class for the fixed-point convolution engine.
+ */
+public class ConvolutionTest {
+  private double[][] blurKernel = {
+          {0.0625, 0.125, 0.0625},
+          {0.125, 0.25, 0.125},
+          {0.0625, 0.125, 0.0625}
+  };
+  private double[][] sharpenKernel = {
+          {-0.125, -0.125, -0.125, -0.125, -0.125},
+          {-0.125, 0.25, 0.25, 0.25, -0.125},
+          {-0.125, 0.25, 1, 0.25, -0.125},
+          {-0.125, 0.25, 0.25, 0.25, -0.125},
+          {-0.125, -0.125, -0.125, -0.125, -0.125}
+  };
+
+  /**
+   * Method to convolve with doubles over a zero-padded image, as a reference.
+   *
+   * @param src    packed pixels.
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @param kernel kernel weights.
+   * @return packed convolved pixels.
+   */
+  private int[] reference(int[] src, int width, int height, double[][] kernel) {
+    int pad = kernel.length / 2;
+    int[] dst = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        double[] sum = new double[3];
+        for (int i = 0; i < kernel.length; i++) {
+          for (int j = 0; j < kernel.length; j++) {
+            int px = x + i - pad;
+            int py = y + j - pad;
+            if (px >= 0 && px < width && py >= 0 && py < height) {
+              for (int c = 0; c < 3; c++) {
+                sum[c] += kernel[i][j] * PixelBuffer.channel(src[py * width + px], c);
+              }
+            }
+          }
+        }
+        dst[y * width + x] = PixelBuffer.pack((int) sum[0], (int) sum[1], (int) sum[2]);
+      }
+    }
+    return dst;
+  }
+
+  /**
+   * Method to build random packed pixels.
+   *
+   * @param count number of pixels.
+   * @return packed pixels.
+   */
+  private int[] randomPixels(int count) {
+    Random random = new Random(42);
+    int[] pixels = new int[count];
+    for (int i = 0; i < count; i++) {
+      pixels[i] = random.nextInt(0x1000000);
+    }
+    return pixels;
+  }
+
+  /**
+   * Tests that blur is detected as separable and matches the double convolution.
+   */
+  @Test
+  public void testBlurMatchesReference() {
+    Convolution blur = new Convolution(blurKernel);
+    assertTrue(blur.isSeparable());
+    int[][] sizes = {{1, 1}, {2, 5}, {7, 3}, {31, 17}};
+    for (int[] size : sizes) {
+      int[] src = randomPixels(size[0] * size[1]);
+      assertArrayEquals(reference(src, size[0], size[1], blurKernel),
+              blur.apply(src, size[0], size[1]));
+    }
+  }
+
+  /**
+   * Tests that sharpen runs as a full kernel and matches the double convolution.
+   */
+  @Test
+  public void testSharpenMatchesReference() {
+    Convolution sharpen = new Convolution(sharpenKernel);
+    assertFalse(sharpen.isSeparable());
+    int[][] sizes = {{1, 1}, {3, 4}, {6, 2}, {29, 13}};
+    for (int[] size : sizes) {
+      int[] src = randomPixels(size[0] * size[1]);
+      assertArrayEquals(reference(src, size[0], size[1], sharpenKernel),
+              sharpen.apply(src, size[0], size[1]));
+    }
+  }
+
+  /**
+   * Tests that convolving bands of rows gives the same image as one pass.
+   */
+  @Test
+  public void testBandsMatchWholeImage() {
+    Convolution blur = new Convolution(blurKernel);
+    int width = 23;
+    int height = 19;
+    int[] src = randomPixels(width * height);
+    int[] dst = new int[width * height];
+    for (int y = 0; y < height; y += 4) {
+      blur.apply(src, dst, width, height, y, Math.min(height, y + 4));
+    }
+    assertArrayEquals(blur.apply(src, width, height), dst);
+  }
+
+  /**
+   * Tests that an even kernel size is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testEvenKernel() {
+    new Convolution(new double[][]{{0.5, 0.5}, {0.5, 0.5}});
+  }
+}
@@ -0,0 +1,138 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Test Class for the in-place Haar wavelet transform.
+ */
+public class HaarTransformTest {
+
+  /**
+   * Method to transform or invert one sequence the straightforward way, as a reference.
+   *
+   * @param values  values to transform.
+   * @param inverse true to undo the transform.
+   * @return transformed values.
+   */
+  private double[] referenceStep(double[] values, boolean inverse) {
+    int half = values.length / 2;
+    double[] result = new double[values.length];
+    for (int k = 0; k < half; k++) {
+      double a = inverse ? values[k] : values[2 * k];
+      double b = inverse ? values[half + k] : values[2 * k + 1];
+      double sum = (a + b) / Math.sqrt(2);
+      double difference = (a - b) / Math.sqrt(2);
+      sum = Math.abs(sum) <= 0.1 ? 0 : sum;
+      difference = Math.abs(difference) <= 0.1 ? 0 : difference;
+      result[inverse ? 2 * k : k] = sum;
+      result[inverse ? 2 * k + 1 : half + k] = difference;
+    }
+    return result;
+  }
+
+  /**
+   * Method to transform a matrix row by row and column by column, as a reference.
+   * Both sides are halved at each level until they reach a single value.
+   *
+   * @param matrix  matrix to transform in place.
+   * @param inverse true to undo the transform.
+   */
+  private void reference(double[][] matrix, boolean inverse) {
+    int rows = matrix.length;
+    int cols = matrix[0].length;
+    int levels = Math.max(Integer.numberOfTrailingZeros(rows),
+            Integer.numberOfTrailingZeros(cols));
+    for (int step = 0; step < levels; step++) {
+      int level = inverse ? levels - 1 - step : step;
+      int r = Math.max(1, rows >> level);
+      int c = Math.max(1, cols >> level);
+      for (int pass = 0; pass < 2; pass++) {
+        boolean onRows = (pass == 0) != inverse;
+        if (onRows && c > 1) {
+          for (int i = 0; i < r; i++) {
+            double[] line = referenceStep(Arrays.copyOf(matrix[i], c), inverse);
+            System.arraycopy(line, 0, matrix[i], 0, c);
+          }
+        } else if (!onRows && r > 1) {
+          for (int j = 0; j < c; j++) {
+            double[] line = new double[r];
+            for (int i = 0; i < r; i++) {
+              line[i] = matrix[i][j];
+            }
+            line = referenceStep(line, inverse);
+            for (int i = 0; i < r; i++) {
+              matrix[i][j] = line[i];
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Method to check the transform of a random matrix against the reference.
+   *
+   * @param rows number of rows.
+   * @param cols number of columns.
+   */
+  private void checkAgainstReference(int rows, int cols) {
+    Random random = new Random(rows * 31L + cols);
+    double[][] matrix = new double[rows][cols];
+    double[] flat = new double[rows * cols];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        matrix[i][j] = random.nextInt(256);
+        flat[i * cols + j] = matrix[i][j];
+      }
+    }
+    HaarTransform transform = new HaarTransform(rows, cols);
+    double[] expected = new double[rows * cols];
+    for (boolean inverse : new boolean[]{false, true}) {
+      reference(matrix, inverse);
+      if (inverse) {
+        transform.inverse(flat);
+      } else {
+        transform.forward(flat);
+      }
+      for (int i = 0; i < rows; i++) {
+        System.arraycopy(matrix[i], 0, expected, i * cols, cols);
+      }
+      assertArrayEquals(expected, flat, 0);
+    }
+  }
+
+  /**
+   * Tests that square transforms match the reference exactly.
+   */
+  @Test
+  public void testSquareMatchesReference() {
+    int[] sizes = {1, 2, 8, 32, 64};
+    for (int n : sizes) {
+      checkAgainstReference(n, n);
+    }
+  }
+
+  /**
+   * Tests that rectangular transforms match the reference exactly.
+   */
+  @Test
+  public void testRectangleMatchesReference() {
+    checkAgainstReference(1, 16);
+    checkAgainstReference(16, 1);
+    checkAgainstReference(4, 64);
+    checkAgainstReference(128, 8);
+  }
+
+  /**
+   * Tests that sizes other than powers of two are rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSize() {
+    new HaarTransform(12);
+  }
+}
@@ -12,7 +12,9 @@ import java.util.Scanner;
 
 import javax.imageio.ImageIO;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 
 /**
@@ -765,6 +767,30 @@ public class ImageModelImplTest {
     }
   }
 
+  /**
+   * Tests that histograms handed over by point operations and flips match histograms counted
+   * from the pixels, and that asking twice reuses the chart.
+   */
+  @Test
+  public void testHistogramCarriedThroughOperations() throws IOException {
+    ImageModelNewImpl image = new ImageModelNewImpl(Objects.requireNonNull(checkImageType(
+            "res/images/image-small.png")), "img");
+    ImageModelNewImpl first = (ImageModelNewImpl) image.generateHistogram("hist");
+    assertSame(first.getPixelBuffer(),
+            ((ImageModelNewImpl) image.generateHistogram("hist")).getPixelBuffer());
+    ImageModelNew[] results = {image.bright(40, "b"), image.bright(-25, "d"),
+        image.levelAdjust("l", 20, 100, 230, 100), image.colorCorrect("c", 100),
+        image.horizontalFlipImage("h"), image.verticalFlipImage("v"),
+        image.bright(40, "b").levelAdjust("bl", 10, 90, 200, 100)};
+    for (ImageModelNew result : results) {
+      ImageModelNewImpl counted = new ImageModelNewImpl(
+              ((ImageModelNewImpl) result).getPixelBuffer(), "fresh");
+      assertArrayEquals(
+              ((ImageModelNewImpl) counted.generateHistogram("hist")).getPixelBuffer().getPixels(),
+              ((ImageModelNewImpl) result.generateHistogram("hist")).getPixelBuffer().getPixels());
+    }
+  }
+
   @Test
   public void testHistogram() throws IOException {
     ImageModelNew grid = new ImageModelNewImpl(Objects.requireNonNull(checkImageType(
@@ -1043,5 +1069,37 @@ public class ImageModelImplTest {
 
   }
 
+  /**
+   * Tests that adopted pixels are used without copying and keep the new alias.
+   */
+  @Test
+  public void testAdoptPixels() {
+    int[] pixels = {0x0A141E, 0xFF0080, 0x000000, 0x102030};
+    ImageModelNewImpl img = ImageModelNewImpl.adoptPixels(2, 2, pixels, "adopted");
+    assertSame(pixels, img.getPixelBuffer().getPixels());
+    assertEquals("adopted", img.getImageAliasName());
+    assertEquals(10, img.getPixelValue(0, 0, 0));
+    assertEquals(128, img.getPixelValue(1, 0, 2));
+    assertEquals(48, img.getPixelValue(1, 1, 2));
+
+    ImageModelNew flipped = img.horizontalFlipImage("flipped");
+    assertEquals("flipped", flipped.getImageAliasName());
+    assertEquals(255, flipped.getPixelValue(0, 0, 0));
+  }
 
+  /**
+   * Tests that compressing a wide image without dropping coefficients keeps every pixel.
+   */
+  @Test
+  public void testCompressWideImageLossless() {
+    int width = 40;
+    int height = 3;
+    int[] pixels = new int[width * height];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = (int) (i * 2654435761L & 0xFFFFFF);
+    }
+    ImageModelNewImpl img = ImageModelNewImpl.adoptPixels(width, height, pixels.clone(), "wide");
+    ImageModelNewImpl compressed = (ImageModelNewImpl) img.compress("compressed", 0.0);
+    assertArrayEquals(pixels, compressed.getPixelBuffer().getPixels());
+  }
 }
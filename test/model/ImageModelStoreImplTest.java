@@ -3,6 +3,7 @@ package model;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 /**
  * Test file to test the ImageModelStoreImpl Class.
@@ -41,4 +42,17 @@ public class ImageModelStoreImplTest {
     assertEquals("getBufferedImage called.", imgStore.getLogger());
   }
 
+  @Test
+  public void testInvalidBudgetProperty() {
+    System.setProperty("image.store.budget", "lots");
+    try {
+      new ImageModelStoreImpl(false);
+      fail("An invalid budget should be rejected.");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Invalid image.store.budget: lots", e.getMessage());
+    } finally {
+      System.clearProperty("image.store.budget");
+    }
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test Class for shrinking images to a display area.
+ */
+public class ImageScalerTest {
+
+  /**
+   * Tests that blocks are averaged, including the smaller blocks at the borders.
+   */
+  @Test
+  public void testAveragesBlocks() {
+    int[] pixels = {
+        0x000000, 0x040404, 0x102030,
+        0x080808, 0x0C0C0C, 0x302010};
+    ImageModelNewImpl image = new ImageModelNewImpl(new PackedPixelBuffer(3, 2, pixels), "img");
+    ImageModelNew small = ImageScaler.fitWithin(image, 2, 2, "proxy");
+    assertEquals(2, small.getImageWidth());
+    assertEquals(1, small.getImageHeight());
+    assertEquals("proxy", small.getImageAliasName());
+    assertArrayEquals(new int[]{0x060606, 0x202020},
+            ((ImageModelNewImpl) small).getPixelBuffer().getPixels());
+  }
+
+  /**
+   * Tests that images that fit and images not held as pixels are returned as they are, and
+   * that lazy images are shrunk.
+   */
+  @Test
+  public void testUnchangedAndLazy() {
+    ImageModelNewImpl image = new ImageModelNewImpl(new PackedPixelBuffer(4, 4, new int[16]),
+            "img");
+    assertSame(image, ImageScaler.fitWithin(image, 4, 10, "proxy"));
+    MockImage mock = new MockImage();
+    assertSame(mock, ImageScaler.fitWithin(mock, 1, 1, "proxy"));
+    ImageModelNew lazy = LazyImageModel.of(image).bright(10, "img");
+    ImageModelNew small = ImageScaler.fitWithin(lazy, 3, 3, "proxy");
+    assertEquals(2, small.getImageWidth());
+    assertEquals(10, small.getPixelValue(1, 1, 2));
+  }
+}
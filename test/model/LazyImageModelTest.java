@@ -0,0 +1,114 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test Class for the lazy image model.
+ */
+public class LazyImageModelTest {
+
+  /**
+   * Method to build an image with random pixels.
+   *
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @return image model.
+   */
+  private ImageModelNewImpl random(int width, int height) {
+    Random random = new Random(11);
+    int[] pixels = new int[width * height];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = random.nextInt(1 << 24);
+    }
+    return new ImageModelNewImpl(new PackedPixelBuffer(width, height, pixels), "image");
+  }
+
+  /**
+   * Method to get the pixels of any image.
+   *
+   * @param image image model.
+   * @return packed pixels.
+   */
+  private int[] pixels(ImageModelNew image) {
+    return ((ImageModelNewImpl) LazyImageModel.materialize(image)).getPixelBuffer().getPixels();
+  }
+
+  /**
+   * Tests that a fused chain of point operations and colour transforms, including partial
+   * ones, gives the same pixels as running each operation eagerly.
+   */
+  @Test
+  public void testFusedChainMatchesEager() {
+    ImageModelNewImpl image = random(37, 9);
+    ImageModelNew eager = image.bright(30, "a").levelAdjust("b", 10, 100, 240, 100)
+            .bright(-15, "c").sepia("d", 40).intensity("e").levelAdjust("f", 0, 60, 200, 70)
+            .greyscale("g", 100).maxValue("h").bright(5, "i");
+    ImageModelNew lazy = LazyImageModel.of(image).bright(30, "a")
+            .levelAdjust("b", 10, 100, 240, 100).bright(-15, "c").sepia("d", 40)
+            .intensity("e").levelAdjust("f", 0, 60, 200, 70).greyscale("g", 100)
+            .maxValue("h").bright(5, "i");
+    assertTrue(lazy instanceof LazyImageModel);
+    assertEquals("i", lazy.getImageAliasName());
+    assertArrayEquals(pixels(eager), pixels(lazy));
+  }
+
+  /**
+   * Tests that operations needing whole images run on the computed image and keep the chain
+   * lazy afterwards.
+   */
+  @Test
+  public void testBarrierOperations() {
+    ImageModelNewImpl image = random(16, 12);
+    ImageModelNew eager = image.bright(20, "a").blur("b", 100).horizontalFlipImage("c")
+            .sepia("d", 100);
+    ImageModelNew lazy = LazyImageModel.of(image).bright(20, "a").blur("b", 100)
+            .horizontalFlipImage("c").sepia("d", 100);
+    assertTrue(lazy instanceof LazyImageModel);
+    assertArrayEquals(pixels(eager), pixels(lazy));
+    ImageModelNew merged = lazy.merge3components(lazy.bright(10, "g"), lazy, "m");
+    assertArrayEquals(pixels(eager.merge3components(eager.bright(10, "g"), eager, "m")),
+            pixels(merged));
+  }
+
+  /**
+   * Tests that invalid arguments are reported when the operation is recorded.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPercentage() {
+    LazyImageModel.of(random(4, 4)).greyscale("g", 120);
+  }
+
+  /**
+   * Tests that a lazy store only computes images when they are saved.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  @Test
+  public void testLazyStoreSave() throws IOException {
+    File input = File.createTempFile("lazy", ".ppm");
+    File output = File.createTempFile("lazy", ".ppm");
+    try {
+      ImageModelNewImpl image = random(6, 5);
+      PpmWriter.write(image.getPixelBuffer(), input.getPath(), false);
+      ImageModelStoreImpl store = new ImageModelStoreImpl(true);
+      store.loadHelper(new String[]{"load", input.getPath(), "image"});
+      ImageModelNew loaded = store.getImageForAlias("image");
+      assertTrue(loaded instanceof LazyImageModel);
+      store.loadImage(loaded.bright(40, "bright").sepia("sepia", 100), "sepia");
+      store.saveHelper(new String[]{"save", output.getPath(), "sepia"});
+      assertArrayEquals(pixels(image.bright(40, "bright").sepia("sepia", 100)),
+              PpmReader.read(output.getPath()).getPixels());
+    } finally {
+      input.delete();
+      output.delete();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test Class for the packed and planar pixel buffers.
+ */
+public class PixelBufferTest {
+  private int[][][] matrix = {
+          {{0, 0, 0}, {10, 90, 20}, {20, 180, 40}},
+          {{200, 10, 150}, {210, 100, 170}, {220, 190, 190}},
+          {{255, 20, 255}, {255, 110, 255}, {255, 200, 255}}
+  };
+
+  /**
+   * Tests that a packed buffer keeps every channel of the matrix.
+   */
+  @Test
+  public void testFromMatrix() {
+    PixelBuffer buffer = PixelBuffer.fromMatrix(matrix);
+    for (int x = 0; x < 3; x++) {
+      for (int y = 0; y < 3; y++) {
+        for (int c = 0; c < 3; c++) {
+          assertEquals(matrix[x][y][c], buffer.getChannel(x, y, c));
+        }
+      }
+    }
+    assertEquals((200 << 16) | (10 << 8) | 150, buffer.getPixels()[1]);
+  }
+
+  /**
+   * Tests that out of range matrix values are clamped while packing.
+   */
+  @Test
+  public void testFromMatrixClamps() {
+    PixelBuffer buffer = PixelBuffer.fromMatrix(new int[][][]{{{300, -5, 128}}});
+    assertEquals(255, buffer.getChannel(0, 0, 0));
+    assertEquals(0, buffer.getChannel(0, 0, 1));
+    assertEquals(128, buffer.getChannel(0, 0, 2));
+  }
+
+  /**
+   * Tests that channel views of a planar buffer share the plane instead of copying it.
+   */
+  @Test
+  public void testChannelViewSharesPlane() {
+    PixelBuffer packed = PixelBuffer.fromMatrix(matrix);
+    PixelBuffer green = packed.channelView(1);
+    assertNull(green.getPlane(0));
+    assertNull(green.getPlane(2));
+    assertSame(green, green.channelView(1));
+    assertSame(green.getPlane(1), green.channelView(1).getPlane(1));
+    for (int x = 0; x < 3; x++) {
+      for (int y = 0; y < 3; y++) {
+        assertEquals(0, green.getChannel(x, y, 0));
+        assertEquals(matrix[x][y][1], green.getChannel(x, y, 1));
+        assertEquals(0, green.getChannel(x, y, 2));
+      }
+    }
+  }
+
+  /**
+   * Tests that splitting and combining channels shares planes and gives back the image.
+   */
+  @Test
+  public void testSplitCombineSharesPlanes() {
+    ImageModelNewImpl img = new ImageModelNewImpl(matrix, "org");
+    ImageModelNewImpl red = (ImageModelNewImpl) img.generateRed("r");
+    ImageModelNewImpl green = (ImageModelNewImpl) img.generateGreen("g");
+    ImageModelNewImpl blue = (ImageModelNewImpl) img.generateBlue("b");
+    ImageModelNewImpl merged = (ImageModelNewImpl) red.merge3components(green, blue, "m");
+
+    assertSame(red.getPixelBuffer().getPlane(0), merged.getPixelBuffer().getPlane(0));
+    assertSame(green.getPixelBuffer().getPlane(1), merged.getPixelBuffer().getPlane(1));
+    assertSame(blue.getPixelBuffer().getPlane(2), merged.getPixelBuffer().getPlane(2));
+    for (int i = 0; i < 9; i++) {
+      assertEquals(img.getPixelBuffer().getPixels()[i], merged.getPixelBuffer().getPixels()[i]);
+    }
+  }
+
+  /**
+   * Tests that planar buffers count the packed copy they may keep as well as their planes.
+   */
+  @Test
+  public void testByteSize() {
+    ImageModelNewImpl img = new ImageModelNewImpl(matrix, "org");
+    ImageModelNewImpl red = (ImageModelNewImpl) img.generateRed("r");
+    ImageModelNewImpl merged = (ImageModelNewImpl) red.merge3components(
+            img.generateGreen("g"), img.generateBlue("b"), "m");
+    assertEquals(36, img.getPixelBuffer().byteSize());
+    assertEquals(45, red.getPixelBuffer().byteSize());
+    assertEquals(63, merged.getPixelBuffer().byteSize());
+    assertEquals(63, SpillingImageMap.sizeOf(merged));
+  }
+}
@@ -0,0 +1,73 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test Class for the lookup-table point operations.
+ */
+public class PointOperationTest {
+
+  /**
+   * Method to build random pixels.
+   *
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @return pixels of the image.
+   */
+  private PixelBuffer random(int width, int height) {
+    Random random = new Random(7);
+    int[] pixels = new int[width * height];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = random.nextInt(1 << 24);
+    }
+    return new PackedPixelBuffer(width, height, pixels);
+  }
+
+  /**
+   * Tests that an offset clamps every channel on its own.
+   */
+  @Test
+  public void testOffset() {
+    PixelBuffer pixels = new PackedPixelBuffer(2, 1, new int[]{0x0A80F0, 0xFF0000});
+    PixelBuffer result = PointOperation.offset(20, -150, 10).apply(pixels);
+    assertArrayEquals(new int[]{0x1E00FA, 0xFF000A}, result.getPixels());
+    assertEquals(2, result.getWidth());
+    assertEquals(1, result.getHeight());
+  }
+
+  /**
+   * Tests that the levels table gives the quadratic curve through the three points, clamped.
+   */
+  @Test
+  public void testLevels() {
+    PointOperation levels = PointOperation.levels(20, 100, 200);
+    for (int c = 0; c < 3; c++) {
+      assertEquals(0, levels.map(c, 20));
+      assertEquals(128, levels.map(c, 100));
+      assertEquals(255, levels.map(c, 200));
+      assertEquals(0, levels.map(c, 0));
+      assertEquals(255, levels.map(c, 255));
+    }
+  }
+
+  /**
+   * Tests that a composed operation gives the same pixels as applying the operations in turn.
+   */
+  @Test
+  public void testComposition() {
+    PixelBuffer pixels = random(31, 17);
+    PointOperation first = PointOperation.offset(40, -20, 5);
+    PointOperation second = PointOperation.levels(10, 120, 230);
+    PointOperation third = PointOperation.offset(-30, 60, 0);
+    PixelBuffer expected = third.apply(second.apply(first.apply(pixels)));
+    assertArrayEquals(expected.getPixels(),
+            first.then(second).then(third).apply(pixels).getPixels());
+    assertArrayEquals(pixels.getPixels(),
+            PointOperation.identity().apply(pixels).getPixels());
+  }
+}
@@ -0,0 +1,139 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Test Class for the streaming PPM reader.
+ */
+public class PpmReaderTest {
+
+  /**
+   * Method to read an image from bytes.
+   *
+   * @param data content of the PPM file.
+   * @return pixels read.
+   * @throws IOException if the data is not a valid PPM file.
+   */
+  private PixelBuffer read(byte[] data) throws IOException {
+    return new PpmReader(new ByteArrayInputStream(data)).read();
+  }
+
+  /**
+   * Method to read an image from text.
+   *
+   * @param text content of the PPM file.
+   * @return pixels read.
+   * @throws IOException if the text is not a valid PPM file.
+   */
+  private PixelBuffer read(String text) throws IOException {
+    return read(text.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Tests a plain file with comments, odd spacing and values above the maximum.
+   *
+   * @throws IOException if the file cannot be read.
+   */
+  @Test
+  public void testPlain() throws IOException {
+    PixelBuffer pixels = read("P3\n# created by hand\n2 # width\n1\n255\n"
+            + "10 20 30\t\t300\r\n0 255");
+    assertEquals(2, pixels.getWidth());
+    assertEquals(1, pixels.getHeight());
+    assertEquals(10, pixels.getChannel(0, 0, 0));
+    assertEquals(20, pixels.getChannel(0, 0, 1));
+    assertEquals(30, pixels.getChannel(0, 0, 2));
+    assertEquals(255, pixels.getChannel(1, 0, 0));
+    assertEquals(0, pixels.getChannel(1, 0, 1));
+    assertEquals(255, pixels.getChannel(1, 0, 2));
+  }
+
+  /**
+   * Tests that samples are scaled from the declared maximum value.
+   *
+   * @throws IOException if the file cannot be read.
+   */
+  @Test
+  public void testPlainMaxValue() throws IOException {
+    PixelBuffer pixels = read("P3 1 1 15 15 7 0");
+    assertEquals(255, pixels.getChannel(0, 0, 0));
+    assertEquals(119, pixels.getChannel(0, 0, 1));
+    assertEquals(0, pixels.getChannel(0, 0, 2));
+  }
+
+  /**
+   * Tests a binary file with one byte per sample.
+   *
+   * @throws IOException if the file cannot be read.
+   */
+  @Test
+  public void testBinary() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write("P6\n1 2\n255\n".getBytes(StandardCharsets.US_ASCII));
+    out.write(new byte[]{10, (byte) 200, 32, (byte) 255, 0, 13});
+    PixelBuffer pixels = read(out.toByteArray());
+    assertEquals(1, pixels.getWidth());
+    assertEquals(2, pixels.getHeight());
+    assertEquals(200, pixels.getChannel(0, 0, 1));
+    assertEquals(32, pixels.getChannel(0, 0, 2));
+    assertEquals(255, pixels.getChannel(0, 1, 0));
+    assertEquals(13, pixels.getChannel(0, 1, 2));
+  }
+
+  /**
+   * Tests a binary file with two bytes per sample.
+   *
+   * @throws IOException if the file cannot be read.
+   */
+  @Test
+  public void testBinaryWide() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write("P6 1 1 65535 ".getBytes(StandardCharsets.US_ASCII));
+    out.write(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0x80, 0x00, 0x00, 0x00});
+    PixelBuffer pixels = read(out.toByteArray());
+    assertEquals(255, pixels.getChannel(0, 0, 0));
+    assertEquals(128, pixels.getChannel(0, 0, 1));
+    assertEquals(0, pixels.getChannel(0, 0, 2));
+  }
+
+  /**
+   * Tests that a file ending before all samples are read is rejected.
+   *
+   * @throws IOException as the file is truncated.
+   */
+  @Test(expected = IOException.class)
+  public void testTruncated() throws IOException {
+    read("P3 2 2 255 1 2 3 4 5 6");
+  }
+
+  /**
+   * Tests that a header whose pixels do not fit in an array is rejected as an invalid file.
+   */
+  @Test
+  public void testTooLarge() {
+    try {
+      read("P6 100000 100000 255\n");
+      fail("A header too large for an array should be rejected.");
+    } catch (IOException e) {
+      assertEquals("PPM image too large: 100000x100000", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that a file with another magic number is rejected.
+   *
+   * @throws IOException as the file is not a PPM file.
+   */
+  @Test(expected = IOException.class)
+  public void testInvalidMagic() throws IOException {
+    read("P2 1 1 255 0");
+  }
+}
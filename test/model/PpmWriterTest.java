@@ -0,0 +1,85 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test Class for the PPM writer.
+ */
+public class PpmWriterTest {
+  private int[] pixels = {0x0A141E, 0xFF0080, 0x000000, 0x102030, 0x7F7F7F, 0xFFFFFF};
+
+  /**
+   * Tests that a plain file keeps the header and one sample per line.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  @Test
+  public void testPlain() throws IOException {
+    File file = File.createTempFile("writer", ".ppm");
+    try {
+      PpmWriter.write(new PackedPixelBuffer(3, 2, pixels), file.getPath(), false);
+      StringBuilder expected = new StringBuilder();
+      String newLine = System.lineSeparator();
+      expected.append("P3").append(newLine).append("3 2").append(newLine).append("255")
+              .append(newLine);
+      for (int rgb : pixels) {
+        for (int c = 0; c < 3; c++) {
+          expected.append(PixelBuffer.channel(rgb, c)).append(newLine);
+        }
+      }
+      assertEquals(expected.toString(),
+              new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII));
+      assertArrayEquals(pixels, PpmReader.read(file.getPath()).getPixels());
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Tests that a binary file holds one byte per sample and reads back the same pixels.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  @Test
+  public void testBinary() throws IOException {
+    File file = File.createTempFile("writer", ".ppm");
+    try {
+      PpmWriter.write(new PackedPixelBuffer(2, 3, pixels), file.getPath(), true);
+      byte[] header = "P6\n2 3\n255\n".getBytes(StandardCharsets.US_ASCII);
+      assertEquals(header.length + 3 * pixels.length, file.length());
+      assertArrayEquals(pixels, PpmReader.read(file.getPath()).getPixels());
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Tests an image larger than the write buffer.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  @Test
+  public void testLargeImage() throws IOException {
+    int[] large = new int[300 * 200];
+    for (int i = 0; i < large.length; i++) {
+      large[i] = (int) ((i * 2654435761L) & 0xFFFFFF);
+    }
+    File file = File.createTempFile("writer", ".ppm");
+    try {
+      PpmWriter.write(new PackedPixelBuffer(300, 200, large), file.getPath(), false);
+      assertArrayEquals(large, PpmReader.read(file.getPath()).getPixels());
+      PpmWriter.write(new PackedPixelBuffer(300, 200, large), file.getPath(), true);
+      assertArrayEquals(large, PpmReader.read(file.getPath()).getPixels());
+    } finally {
+      file.delete();
+    }
+  }
+}
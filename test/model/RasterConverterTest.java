@@ -0,0 +1,95 @@
+package model;
+
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test Class for the bulk conversion between pixel buffers and BufferedImage.
+ */
+public class RasterConverterTest {
+  private int[] types = {
+          BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR,
+          BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+          BufferedImage.TYPE_BYTE_INDEXED, BufferedImage.TYPE_USHORT_565_RGB
+  };
+
+  /**
+   * Method to draw random coloured rectangles on a new image.
+   *
+   * @param type   type of the image.
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @return drawn image.
+   */
+  private BufferedImage drawImage(int type, int width, int height) {
+    BufferedImage image = new BufferedImage(width, height, type);
+    Graphics2D g = image.createGraphics();
+    Random random = new Random(type);
+    for (int i = 0; i < 40; i++) {
+      g.setColor(new Color(random.nextInt(0x1000000)));
+      g.fillRect(random.nextInt(width), random.nextInt(height), 1 + random.nextInt(width),
+              1 + random.nextInt(height));
+    }
+    g.dispose();
+    return image;
+  }
+
+  /**
+   * Method to read an image pixel by pixel, as a reference.
+   *
+   * @param image image to read.
+   * @return packed pixels.
+   */
+  private int[] readEachPixel(BufferedImage image) {
+    int[] pixels = new int[image.getWidth() * image.getHeight()];
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        pixels[y * image.getWidth() + x] = image.getRGB(x, y) & 0xFFFFFF;
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Tests that every image type reads the same pixels as getRGB.
+   */
+  @Test
+  public void testFromImage() {
+    for (int type : types) {
+      BufferedImage image = drawImage(type, 37, 23);
+      PixelBuffer pixels = RasterConverter.fromImage(image);
+      assertEquals(37, pixels.getWidth());
+      assertEquals(23, pixels.getHeight());
+      assertArrayEquals(readEachPixel(image), pixels.getPixels());
+    }
+  }
+
+  /**
+   * Tests that sub-images are read from the right part of the parent raster.
+   */
+  @Test
+  public void testFromSubImage() {
+    for (int type : types) {
+      BufferedImage image = drawImage(type, 41, 29).getSubimage(5, 7, 20, 11);
+      assertArrayEquals(readEachPixel(image), RasterConverter.fromImage(image).getPixels());
+    }
+  }
+
+  /**
+   * Tests that an image created from a buffer holds the same pixels.
+   */
+  @Test
+  public void testToImage() {
+    int[] pixels = {0x0A141E, 0xFF0080, 0x000000, 0x102030, 0x7F7F7F, 0xFFFFFF};
+    BufferedImage image = RasterConverter.toImage(new PackedPixelBuffer(2, 3, pixels));
+    assertEquals(BufferedImage.TYPE_INT_RGB, image.getType());
+    assertArrayEquals(pixels, readEachPixel(image));
+  }
+}
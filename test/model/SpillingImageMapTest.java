@@ -0,0 +1,302 @@
+package model;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test Class for the memory-bounded image map.
+ */
+public class SpillingImageMapTest {
+
+  /**
+   * Method to build a 4 by 4 image filled with one colour.
+   *
+   * @param rgb   packed colour.
+   * @param alias name of the image.
+   * @return image model.
+   */
+  private ImageModelNewImpl image(int rgb, String alias) {
+    int[] pixels = new int[16];
+    Arrays.fill(pixels, rgb);
+    return new ImageModelNewImpl(new PackedPixelBuffer(4, 4, pixels), alias);
+  }
+
+  /**
+   * Tests that least recently used images are spilled over the budget and read back intact.
+   */
+  @Test
+  public void testSpillAndReload() {
+    SpillingImageMap map = new SpillingImageMap(2 * 64);
+    map.put("a", image(0x112233, "a"));
+    map.put("b", image(0x445566, "b"));
+    assertEquals(128, map.getResidentBytes());
+    map.get("a");
+    map.put("c", image(0x778899, "c"));
+    assertTrue(map.isSpilled("b"));
+    assertFalse(map.isSpilled("a"));
+    assertEquals(128, map.getResidentBytes());
+
+    ImageModelNew b = map.get("b");
+    assertEquals("b", b.getImageAliasName());
+    assertEquals(0x44, b.getPixelValue(3, 3, 0));
+    assertArrayEquals(image(0x445566, "b").getPixelBuffer().getPixels(),
+            ((ImageModelNewImpl) b).getPixelBuffer().getPixels());
+    assertFalse(map.isSpilled("b"));
+    assertTrue(map.isSpilled("a"));
+    assertNull(map.get("missing"));
+  }
+
+  /**
+   * Tests that an image larger than the budget is kept, and that replacing a spilled alias
+   * forgets the spilled image.
+   */
+  @Test
+  public void testOversizedAndReplaced() {
+    SpillingImageMap map = new SpillingImageMap(10);
+    map.put("a", image(0x010203, "a"));
+    assertFalse(map.isSpilled("a"));
+    map.put("b", image(0x040506, "b"));
+    assertTrue(map.isSpilled("a"));
+    map.put("a", image(0x070809, "a"));
+    assertEquals(0x07, map.get("a").getPixelValue(0, 0, 0));
+    assertTrue(map.isSpilled("b"));
+  }
+
+  /**
+   * Tests that lazy images stay lazy after being spilled, and mocks are never spilled.
+   */
+  @Test
+  public void testLazyAndMock() {
+    SpillingImageMap map = new SpillingImageMap(64);
+    map.put("mock", new MockImage());
+    map.put("lazy", LazyImageModel.of(image(0x102030, "lazy")).bright(5, "lazy"));
+    map.put("other", image(0, "other"));
+    assertTrue(map.isSpilled("lazy"));
+    assertFalse(map.isSpilled("mock"));
+    ImageModelNew lazy = map.get("lazy");
+    assertTrue(lazy instanceof LazyImageModel);
+    assertEquals(0x15, lazy.getPixelValue(0, 0, 0));
+  }
+
+  /**
+   * Tests that an alias whose spill file cannot be read stays spilled with its file, and is
+   * read back once the file can be read again.
+   *
+   * @throws IOException if the temporary directory cannot be used.
+   */
+  @Test
+  public void testFailedReloadKeepsAlias() throws IOException {
+    File directory = Files.createTempDirectory("spill-test").toFile();
+    directory.deleteOnExit();
+    SpillingImageMap map = new SpillingImageMap(64, directory);
+    map.put("a", image(0x112233, "a"));
+    map.put("b", image(0, "b"));
+    assertTrue(map.isSpilled("a"));
+    File[] files = directory.listFiles();
+    assertEquals(1, files.length);
+    File moved = new File(directory, "moved");
+    assertTrue(files[0].renameTo(moved));
+    assertNull(map.get("a"));
+    assertTrue(map.isSpilled("a"));
+    assertEquals(Arrays.asList("a", "b"), map.aliases());
+    assertTrue(moved.renameTo(files[0]));
+    ImageModelNew image = map.get("a");
+    assertEquals(0x11, image.getPixelValue(1, 0, 0));
+    assertFalse(files[0].exists());
+    moved.delete();
+    directory.delete();
+  }
+
+  /**
+   * Tests that compressed images count their coefficients and lazy images their source.
+   */
+  @Test
+  public void testCompressedAndLazySizes() {
+    ImageModelNewImpl source = image(0x808080, "source");
+    ImageModelNewImpl compressed = (ImageModelNewImpl) source.compress("compressed", 0.5);
+    assertEquals(128, SpillingImageMap.sizeOf(compressed));
+    assertEquals(64 + compressed.getWaveletData().length,
+            SpillingImageMap.sizeOf(compressed));
+    assertEquals(64, SpillingImageMap.sizeOf(LazyImageModel.of(source)));
+    assertEquals(128, SpillingImageMap.sizeOf(LazyImageModel.of(source).bright(5, "b")));
+  }
+
+  /**
+   * Tests that a compressed image is spilled as its coefficients, and read back with the same
+   * pixels and the same coefficients to save.
+   */
+  @Test
+  public void testSpillCompressed() {
+    int[] pixels = new int[16];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = PixelBuffer.pack(i * 16, 255 - i * 9, (i * 37) % 256);
+    }
+    ImageModelNewImpl compressed = (ImageModelNewImpl) new ImageModelNewImpl(
+            new PackedPixelBuffer(4, 4, pixels), "source").compress("compressed", 0.5);
+    SpillingImageMap map = new SpillingImageMap(64);
+    map.put("compressed", compressed);
+    map.put("other", image(0, "other"));
+    assertTrue(map.isSpilled("compressed"));
+    ImageModelNewImpl reloaded = (ImageModelNewImpl) map.get("compressed");
+    assertNotSame(compressed, reloaded);
+    assertEquals("compressed", reloaded.getImageAliasName());
+    assertArrayEquals(compressed.getPixelBuffer().getPixels(),
+            reloaded.getPixelBuffer().getPixels());
+    assertArrayEquals(compressed.getWaveletData(), reloaded.getWaveletData());
+    assertTrue(map.isSpilled("other"));
+  }
+
+  /**
+   * Tests that threads getting the same spilled alias together read it once and all get the
+   * same image.
+   *
+   * @throws Exception if a thread fails.
+   */
+  @Test
+  public void testConcurrentReload() throws Exception {
+    SpillingImageMap map = new SpillingImageMap(2 * 64);
+    map.put("a", image(0x112233, "a"));
+    map.put("b", image(0x445566, "b"));
+    map.put("c", image(0x778899, "c"));
+    assertTrue(map.isSpilled("a"));
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<ImageModelNew>> gets = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        gets.add(pool.submit(() -> map.get("a")));
+      }
+      ImageModelNew first = gets.get(0).get();
+      assertEquals(0x22, first.getPixelValue(3, 3, 1));
+      for (Future<ImageModelNew> get : gets) {
+        assertSame(first, get.get());
+      }
+      assertFalse(map.isSpilled("a"));
+      assertEquals(128, map.getResidentBytes());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Tests that put-if-absent keeps the first image and that aliases are listed as a snapshot.
+   */
+  @Test
+  public void testPutIfAbsentAndAliases() {
+    SpillingImageMap map = new SpillingImageMap(64);
+    assertNull(map.putIfAbsent("b", image(0x010101, "b")));
+    map.put("a", image(0x020202, "a"));
+    assertTrue(map.isSpilled("b"));
+    ImageModelNew kept = map.putIfAbsent("b", image(0x030303, "b"));
+    assertEquals(0x01, kept.getPixelValue(0, 0, 0));
+    List<String> aliases = map.aliases();
+    map.put("c", image(0, "c"));
+    assertEquals(Arrays.asList("a", "b"), aliases);
+    assertEquals(Arrays.asList("a", "b", "c"), map.aliases());
+  }
+
+  /**
+   * Tests that display images are reused until their alias is replaced or spilled, and that
+   * they count against the budget.
+   */
+  @Test
+  public void testDisplayCache() {
+    SpillingImageMap map = new SpillingImageMap(3 * 64);
+    AtomicInteger rendered = new AtomicInteger();
+    Function<ImageModelNew, BufferedImage> renderer = image -> {
+      rendered.incrementAndGet();
+      return RasterConverter.toImage(((ImageModelNewImpl) image).getPixelBuffer());
+    };
+    map.put("a", image(0x010203, "a"));
+    BufferedImage first = map.getDisplay("a", renderer);
+    assertSame(first, map.getDisplay("a", renderer));
+    assertEquals(1, rendered.get());
+    assertEquals(0x010203, first.getRGB(2, 2) & 0xFFFFFF);
+    assertEquals(128, map.getResidentBytes());
+
+    map.put("a", image(0x040506, "a"));
+    assertEquals(64, map.getResidentBytes());
+    BufferedImage second = map.getDisplay("a", renderer);
+    assertNotSame(first, second);
+    assertEquals(0x040506, second.getRGB(0, 0) & 0xFFFFFF);
+    assertEquals(0x010203, first.getRGB(0, 0) & 0xFFFFFF);
+
+    map.put("b", image(0, "b"));
+    map.put("c", image(0, "c"));
+    assertTrue(map.isSpilled("a"));
+    assertEquals(128, map.getResidentBytes());
+    assertEquals(0x040506, map.getDisplay("a", renderer).getRGB(3, 3) & 0xFFFFFF);
+    assertEquals(3, rendered.get());
+    assertTrue(map.getResidentBytes() <= 3 * 64);
+  }
+
+  /**
+   * Tests that many threads creating the same alias run the creator once, and that threads
+   * storing and getting distinct aliases under a tight budget always get their own images.
+   *
+   * @throws Exception if a thread fails.
+   */
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    SpillingImageMap map = new SpillingImageMap(3 * 64);
+    AtomicInteger created = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<ImageModelNew>> shared = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        shared.add(pool.submit(() -> map.computeIfAbsent("shared", alias -> {
+          created.incrementAndGet();
+          return image(0x0A0B0C, alias);
+        })));
+      }
+      for (Future<ImageModelNew> future : shared) {
+        assertEquals(0x0A, future.get().getPixelValue(1, 1, 0));
+      }
+      assertEquals(1, created.get());
+
+      List<Future<Boolean>> workers = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        int id = t;
+        workers.add(pool.submit(() -> {
+          boolean ok = true;
+          for (int round = 0; round < 50; round++) {
+            String alias = "image" + id + "-" + (round % 5);
+            map.put(alias, image(id * 16 + round % 5, alias));
+            ok &= map.get(alias).getPixelValue(2, 3, 2) == id * 16 + round % 5;
+          }
+          return ok;
+        }));
+      }
+      for (Future<Boolean> worker : workers) {
+        assertTrue(worker.get());
+      }
+      for (int id = 0; id < 8; id++) {
+        for (int k = 0; k < 5; k++) {
+          assertEquals(id * 16 + k, map.get("image" + id + "-" + k).getPixelValue(0, 0, 2));
+        }
+      }
+      assertTrue(map.getResidentBytes() <= 3 * 64);
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test Class for the recomposed split preview.
+ */
+public class SplitPreviewTest {
+
+  /**
+   * Method to build an image with a distinct value in every pixel.
+   *
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @return image model.
+   */
+  private ImageModelNewImpl image(int width, int height) {
+    int[] pixels = new int[width * height];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = (i * 37) % 256 * 0x010101;
+    }
+    return new ImageModelNewImpl(new PackedPixelBuffer(width, height, pixels), "img");
+  }
+
+  /**
+   * Method to get the packed pixels of an image.
+   *
+   * @param image image model.
+   * @return packed pixels.
+   */
+  private int[] pixels(ImageModelNew image) {
+    return ((ImageModelNewImpl) image).getPixelBuffer().getPixels();
+  }
+
+  /**
+   * Tests that moving the split back and forth gives the same images as running the operation
+   * with a split, and that images handed out earlier do not change.
+   */
+  @Test
+  public void testMatchesSplitOperation() {
+    ImageModelNewImpl original = image(7, 5);
+    ImageModelNew processed = original.sepia("img", 100);
+    SplitPreview preview = SplitPreview.of(original, processed);
+    ImageModelNew first = preview.at(60, "img");
+    int[] firstPixels = pixels(first).clone();
+    for (double per : new double[]{60, 20, 100, 0, 45, 45, 99, 10}) {
+      assertArrayEquals(pixels(original.sepia("img", per)), pixels(preview.at(per, "img")));
+    }
+    assertArrayEquals(firstPixels, pixels(first));
+  }
+
+  /**
+   * Tests that lazy images are recomposed and that images not held as pixels are refused.
+   */
+  @Test
+  public void testLazyAndMock() {
+    ImageModelNewImpl original = image(6, 3);
+    ImageModelNew lazy = LazyImageModel.of(original).bright(30, "img");
+    SplitPreview preview = SplitPreview.of(LazyImageModel.of(original), lazy);
+    int[] expected = pixels(original).clone();
+    int[] bright = pixels(LazyImageModel.materialize(lazy));
+    System.arraycopy(bright, 0, expected, 0, 3);
+    System.arraycopy(bright, 6, expected, 6, 3);
+    System.arraycopy(bright, 12, expected, 12, 3);
+    assertArrayEquals(expected, pixels(preview.at(50, "img")));
+    assertNull(SplitPreview.of(new MockImage(), original));
+  }
+}
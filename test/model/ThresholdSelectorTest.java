@@ -0,0 +1,66 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test Class for the compression threshold selection.
+ */
+public class ThresholdSelectorTest {
+
+  /**
+   * Method to select the threshold through a set of distinct values, as a reference.
+   *
+   * @param values magnitudes.
+   * @param ratio  fraction of the distinct values.
+   * @return selected threshold.
+   */
+  private double reference(double[] values, double ratio) {
+    Set<Double> set = new HashSet<>();
+    for (double value : values) {
+      set.add(value);
+    }
+    double[] unique = new double[set.size()];
+    int index = 0;
+    for (double value : set) {
+      unique[index++] = value;
+    }
+    Arrays.sort(unique);
+    int thresholdIndex = (int) (unique.length * ratio);
+    return ratio == 1 ? unique[thresholdIndex - 1] : unique[thresholdIndex];
+  }
+
+  /**
+   * Tests that the selected thresholds are those of the distinct value reference.
+   */
+  @Test
+  public void testMatchesReference() {
+    Random random = new Random(3);
+    double[] ratios = {0, 0.1, 0.25, 0.5, 0.9, 0.99, 1};
+    for (int round = 0; round < 20; round++) {
+      double[] values = new double[1 + random.nextInt(2000)];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = random.nextInt(4) == 0 ? 0 : Math.round(random.nextDouble() * 300) / 4.0;
+      }
+      for (double ratio : ratios) {
+        assertEquals(reference(values, ratio), ThresholdSelector.select(values.clone(), ratio),
+                0);
+      }
+    }
+  }
+
+  /**
+   * Tests a single repeated value.
+   */
+  @Test
+  public void testSingleValue() {
+    assertEquals(7.5, ThresholdSelector.select(new double[]{7.5, 7.5, 7.5}, 0.5), 0);
+    assertEquals(7.5, ThresholdSelector.select(new double[]{7.5, 7.5, 7.5}, 1), 0);
+  }
+}
@@ -0,0 +1,101 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test Class for the band scheduler and the operations running through it.
+ */
+public class TileSchedulerTest {
+
+  /**
+   * Method to build a random image large enough to be split into several bands.
+   *
+   * @return image with random pixels.
+   */
+  private ImageModelNewImpl randomImage() {
+    Random random = new Random(7);
+    int width = 301;
+    int height = 211;
+    int[] pixels = new int[width * height];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = random.nextInt(0x1000000);
+    }
+    return ImageModelNewImpl.adoptPixels(width, height, pixels, "random");
+  }
+
+  /**
+   * Method to run every scheduled operation on an image.
+   *
+   * @param img image to process.
+   * @return packed pixels of every result.
+   */
+  private int[][] runAll(ImageModelNewImpl img) {
+    ImageModelNew[] results = {
+            img.bright(37, "a"), img.bright(-60, "a"), img.sepia("a", 100),
+            img.greyscale("a", 100), img.intensity("a"), img.maxValue("a"), img.blur("a", 100),
+            img.sharpen("a", 100), img.levelAdjust("a", 20, 100, 240, 100),
+            img.colorCorrect("a", 100)
+    };
+    int[][] pixels = new int[results.length][];
+    for (int i = 0; i < results.length; i++) {
+      pixels[i] = ((ImageModelNewImpl) results[i]).getPixelBuffer().getPixels();
+    }
+    return pixels;
+  }
+
+  /**
+   * Tests that parallel runs give exactly the same pixels as the sequential path.
+   */
+  @Test
+  public void testParallelMatchesSequential() {
+    int previous = TileScheduler.getParallelism();
+    try {
+      ImageModelNewImpl img = randomImage();
+      TileScheduler.setParallelism(1);
+      int[][] sequential = runAll(img);
+      TileScheduler.setParallelism(4);
+      int[][] parallel = runAll(img);
+      for (int i = 0; i < sequential.length; i++) {
+        assertArrayEquals(sequential[i], parallel[i]);
+      }
+    } finally {
+      TileScheduler.setParallelism(previous);
+    }
+  }
+
+  /**
+   * Tests that every index is visited exactly once.
+   */
+  @Test
+  public void testBandsCoverRange() {
+    int previous = TileScheduler.getParallelism();
+    try {
+      TileScheduler.setParallelism(3);
+      AtomicIntegerArray visits = new AtomicIntegerArray(100003);
+      TileScheduler.forEachPixel(visits.length(), (start, end) -> {
+        for (int i = start; i < end; i++) {
+          visits.incrementAndGet(i);
+        }
+      });
+      for (int i = 0; i < visits.length(); i++) {
+        assertEquals(1, visits.get(i));
+      }
+    } finally {
+      TileScheduler.setParallelism(previous);
+    }
+  }
+
+  /**
+   * Tests that a parallelism below 1 is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParallelism() {
+    TileScheduler.setParallelism(0);
+  }
+}
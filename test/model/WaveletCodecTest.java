@@ -0,0 +1,176 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test Class for the wavelet file format.
+ */
+public class WaveletCodecTest {
+
+  /**
+   * Method to build an image with smooth gradients and a few sharp edges.
+   *
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @return pixels of the image.
+   */
+  private PixelBuffer gradient(int width, int height) {
+    int[] pixels = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int edge = x > width / 2 ? 60 : 0;
+        pixels[y * width + x] = PixelBuffer.pack((x * 7 + edge) % 256, (y * 5) % 256,
+                (x + y) % 256);
+      }
+    }
+    return new PackedPixelBuffer(width, height, pixels);
+  }
+
+  /**
+   * Tests that an image encoded without compression decodes to the same pixels.
+   *
+   * @throws IOException if decoding fails.
+   */
+  @Test
+  public void testLosslessRoundTrip() throws IOException {
+    PixelBuffer pixels = gradient(13, 6);
+    byte[] data = WaveletCodec.encode(pixels);
+    PixelBuffer decoded = WaveletCodec.decode(new ByteArrayInputStream(data), 0);
+    assertEquals(13, decoded.getWidth());
+    assertEquals(6, decoded.getHeight());
+    assertArrayEquals(pixels.getPixels(), decoded.getPixels());
+  }
+
+  /**
+   * Tests that the coefficients kept by compress decode to the compressed pixels, and that
+   * dropping coefficients makes the file smaller.
+   *
+   * @throws IOException if decoding fails.
+   */
+  @Test
+  public void testCompressedRoundTrip() throws IOException {
+    ImageModelNewImpl image = new ImageModelNewImpl(gradient(20, 12), "image");
+    ImageModelNewImpl light = (ImageModelNewImpl) image.compress("light", 0.2);
+    ImageModelNewImpl heavy = (ImageModelNewImpl) image.compress("heavy", 0.9);
+    assertNotNull(light.getWaveletData());
+    PixelBuffer decoded = WaveletCodec.decode(
+            new ByteArrayInputStream(heavy.getWaveletData()), 0);
+    assertArrayEquals(heavy.getPixelBuffer().getPixels(), decoded.getPixels());
+    assertTrue(heavy.getWaveletData().length < light.getWaveletData().length);
+  }
+
+  /**
+   * Tests that decoding at a lower level gives the averages of blocks of pixels, including the
+   * partial blocks at the edges of the image.
+   *
+   * @throws IOException if decoding fails.
+   */
+  @Test
+  public void testProgressiveLevels() throws IOException {
+    int[] pixels = {
+      10, 20, 30, 40, 50,
+      60, 70, 80, 90, 100,
+      110, 120, 130, 140, 150
+    };
+    byte[] data = WaveletCodec.encode(new PackedPixelBuffer(5, 3, pixels));
+    PixelBuffer half = WaveletCodec.decode(new ByteArrayInputStream(data), 1);
+    assertEquals(3, half.getWidth());
+    assertEquals(2, half.getHeight());
+    assertArrayEquals(new int[]{40, 60, 75, 115, 135, 150}, half.getPixels());
+    PixelBuffer single = WaveletCodec.decode(new ByteArrayInputStream(data), 10);
+    assertEquals(1, single.getWidth());
+    assertEquals(1, single.getHeight());
+    assertArrayEquals(new int[]{80}, single.getPixels());
+  }
+
+  /**
+   * Tests that the store saves and loads wavelet files, at full and reduced resolution.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  @Test
+  public void testStoreSaveAndLoad() throws IOException {
+    File file = File.createTempFile("wavelet", ".haar");
+    try {
+      PixelBuffer pixels = gradient(8, 8);
+      ImageModelStoreImpl store = new ImageModelStoreImpl("image",
+              new ImageModelNewImpl(pixels, "image"));
+      store.saveHelper(new String[]{"save", file.getPath(), "image"});
+      assertTrue(Files.size(file.toPath()) > 0);
+      store.loadHelper(new String[]{"load", file.getPath(), "full"});
+      assertArrayEquals(pixels.getPixels(),
+              ((ImageModelNewImpl) store.getImageForAlias("full")).getPixelBuffer().getPixels());
+      store.loadHelper(new String[]{"load", file.getPath(), "quarter", "2"});
+      assertEquals(2, store.getImageForAlias("quarter").getImageWidth());
+      assertEquals(2, store.getImageForAlias("quarter").getImageHeight());
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Tests that a photograph saved as a wavelet file, without compression, takes less space
+   * than the same image saved as binary PPM, and loads back to the same pixels.
+   *
+   * @throws IOException if a file cannot be written.
+   */
+  @Test
+  public void testSmallerThanPpm() throws IOException {
+    File wavelet = File.createTempFile("wavelet", ".haar");
+    File ppm = File.createTempFile("wavelet", ".ppm");
+    try {
+      ImageModelStoreImpl store = new ImageModelStoreImpl();
+      store.loadHelper(new String[]{"load", "res/manhattan-small.png", "image"});
+      store.saveHelper(new String[]{"save", wavelet.getPath(), "image"});
+      store.saveHelper(new String[]{"save", ppm.getPath(), "image", "p6"});
+      assertTrue(Files.size(wavelet.toPath()) < Files.size(ppm.toPath()));
+      store.loadHelper(new String[]{"load", wavelet.getPath(), "loaded"});
+      assertArrayEquals(
+              ((ImageModelNewImpl) store.getImageForAlias("image")).getPixelBuffer().getPixels(),
+              ((ImageModelNewImpl) store.getImageForAlias("loaded")).getPixelBuffer()
+                      .getPixels());
+    } finally {
+      wavelet.delete();
+      ppm.delete();
+    }
+  }
+
+  /**
+   * Tests that a header whose channels do not fit in memory is rejected as an invalid file,
+   * before anything is allocated.
+   */
+  @Test
+  public void testTooLarge() {
+    // HAAR, version 2, then width, height and padded sides of 65536 as varints
+    byte[] data = {'H', 'A', 'A', 'R', 2,
+        (byte) 0x80, (byte) 0x80, 0x04, (byte) 0x80, (byte) 0x80, 0x04,
+        (byte) 0x80, (byte) 0x80, 0x04, (byte) 0x80, (byte) 0x80, 0x04};
+    try {
+      WaveletCodec.decode(new ByteArrayInputStream(data), 0);
+      fail("A header too large for memory should be rejected.");
+    } catch (IOException e) {
+      assertEquals("Invalid wavelet file: image too large: 65536x65536", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that data without the wavelet header is rejected.
+   *
+   * @throws IOException always.
+   */
+  @Test(expected = IOException.class)
+  public void testInvalidHeader() throws IOException {
+    WaveletCodec.decode(new ByteArrayInputStream(new byte[]{'P', '3', 0, 0, 0}), 0);
+  }
+}
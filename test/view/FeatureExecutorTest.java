@@ -0,0 +1,83 @@
+package view;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test Class for the background executor of the GUI.
+ */
+public class FeatureExecutorTest {
+
+  /**
+   * Tests that results come back on the event thread in order, that previews superseded by a
+   * newer request are skipped or dropped while other tasks always run, and that the busy
+   * listener ends idle.
+   *
+   * @throws Exception if a task fails.
+   */
+  @Test
+  public void testPreviewsAreSuperseded() throws Exception {
+    List<Boolean> busy = Collections.synchronizedList(new ArrayList<>());
+    FeatureExecutor executor = new FeatureExecutor(busy::add);
+    List<String> shown = Collections.synchronizedList(new ArrayList<>());
+    List<String> ran = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger offEventThread = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch finished = new CountDownLatch(1);
+    try {
+      SwingUtilities.invokeAndWait(() -> {
+        executor.run(() -> {
+          release.await();
+          ran.add("execute");
+          if (!SwingUtilities.isEventDispatchThread()) {
+            offEventThread.incrementAndGet();
+          }
+          return "execute";
+        }, result -> {
+          assertTrue(SwingUtilities.isEventDispatchThread());
+          shown.add(result);
+        }, e -> shown.add("error"));
+        for (int split = 10; split <= 50; split += 10) {
+          String name = "split" + split;
+          executor.preview(() -> {
+            ran.add(name);
+            return name;
+          }, shown::add, e -> shown.add("error"));
+        }
+        executor.run(() -> {
+          throw new IllegalStateException("failed");
+        }, result -> shown.add("unexpected"), e -> shown.add(e.getMessage()));
+        executor.preview(() -> {
+          ran.add("last");
+          return "last";
+        }, result -> {
+          shown.add(result);
+          finished.countDown();
+        }, e -> shown.add("error"));
+      });
+      release.countDown();
+      finished.await();
+      for (int i = 0; i < 100 && busy.get(busy.size() - 1); i++) {
+        Thread.sleep(10);
+      }
+      assertEquals(Arrays.asList("execute", "last"), ran);
+      assertEquals(Arrays.asList("execute", "failed", "last"), shown);
+      assertEquals(1, offEventThread.get());
+      assertEquals(Boolean.FALSE, busy.get(busy.size() - 1));
+      assertEquals(Boolean.TRUE, busy.get(0));
+    } finally {
+      executor.shutdown();
+    }
+  }
+}